@@ -12,7 +12,14 @@ SET FOREIGN_KEY_CHECKS = 1;
 -- Drop tables in reverse order of dependencies (optional - use if you want fresh start)
 -- DROP TABLE IF EXISTS workout_sessions;
 -- DROP TABLE IF EXISTS progress_tracking;
+-- DROP TABLE IF EXISTS change_log;
+-- DROP TABLE IF EXISTS rollup_state;
+-- DROP TABLE IF EXISTS payment_fact_stale_days;
+-- DROP TABLE IF EXISTS daily_class_facts;
+-- DROP TABLE IF EXISTS daily_payment_facts;
+-- DROP TABLE IF EXISTS payment_status_summary;
 -- DROP TABLE IF EXISTS payments;
+-- DROP TABLE IF EXISTS class_waitlist;
 -- DROP TABLE IF EXISTS class_bookings;
 -- DROP TABLE IF EXISTS classes;
 -- DROP TABLE IF EXISTS trainers;
@@ -94,7 +101,7 @@ CREATE TABLE IF NOT EXISTS classes (
     end_time TIMESTAMP NOT NULL,
     max_capacity INT NOT NULL DEFAULT 10,
     current_bookings INT DEFAULT 0,
-    status ENUM('SCHEDULED', 'COMPLETED', 'CANCELLED') DEFAULT 'SCHEDULED',
+    status ENUM('SCHEDULED', 'IN_PROGRESS', 'FULL', 'COMPLETED', 'CANCELLED') DEFAULT 'SCHEDULED',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
 
@@ -102,39 +109,219 @@ CREATE TABLE IF NOT EXISTS classes (
     INDEX idx_trainer_id (trainer_id),
     INDEX idx_start_time (start_time),
     INDEX idx_status (status),
+    INDEX idx_class_updated_at (updated_at),
+    -- Relevance-ranked class search (ClassDAO.searchClasses)
+    FULLTEXT INDEX ft_class_search (class_name, description),
+    FULLTEXT INDEX ft_class_name (class_name),
     CONSTRAINT chk_time_order CHECK (end_time > start_time),
     CONSTRAINT chk_booking_capacity CHECK (current_bookings <= max_capacity)
 );
 
+-- Databases created before ClassStatusJob lack IN_PROGRESS and FULL (no-op once applied)
+ALTER TABLE classes MODIFY COLUMN status
+    ENUM('SCHEDULED', 'IN_PROGRESS', 'FULL', 'COMPLETED', 'CANCELLED') DEFAULT 'SCHEDULED';
+
 CREATE TABLE IF NOT EXISTS class_bookings (
     id INT PRIMARY KEY AUTO_INCREMENT,
     class_id INT NOT NULL,
     member_id INT NOT NULL,
     booking_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     status ENUM('CONFIRMED', 'CANCELLED', 'ATTENDED') DEFAULT 'CONFIRMED',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (class_id) REFERENCES classes(id) ON DELETE CASCADE,
     FOREIGN KEY (member_id) REFERENCES members(id) ON DELETE CASCADE,
     UNIQUE KEY unique_class_member (class_id, member_id),
     INDEX idx_class_id (class_id),
     INDEX idx_member_id (member_id),
-    INDEX idx_booking_date (booking_date)
+    INDEX idx_booking_date (booking_date),
+    INDEX idx_booking_updated_at (updated_at)
+);
+
+-- Members waiting for a spot in a full class, served in id (arrival) order
+CREATE TABLE IF NOT EXISTS class_waitlist (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    class_id INT NOT NULL,
+    member_id INT NOT NULL,
+    joined_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (class_id) REFERENCES classes(id) ON DELETE CASCADE,
+    FOREIGN KEY (member_id) REFERENCES members(id) ON DELETE CASCADE,
+    UNIQUE KEY unique_waitlist_class_member (class_id, member_id),
+    INDEX idx_waitlist_class_order (class_id, id)
 );
 
 CREATE TABLE IF NOT EXISTS payments (
     id INT PRIMARY KEY AUTO_INCREMENT,
     member_id INT NOT NULL,
+    transaction_id VARCHAR(32),
     amount DECIMAL(10, 2) NOT NULL,
-    payment_method ENUM('CASH', 'CARD', 'ONLINE') NOT NULL,
-    payment_type ENUM('MEMBERSHIP', 'CLASS', 'OTHER') NOT NULL,
-    status ENUM('PENDING', 'COMPLETED', 'FAILED') DEFAULT 'COMPLETED',
+    discount DECIMAL(10, 2) DEFAULT 0,
+    final_amount DECIMAL(10, 2),
+    payment_method ENUM('CASH', 'CARD', 'ONLINE', 'UPI', 'WALLET') NOT NULL,
+    payment_type ENUM('MEMBERSHIP', 'RENEWAL', 'CLASS', 'OTHER') NOT NULL,
+    status ENUM('PENDING', 'COMPLETED', 'FAILED', 'REFUNDED', 'CANCELLED') DEFAULT 'COMPLETED',
     payment_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     description VARCHAR(255),
+    invoice_number VARCHAR(32),
+    coupon_code VARCHAR(50),
+    refund_amount DECIMAL(10, 2) DEFAULT 0,
+    refund_date TIMESTAMP NULL,
+    refund_reason VARCHAR(255),
+    processed_by INT,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
 
     FOREIGN KEY (member_id) REFERENCES members(id) ON DELETE CASCADE,
+    -- Unique keys double as the indexes behind transaction/invoice lookups (equality and prefix)
+    UNIQUE KEY uk_payment_transaction_id (transaction_id),
+    UNIQUE KEY uk_payment_invoice_number (invoice_number),
     INDEX idx_member_id (member_id),
     INDEX idx_payment_date (payment_date),
+    INDEX idx_payment_date_id (payment_date, id),
     INDEX idx_status (status),
-    INDEX idx_payment_type (payment_type)
+    INDEX idx_payment_type (payment_type),
+    -- Class payments on the booking screen, paged newest first
+    INDEX idx_payment_type_date (payment_type, payment_date, id),
+    INDEX idx_payment_updated_at (updated_at)
+);
+
+-- ===================================
+-- UPGRADE EXISTING DATABASES
+-- ===================================
+-- CREATE TABLE IF NOT EXISTS leaves tables from an older version of this script as
+-- they were. These steps add the columns and indexes introduced since; each one checks
+-- information_schema first, so running the script again changes nothing.
+
+DROP PROCEDURE IF EXISTS add_column_if_missing;
+DROP PROCEDURE IF EXISTS add_index_if_missing;
+
+DELIMITER //
+
+CREATE PROCEDURE add_column_if_missing(IN tbl VARCHAR(64), IN col VARCHAR(64), IN definition VARCHAR(255))
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = DATABASE() AND table_name = tbl AND column_name = col) THEN
+        SET @ddl = CONCAT('ALTER TABLE ', tbl, ' ADD COLUMN ', col, ' ', definition);
+        PREPARE stmt FROM @ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+    END IF;
+END//
+
+CREATE PROCEDURE add_index_if_missing(IN tbl VARCHAR(64), IN idx VARCHAR(64), IN definition VARCHAR(255))
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                   WHERE table_schema = DATABASE() AND table_name = tbl AND index_name = idx) THEN
+        SET @ddl = CONCAT('ALTER TABLE ', tbl, ' ADD ', definition);
+        PREPARE stmt FROM @ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+    END IF;
+END//
+
+DELIMITER ;
+
+CALL add_index_if_missing('classes', 'idx_class_updated_at', 'INDEX idx_class_updated_at (updated_at)');
+CALL add_index_if_missing('classes', 'ft_class_search', 'FULLTEXT INDEX ft_class_search (class_name, description)');
+CALL add_index_if_missing('classes', 'ft_class_name', 'FULLTEXT INDEX ft_class_name (class_name)');
+
+CALL add_column_if_missing('class_bookings', 'updated_at',
+    'TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP');
+CALL add_index_if_missing('class_bookings', 'idx_booking_updated_at', 'INDEX idx_booking_updated_at (updated_at)');
+
+CALL add_column_if_missing('payments', 'transaction_id', 'VARCHAR(32) AFTER member_id');
+CALL add_column_if_missing('payments', 'discount', 'DECIMAL(10, 2) DEFAULT 0 AFTER amount');
+CALL add_column_if_missing('payments', 'final_amount', 'DECIMAL(10, 2) AFTER discount');
+CALL add_column_if_missing('payments', 'invoice_number', 'VARCHAR(32) AFTER description');
+CALL add_column_if_missing('payments', 'coupon_code', 'VARCHAR(50) AFTER invoice_number');
+CALL add_column_if_missing('payments', 'refund_amount', 'DECIMAL(10, 2) DEFAULT 0 AFTER coupon_code');
+CALL add_column_if_missing('payments', 'refund_date', 'TIMESTAMP NULL AFTER refund_amount');
+CALL add_column_if_missing('payments', 'refund_reason', 'VARCHAR(255) AFTER refund_date');
+CALL add_column_if_missing('payments', 'processed_by', 'INT AFTER refund_reason');
+CALL add_column_if_missing('payments', 'updated_at',
+    'TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP');
+ALTER TABLE payments
+    MODIFY COLUMN payment_method ENUM('CASH', 'CARD', 'ONLINE', 'UPI', 'WALLET') NOT NULL,
+    MODIFY COLUMN payment_type ENUM('MEMBERSHIP', 'RENEWAL', 'CLASS', 'OTHER') NOT NULL,
+    MODIFY COLUMN status ENUM('PENDING', 'COMPLETED', 'FAILED', 'REFUNDED', 'CANCELLED') DEFAULT 'COMPLETED';
+-- Rows written before final_amount existed; the rollups and summary sum final_amount
+UPDATE payments SET final_amount = amount - COALESCE(discount, 0) WHERE final_amount IS NULL;
+CALL add_index_if_missing('payments', 'uk_payment_transaction_id',
+    'UNIQUE KEY uk_payment_transaction_id (transaction_id)');
+CALL add_index_if_missing('payments', 'uk_payment_invoice_number',
+    'UNIQUE KEY uk_payment_invoice_number (invoice_number)');
+CALL add_index_if_missing('payments', 'idx_payment_date_id', 'INDEX idx_payment_date_id (payment_date, id)');
+CALL add_index_if_missing('payments', 'idx_payment_type_date',
+    'INDEX idx_payment_type_date (payment_type, payment_date, id)');
+CALL add_index_if_missing('payments', 'idx_payment_updated_at', 'INDEX idx_payment_updated_at (updated_at)');
+
+DROP PROCEDURE add_column_if_missing;
+DROP PROCEDURE add_index_if_missing;
+
+-- Running totals per payment status, kept in step with payments by PaymentDAO.
+-- Existing payments are summed in below; the application also backfills an empty
+-- summary at startup.
+CREATE TABLE IF NOT EXISTS payment_status_summary (
+    status VARCHAR(20) PRIMARY KEY,
+    payment_count INT NOT NULL DEFAULT 0,
+    amount_total DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    refund_total DECIMAL(14, 2) NOT NULL DEFAULT 0
+);
+
+INSERT IGNORE INTO payment_status_summary (status) VALUES
+('PENDING'), ('COMPLETED'), ('FAILED'), ('REFUNDED'), ('CANCELLED');
+
+INSERT INTO payment_status_summary (status, payment_count, amount_total, refund_total)
+SELECT status, COUNT(*), COALESCE(SUM(final_amount), 0), COALESCE(SUM(refund_amount), 0)
+FROM payments WHERE status IS NOT NULL GROUP BY status
+ON DUPLICATE KEY UPDATE payment_count = VALUES(payment_count),
+    amount_total = VALUES(amount_total), refund_total = VALUES(refund_total);
+
+-- Daily rollups, refreshed incrementally by DailyRollupJob (high-water mark in rollup_state)
+CREATE TABLE IF NOT EXISTS daily_payment_facts (
+    fact_date DATE NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    payment_method VARCHAR(20) NOT NULL,
+    payment_type VARCHAR(20) NOT NULL,
+    payment_count INT NOT NULL DEFAULT 0,
+    amount_total DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    refund_total DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (fact_date, status, payment_method, payment_type)
+);
+
+CREATE TABLE IF NOT EXISTS daily_class_facts (
+    fact_date DATE NOT NULL,
+    class_id INT NOT NULL,
+    booking_count INT NOT NULL DEFAULT 0,
+    attended_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (fact_date, class_id),
+    FOREIGN KEY (class_id) REFERENCES classes(id) ON DELETE CASCADE,
+    INDEX idx_class_facts_class (class_id)
+);
+
+CREATE TABLE IF NOT EXISTS rollup_state (
+    job_name VARCHAR(50) PRIMARY KEY,
+    high_water_mark TIMESTAMP NULL
+);
+
+-- ClassStatusJob keeps its last sweep time here, so only one client sweeps per interval
+INSERT IGNORE INTO rollup_state (job_name) VALUES ('class_status');
+
+-- Days a payment moved away from or was deleted from (filled by triggers below);
+-- DailyRollupJob recomputes and clears them on its next run
+CREATE TABLE IF NOT EXISTS payment_fact_stale_days (
+    fact_date DATE PRIMARY KEY
+);
+
+-- Cross-client change feed: one row per committed write, polled past the last seen id
+-- by ChangeFeedPoller on every client. Rows older than a day are pruned.
+CREATE TABLE IF NOT EXISTS change_log (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entity_type VARCHAR(10) NOT NULL,
+    entity_id INT NOT NULL,
+    member_id INT NULL,
+    change_kind VARCHAR(20) NOT NULL,
+    origin CHAR(36) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_change_log_created_at (created_at)
 );
 
 CREATE TABLE IF NOT EXISTS progress_tracking (
@@ -205,6 +392,8 @@ INSERT IGNORE INTO users (username, password, email, role, first_name, last_name
 DROP TRIGGER IF EXISTS increment_booking_count;
 DROP TRIGGER IF EXISTS decrement_booking_count;
 DROP TRIGGER IF EXISTS update_membership_status;
+DROP TRIGGER IF EXISTS payment_date_moved;
+DROP TRIGGER IF EXISTS payment_deleted;
 
 DELIMITER //
 
@@ -235,6 +424,24 @@ BEGIN
     END IF;
 END//
 
+CREATE TRIGGER payment_date_moved
+AFTER UPDATE ON payments
+FOR EACH ROW
+BEGIN
+    IF OLD.payment_date IS NOT NULL AND NOT (DATE(OLD.payment_date) <=> DATE(NEW.payment_date)) THEN
+        INSERT IGNORE INTO payment_fact_stale_days (fact_date) VALUES (DATE(OLD.payment_date));
+    END IF;
+END//
+
+CREATE TRIGGER payment_deleted
+AFTER DELETE ON payments
+FOR EACH ROW
+BEGIN
+    IF OLD.payment_date IS NOT NULL THEN
+        INSERT IGNORE INTO payment_fact_stale_days (fact_date) VALUES (DATE(OLD.payment_date));
+    END IF;
+END//
+
 DELIMITER ;
 
 -- ===================================
@@ -67,46 +67,206 @@ CREATE TABLE IF NOT EXISTS classes (
     end_time TIMESTAMP NOT NULL,
     max_capacity INT NOT NULL DEFAULT 10,
     current_bookings INT DEFAULT 0,
-    status VARCHAR(20) DEFAULT 'SCHEDULED' CHECK (status IN ('SCHEDULED', 'COMPLETED', 'CANCELLED')),
+    status VARCHAR(20) DEFAULT 'SCHEDULED' CHECK (status IN ('SCHEDULED', 'IN_PROGRESS', 'FULL', 'COMPLETED', 'CANCELLED')),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    search_vector tsvector GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(class_name, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(description, '')), 'B')
+    ) STORED,
     
     FOREIGN KEY (trainer_id) REFERENCES trainers(id) ON DELETE CASCADE,
     CONSTRAINT chk_time_order CHECK (end_time > start_time),
     CONSTRAINT chk_booking_capacity CHECK (current_bookings <= max_capacity)
 );
+-- CREATE TABLE IF NOT EXISTS leaves tables from an older version of this script as
+-- they were; the ALTERs below bring them up to date and change nothing once applied
+ALTER TABLE classes ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('english', coalesce(class_name, '')), 'A') ||
+    setweight(to_tsvector('english', coalesce(description, '')), 'B')
+) STORED;
 CREATE INDEX IF NOT EXISTS idx_class_trainer_id ON classes(trainer_id);
 CREATE INDEX IF NOT EXISTS idx_start_time ON classes(start_time);
 CREATE INDEX IF NOT EXISTS idx_class_status ON classes(status);
+CREATE INDEX IF NOT EXISTS idx_class_updated_at ON classes(updated_at);
+-- Ranked search: WHERE search_vector @@ websearch_to_tsquery('english', ?) ORDER BY ts_rank(search_vector, ...) DESC
+CREATE INDEX IF NOT EXISTS idx_class_search ON classes USING GIN (search_vector);
+-- Databases created before ClassStatusJob lack IN_PROGRESS and FULL
+ALTER TABLE classes DROP CONSTRAINT IF EXISTS classes_status_check;
+ALTER TABLE classes ADD CONSTRAINT classes_status_check
+    CHECK (status IN ('SCHEDULED', 'IN_PROGRESS', 'FULL', 'COMPLETED', 'CANCELLED'));
 CREATE TABLE IF NOT EXISTS class_bookings (
     id SERIAL PRIMARY KEY,
     class_id INT NOT NULL,
     member_id INT NOT NULL,
     booking_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     status VARCHAR(20) DEFAULT 'CONFIRMED' CHECK (status IN ('CONFIRMED', 'CANCELLED', 'ATTENDED')),
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (class_id) REFERENCES classes(id) ON DELETE CASCADE,
     FOREIGN KEY (member_id) REFERENCES members(id) ON DELETE CASCADE,
     UNIQUE (class_id, member_id)
 );
+ALTER TABLE class_bookings ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
 CREATE INDEX IF NOT EXISTS idx_booking_class_id ON class_bookings(class_id);
 CREATE INDEX IF NOT EXISTS idx_booking_member_id ON class_bookings(member_id);
 CREATE INDEX IF NOT EXISTS idx_booking_date ON class_bookings(booking_date);
+CREATE INDEX IF NOT EXISTS idx_booking_updated_at ON class_bookings(updated_at);
+CREATE TABLE IF NOT EXISTS class_waitlist (
+    id SERIAL PRIMARY KEY,
+    class_id INT NOT NULL,
+    member_id INT NOT NULL,
+    joined_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (class_id) REFERENCES classes(id) ON DELETE CASCADE,
+    FOREIGN KEY (member_id) REFERENCES members(id) ON DELETE CASCADE,
+    UNIQUE (class_id, member_id)
+);
+CREATE INDEX IF NOT EXISTS idx_waitlist_class_order ON class_waitlist(class_id, id);
 CREATE TABLE IF NOT EXISTS payments (
     id SERIAL PRIMARY KEY,
     member_id INT NOT NULL,
+    transaction_id VARCHAR(32),
     amount DECIMAL(10, 2) NOT NULL,
-    payment_method VARCHAR(20) NOT NULL CHECK (payment_method IN ('CASH', 'CARD', 'ONLINE')),
-    payment_type VARCHAR(20) NOT NULL CHECK (payment_type IN ('MEMBERSHIP', 'CLASS', 'OTHER')),
-    status VARCHAR(20) DEFAULT 'COMPLETED' CHECK (status IN ('PENDING', 'COMPLETED', 'FAILED')),
+    discount DECIMAL(10, 2) DEFAULT 0,
+    final_amount DECIMAL(10, 2),
+    payment_method VARCHAR(20) NOT NULL CHECK (payment_method IN ('CASH', 'CARD', 'ONLINE', 'UPI', 'WALLET')),
+    payment_type VARCHAR(20) NOT NULL CHECK (payment_type IN ('MEMBERSHIP', 'RENEWAL', 'CLASS', 'OTHER')),
+    status VARCHAR(20) DEFAULT 'COMPLETED' CHECK (status IN ('PENDING', 'COMPLETED', 'FAILED', 'REFUNDED', 'CANCELLED')),
     payment_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     description VARCHAR(255),
+    invoice_number VARCHAR(32),
+    coupon_code VARCHAR(50),
+    refund_amount DECIMAL(10, 2) DEFAULT 0,
+    refund_date TIMESTAMP,
+    refund_reason VARCHAR(255),
+    processed_by INT,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     
     FOREIGN KEY (member_id) REFERENCES members(id) ON DELETE CASCADE
 );
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS transaction_id VARCHAR(32);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS discount DECIMAL(10, 2) DEFAULT 0;
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS final_amount DECIMAL(10, 2);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS invoice_number VARCHAR(32);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS coupon_code VARCHAR(50);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS refund_amount DECIMAL(10, 2) DEFAULT 0;
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS refund_date TIMESTAMP;
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS refund_reason VARCHAR(255);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS processed_by INT;
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE payments DROP CONSTRAINT IF EXISTS payments_payment_method_check;
+ALTER TABLE payments ADD CONSTRAINT payments_payment_method_check
+    CHECK (payment_method IN ('CASH', 'CARD', 'ONLINE', 'UPI', 'WALLET'));
+ALTER TABLE payments DROP CONSTRAINT IF EXISTS payments_payment_type_check;
+ALTER TABLE payments ADD CONSTRAINT payments_payment_type_check
+    CHECK (payment_type IN ('MEMBERSHIP', 'RENEWAL', 'CLASS', 'OTHER'));
+ALTER TABLE payments DROP CONSTRAINT IF EXISTS payments_status_check;
+ALTER TABLE payments ADD CONSTRAINT payments_status_check
+    CHECK (status IN ('PENDING', 'COMPLETED', 'FAILED', 'REFUNDED', 'CANCELLED'));
+UPDATE payments SET final_amount = amount - COALESCE(discount, 0) WHERE final_amount IS NULL;
 CREATE INDEX IF NOT EXISTS idx_payment_member_id ON payments(member_id);
 CREATE INDEX IF NOT EXISTS idx_payment_date ON payments(payment_date);
+CREATE INDEX IF NOT EXISTS idx_payment_date_id ON payments(payment_date DESC, id DESC);
 CREATE INDEX IF NOT EXISTS idx_payment_status ON payments(status);
 CREATE INDEX IF NOT EXISTS idx_payment_type ON payments(payment_type);
+CREATE INDEX IF NOT EXISTS idx_payment_type_date ON payments(payment_type, payment_date DESC, id DESC);
+-- text_pattern_ops so LIKE 'TXN123%' prefix lookups can use the unique indexes
+CREATE UNIQUE INDEX IF NOT EXISTS uk_payment_transaction_id ON payments(transaction_id text_pattern_ops);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_payment_invoice_number ON payments(invoice_number text_pattern_ops);
+CREATE TABLE IF NOT EXISTS payment_status_summary (
+    status VARCHAR(20) PRIMARY KEY,
+    payment_count INT NOT NULL DEFAULT 0,
+    amount_total DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    refund_total DECIMAL(14, 2) NOT NULL DEFAULT 0
+);
+INSERT INTO payment_status_summary (status) VALUES
+('PENDING'), ('COMPLETED'), ('FAILED'), ('REFUNDED'), ('CANCELLED')
+ON CONFLICT DO NOTHING;
+INSERT INTO payment_status_summary (status, payment_count, amount_total, refund_total)
+SELECT status, COUNT(*), COALESCE(SUM(final_amount), 0), COALESCE(SUM(refund_amount), 0)
+FROM payments WHERE status IS NOT NULL GROUP BY status
+ON CONFLICT (status) DO UPDATE SET payment_count = EXCLUDED.payment_count,
+    amount_total = EXCLUDED.amount_total, refund_total = EXCLUDED.refund_total;
+CREATE INDEX IF NOT EXISTS idx_payment_updated_at ON payments(updated_at);
+CREATE TABLE IF NOT EXISTS daily_payment_facts (
+    fact_date DATE NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    payment_method VARCHAR(20) NOT NULL,
+    payment_type VARCHAR(20) NOT NULL,
+    payment_count INT NOT NULL DEFAULT 0,
+    amount_total DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    refund_total DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (fact_date, status, payment_method, payment_type)
+);
+CREATE TABLE IF NOT EXISTS daily_class_facts (
+    fact_date DATE NOT NULL,
+    class_id INT NOT NULL,
+    booking_count INT NOT NULL DEFAULT 0,
+    attended_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (fact_date, class_id),
+    FOREIGN KEY (class_id) REFERENCES classes(id) ON DELETE CASCADE
+);
+CREATE INDEX IF NOT EXISTS idx_class_facts_class ON daily_class_facts(class_id);
+CREATE TABLE IF NOT EXISTS rollup_state (
+    job_name VARCHAR(50) PRIMARY KEY,
+    high_water_mark TIMESTAMP NULL
+);
+INSERT INTO rollup_state (job_name) VALUES ('class_status')
+ON CONFLICT DO NOTHING;
+CREATE TABLE IF NOT EXISTS payment_fact_stale_days (
+    fact_date DATE PRIMARY KEY
+);
+CREATE TABLE IF NOT EXISTS change_log (
+    id BIGSERIAL PRIMARY KEY,
+    entity_type VARCHAR(10) NOT NULL,
+    entity_id INT NOT NULL,
+    member_id INT NULL,
+    change_kind VARCHAR(20) NOT NULL,
+    origin CHAR(36) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_change_log_created_at ON change_log(created_at);
+-- MySQL's ON UPDATE CURRENT_TIMESTAMP; DailyRollupJob finds changed rows by updated_at
+CREATE OR REPLACE FUNCTION set_updated_at() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.updated_at = CURRENT_TIMESTAMP;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+DROP TRIGGER IF EXISTS users_updated_at ON users;
+CREATE TRIGGER users_updated_at BEFORE UPDATE ON users
+    FOR EACH ROW EXECUTE FUNCTION set_updated_at();
+DROP TRIGGER IF EXISTS membership_plans_updated_at ON membership_plans;
+CREATE TRIGGER membership_plans_updated_at BEFORE UPDATE ON membership_plans
+    FOR EACH ROW EXECUTE FUNCTION set_updated_at();
+DROP TRIGGER IF EXISTS members_updated_at ON members;
+CREATE TRIGGER members_updated_at BEFORE UPDATE ON members
+    FOR EACH ROW EXECUTE FUNCTION set_updated_at();
+DROP TRIGGER IF EXISTS trainers_updated_at ON trainers;
+CREATE TRIGGER trainers_updated_at BEFORE UPDATE ON trainers
+    FOR EACH ROW EXECUTE FUNCTION set_updated_at();
+DROP TRIGGER IF EXISTS classes_updated_at ON classes;
+CREATE TRIGGER classes_updated_at BEFORE UPDATE ON classes
+    FOR EACH ROW EXECUTE FUNCTION set_updated_at();
+DROP TRIGGER IF EXISTS class_bookings_updated_at ON class_bookings;
+CREATE TRIGGER class_bookings_updated_at BEFORE UPDATE ON class_bookings
+    FOR EACH ROW EXECUTE FUNCTION set_updated_at();
+DROP TRIGGER IF EXISTS payments_updated_at ON payments;
+CREATE TRIGGER payments_updated_at BEFORE UPDATE ON payments
+    FOR EACH ROW EXECUTE FUNCTION set_updated_at();
+-- Days a payment moved away from or was deleted from, for DailyRollupJob to recompute
+CREATE OR REPLACE FUNCTION record_stale_payment_day() RETURNS TRIGGER AS $$
+BEGIN
+    IF OLD.payment_date IS NOT NULL AND (TG_OP = 'DELETE'
+            OR CAST(OLD.payment_date AS DATE) IS DISTINCT FROM CAST(NEW.payment_date AS DATE)) THEN
+        INSERT INTO payment_fact_stale_days (fact_date) VALUES (CAST(OLD.payment_date AS DATE))
+        ON CONFLICT DO NOTHING;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+DROP TRIGGER IF EXISTS payment_day_stale ON payments;
+CREATE TRIGGER payment_day_stale AFTER UPDATE OR DELETE ON payments
+    FOR EACH ROW EXECUTE FUNCTION record_stale_payment_day();
 INSERT INTO membership_plans (plan_name, description, price, duration_in_months) VALUES
 ('Basic Monthly', 'Access to gym facilities during regular hours', 29.99, 1),
 ('Premium Monthly', 'Full access with group classes and premium amenities', 49.99, 1),
@@ -0,0 +1,165 @@
+package com.gymmanagementsystem;
+
+import com.gymmanagementsystem.dao.BookingIntakeQueue;
+import com.gymmanagementsystem.dao.ClassDAO;
+import com.gymmanagementsystem.util.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manual load check for ClassDAO.bookClass.
+ *
+ * Fires many concurrent bookings at one class, then reports latency percentiles,
+ * throughput and whether the class ended up overbooked. Bookings made by the run
+ * are deleted afterwards so the class is left as it was.
+ *
+ * Usage: BookingLoadTest <classId> [bookers] [direct|queue]
+ *   direct - each booker calls ClassDAO.bookClass (default)
+ *   queue  - bookers go through BookingIntakeQueue and are batched per class
+ */
+public class BookingLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: BookingLoadTest <classId> [bookers] [direct|queue]");
+            return;
+        }
+
+        int classId = Integer.parseInt(args[0]);
+        int bookers = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        boolean useQueue = args.length > 2 && "queue".equalsIgnoreCase(args[2]);
+
+        System.out.println("=== Booking Load Test ===");
+        if (!DatabaseConnection.initialize()) {
+            System.out.println("✗ Failed to initialize database connection pool");
+            return;
+        }
+
+        List<Integer> memberIds = loadMemberIds(bookers);
+        if (memberIds.isEmpty()) {
+            System.out.println("✗ No members available to book with");
+            return;
+        }
+        System.out.println("Class ID: " + classId + ", concurrent bookers: " + memberIds.size() +
+                ", mode: " + (useQueue ? "queue" : "direct"));
+
+        ClassDAO classDAO = new ClassDAO();
+        ExecutorService pool = Executors.newFixedThreadPool(memberIds.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> results = new ArrayList<>();
+
+        // Each task returns {memberId, booked (0/1), latency in nanos}
+        for (int memberId : memberIds) {
+            results.add(pool.submit(() -> {
+                start.await();
+                long begin = System.nanoTime();
+                boolean booked = useQueue
+                        ? BookingIntakeQueue.getInstance().book(classId, memberId)
+                        : classDAO.bookClass(classId, memberId);
+                return new long[]{memberId, booked ? 1 : 0, System.nanoTime() - begin};
+            }));
+        }
+
+        long wallStart = System.nanoTime();
+        start.countDown();
+
+        List<Long> latencies = new ArrayList<>();
+        List<Integer> bookedMembers = new ArrayList<>();
+        for (Future<long[]> result : results) {
+            long[] outcome = result.get();
+            latencies.add(outcome[2]);
+            if (outcome[1] == 1) {
+                bookedMembers.add((int) outcome[0]);
+            }
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+
+        Collections.sort(latencies);
+        System.out.println("\n=== Results ===");
+        System.out.println("  Successful bookings: " + bookedMembers.size() + " / " + latencies.size());
+        System.out.printf("  Throughput: %.1f bookings/s%n", latencies.size() / (wallNanos / 1e9));
+        System.out.printf("  Latency p50: %.1f ms%n", percentile(latencies, 50));
+        System.out.printf("  Latency p95: %.1f ms%n", percentile(latencies, 95));
+        System.out.printf("  Latency max: %.1f ms%n", latencies.get(latencies.size() - 1) / 1e6);
+
+        checkCapacity(classId);
+
+        // Leave the class as we found it
+        deleteBookings(classId, bookedMembers);
+        System.out.println("\n✓ Deleted " + bookedMembers.size() + " test bookings");
+
+        System.out.println("\n=== Test Complete ===");
+        DatabaseConnection.closeDataSource();
+    }
+
+    private static List<Integer> loadMemberIds(int limit) throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT id FROM members ORDER BY id LIMIT ?")) {
+            stmt.setInt(1, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Delete the run's bookings directly. cancelBooking would promote real waitlisted
+     * members into the freed spots; the booking-count trigger still fires on these deletes.
+     */
+    private static void deleteBookings(int classId, List<Integer> memberIds) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "DELETE FROM class_bookings WHERE class_id = ? AND member_id = ?")) {
+            for (int memberId : memberIds) {
+                stmt.setInt(1, classId);
+                stmt.setInt(2, memberId);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private static void checkCapacity(int classId) throws Exception {
+        String sql = "SELECT c.max_capacity, c.current_bookings, " +
+                "(SELECT COUNT(*) FROM class_bookings b WHERE b.class_id = c.id) AS actual_bookings " +
+                "FROM classes c WHERE c.id = ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, classId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    int max = rs.getInt("max_capacity");
+                    int counter = rs.getInt("current_bookings");
+                    int actual = rs.getInt("actual_bookings");
+                    System.out.println("  Capacity: " + max + ", counter: " + counter + ", booking rows: " + actual);
+                    if (actual > max || counter != actual) {
+                        System.out.println("✗ Class is overbooked or counter is out of sync!");
+                    } else {
+                        System.out.println("✓ No overbooking");
+                    }
+                }
+            }
+        }
+    }
+
+    private static double percentile(List<Long> sortedNanos, int pct) {
+        int index = (int) Math.ceil(pct / 100.0 * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(index, 0)) / 1e6;
+    }
+}
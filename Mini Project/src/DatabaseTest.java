@@ -8,7 +8,7 @@ public class DatabaseTest {
     public static void main(String[] args) {
         System.out.println("=== Database Connection Test ===");
         
-        if (DatabaseConnection.isPoolInitialized()) {
+        if (DatabaseConnection.initialize()) {
             System.out.println("✓ Database connection pool initialized successfully!");
         } else {
             System.out.println("✗ Failed to initialize database connection pool");
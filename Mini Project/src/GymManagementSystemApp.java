@@ -4,6 +4,10 @@ import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import com.gymmanagementsystem.dao.ChangeFeedPoller;
+import com.gymmanagementsystem.dao.ClassStatusJob;
+import com.gymmanagementsystem.dao.DailyRollupJob;
+import com.gymmanagementsystem.dao.MemberSearchIndex;
 import com.gymmanagementsystem.util.DatabaseConnection;
 
 public class GymManagementSystemApp extends Application {
@@ -16,12 +20,12 @@ public class GymManagementSystemApp extends Application {
 
     @Override
     public void start(Stage primaryStage) {
-        try {
-            // Test database connection
-            if (DatabaseConnection.isPoolInitialized()) {
-                System.out.println("Database connection pool is ready!");
-            }
+        // Pool warm-up, screen preloading and reference data run in the background
+        // while the login screen comes up
+        StartupPipeline startup = StartupPipeline.start();
+        long loginStart = System.nanoTime();
 
+        try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/login.fxml"));
             Scene scene = new Scene(loader.load());
             scene.getStylesheets().add(getClass().getResource("/css/style.css").toExternalForm());
@@ -37,9 +41,11 @@ public class GymManagementSystemApp extends Application {
             primaryStage.setMaximized(true);
 
             primaryStage.show();
+            startup.loginShown(loginStart, null);
 
             System.out.println("Application started successfully (MAXIMIZED)");
         } catch (Exception e) {
+            startup.loginShown(loginStart, e);
             e.printStackTrace();
             System.err.println("Failed to start application: " + e.getMessage());
         }
@@ -48,6 +54,10 @@ public class GymManagementSystemApp extends Application {
     @Override
     public void stop() {
         try {
+            DailyRollupJob.getInstance().stop();
+            ClassStatusJob.getInstance().stop();
+            ChangeFeedPoller.getInstance().stop();
+            MemberSearchIndex.getInstance().stop();
             DatabaseConnection.closeDataSource();
             System.out.println("Database connection pool closed");
         } catch (Exception e) {
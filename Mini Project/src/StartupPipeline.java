@@ -0,0 +1,191 @@
+package com.gymmanagementsystem;
+
+import com.gymmanagementsystem.dao.ChangeFeedPoller;
+import com.gymmanagementsystem.dao.ClassStatusJob;
+import com.gymmanagementsystem.dao.DailyRollupJob;
+import com.gymmanagementsystem.dao.DashboardReads;
+import com.gymmanagementsystem.dao.MemberSearchIndex;
+import com.gymmanagementsystem.dao.MembershipPlanCatalog;
+import com.gymmanagementsystem.dao.PaymentDAO;
+import com.gymmanagementsystem.dao.TrainerDAO;
+import com.gymmanagementsystem.util.DaoExecutor;
+import com.gymmanagementsystem.util.DatabaseConnection;
+import com.gymmanagementsystem.util.SceneManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Startup work that runs in the background while the login screen comes up.
+ *
+ * Three independent branches start at once on DaoExecutor's threads:
+ * <ul>
+ *   <li>pool warm-up, after which the background jobs start (or, if the database
+ *       is unreachable, as soon as a later query manages to open the pool);</li>
+ *   <li>FXML preloading of the screens a login leads to;</li>
+ *   <li>reference data (membership plans, trainers, upcoming classes, the member
+ *       search index) and the payment summary backfill, each run in parallel as
+ *       soon as the pool is up.</li>
+ * </ul>
+ * Every phase is timed, and one report is logged once all of them (and the login
+ * screen on the FX thread) have finished. A failed phase only costs its speed-up:
+ * every screen still loads what it needs itself.
+ */
+public class StartupPipeline {
+
+    private static final Logger LOGGER = Logger.getLogger(StartupPipeline.class.getName());
+
+    // Screens a successful login leads to first
+    private static final List<String> LIKELY_SCREENS = List.of(
+            "/fxml/admin-dashboard.fxml",
+            "/fxml/member-dashboard.fxml",
+            "/fxml/trainer-dashboard.fxml",
+            "/fxml/payment-booking.fxml",
+            "/fxml/class-scheduling.fxml");
+
+    private final long startedAt = System.nanoTime();
+    private final List<Phase> phases = Collections.synchronizedList(new ArrayList<>());
+    private final CompletableFuture<Void> loginShown = new CompletableFuture<>();
+
+    private StartupPipeline() {}
+
+    /**
+     * Start every background phase and return immediately
+     */
+    public static StartupPipeline start() {
+        StartupPipeline pipeline = new StartupPipeline();
+        pipeline.run();
+        return pipeline;
+    }
+
+    private void run() {
+        CompletableFuture<String> pool = phase("pool warm-up",
+                () -> DatabaseConnection.warmUp() ? "ready" : "unavailable");
+
+        CompletableFuture<String> screens = phase("FXML preload",
+                () -> LIKELY_SCREENS.size() + " screens, " + SceneManager.preload(LIKELY_SCREENS) + " classes");
+
+        CompletableFuture<Void> referenceData = pool.thenCompose(result -> {
+            if (!DatabaseConnection.isPoolInitialized()) {
+                // Screens retry the pool on their first query; start the jobs when one succeeds
+                DatabaseConnection.whenAvailable(this::startLate);
+                return CompletableFuture.completedFuture(null);
+            }
+            startBackgroundJobs();
+            return CompletableFuture.allOf(
+                    phase("membership plans", () -> {
+                        MembershipPlanCatalog catalog = MembershipPlanCatalog.getInstance();
+                        return catalog.refresh() ? catalog.getAll().size() + " plans" : "failed";
+                    }),
+                    phase("payment summary",
+                            () -> new PaymentDAO().backfillStatusSummary() ? "backfilled" : "up to date"),
+                    phase("trainers", () -> new TrainerDAO().getAllTrainers().size() + " trainers"),
+                    phase("upcoming classes", () -> {
+                        DashboardReads.upcomingClasses().prime();
+                        return "primed";
+                    }),
+                    phase("member search index",
+                            () -> MemberSearchIndex.getInstance().build() ? "built" : "failed"));
+        });
+
+        CompletableFuture.allOf(pool, screens, referenceData, loginShown)
+                .whenComplete((ignored, error) -> report());
+    }
+
+    /**
+     * The pool came up only after startup gave up on it: start the jobs and build the
+     * member search index, which the skipped reference-data phase would have built
+     */
+    private void startLate() {
+        LOGGER.info("Database available after startup; starting background jobs");
+        startBackgroundJobs();
+        DaoExecutor.executor().execute(() -> MemberSearchIndex.getInstance().build());
+    }
+
+    private void startBackgroundJobs() {
+        DailyRollupJob.getInstance().start();
+        ClassStatusJob.getInstance().start();
+        ChangeFeedPoller.getInstance().start();
+        MemberSearchIndex.getInstance().start();
+    }
+
+    /**
+     * Record how long the login screen took on the FX thread
+     *
+     * @param error why it could not be shown, or null
+     */
+    public void loginShown(long startNanos, Throwable error) {
+        record("login screen", startNanos, error == null ? "shown" : null, error);
+        loginShown.complete(null);
+    }
+
+    /**
+     * Run one timed phase on a DAO thread; a failure is recorded and yields null
+     */
+    private CompletableFuture<String> phase(String name, Callable<String> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                String detail = work.call();
+                record(name, start, detail, null);
+                return detail;
+            } catch (Exception e) {
+                record(name, start, null, e);
+                LOGGER.log(Level.WARNING, "Startup phase failed: " + name, e);
+                return null;
+            }
+        }, DaoExecutor.executor());
+    }
+
+    private void record(String name, long startNanos, String detail, Throwable error) {
+        phases.add(new Phase(name, elapsedMillis(startNanos), detail, error));
+    }
+
+    private void report() {
+        StringBuilder report = new StringBuilder("Startup finished in ")
+                .append(elapsedMillis(startedAt)).append(" ms");
+        synchronized (phases) {
+            for (Phase phase : phases) {
+                report.append("\n  ").append(phase);
+            }
+        }
+        LOGGER.info(report.toString());
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Outcome of one startup phase
+     */
+    public static class Phase {
+        private final String name;
+        private final long millis;
+        private final String detail;
+        private final Throwable error;
+
+        Phase(String name, long millis, String detail, Throwable error) {
+            this.name = name;
+            this.millis = millis;
+            this.detail = detail;
+            this.error = error;
+        }
+
+        public String getName() { return name; }
+        public long getMillis() { return millis; }
+        public boolean isFailed() { return error != null; }
+
+        @Override
+        public String toString() {
+            return String.format("%-20s %6d ms  %s", name, millis,
+                    error != null ? "failed: " + error.getMessage() : detail);
+        }
+    }
+}
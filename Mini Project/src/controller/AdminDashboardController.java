@@ -1,7 +1,10 @@
 package com.gymmanagementsystem.controller;
 
+import com.gymmanagementsystem.dao.DashboardKpiService;
+import com.gymmanagementsystem.util.DaoExecutor;
 import com.gymmanagementsystem.util.SessionManager;
 import com.gymmanagementsystem.util.SceneManager;
+import com.gymmanagementsystem.util.ScreenLifecycle;
 import javafx.animation.ScaleTransition;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -12,17 +15,84 @@ import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.VBox;
 import javafx.util.Duration;
 
+import java.math.BigDecimal;
 import java.net.URL;
 import java.util.ResourceBundle;
 
-public class AdminDashboardController implements Initializable {
+public class AdminDashboardController implements Initializable, ScreenLifecycle {
 
     @FXML private Label welcomeLabel;
+    @FXML private Label kpiStatusLabel;
+    @FXML private Label headerMembersLabel;
+    @FXML private Label headerTrainersLabel;
+    @FXML private Label headerClassesLabel;
+    @FXML private Label activeMembersLabel;
+    @FXML private Label expiringMembersLabel;
+    @FXML private Label totalTrainersLabel;
+    @FXML private Label trainersTodayLabel;
+    @FXML private Label classesTodayLabel;
+    @FXML private Label occupancyLabel;
+    @FXML private Label revenueLabel;
+    @FXML private Label pendingPaymentsLabel;
+
+    private final DashboardKpiService kpiService = DashboardKpiService.getInstance();
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         String userName = SessionManager.getInstance().getCurrentUser().getFullName();
         welcomeLabel.setText("Welcome, " + userName + " (Admin)");
+        loadKpis();
+    }
+
+    /**
+     * Back from another screen: the cached figures first, refreshed if they have aged
+     */
+    @Override
+    public void onShow() {
+        loadKpis();
+    }
+
+    /**
+     * Show the cached KPI snapshot straight away, then whatever the service returns
+     */
+    private void loadKpis() {
+        DashboardKpiService.Kpis cached = kpiService.peek();
+        if (cached != null) {
+            showKpis(cached);
+        }
+
+        DaoExecutor.load(kpiService::get, this::showKpis, error -> {
+            if (kpiService.peek() == null) {
+                kpiStatusLabel.setText("Live figures unavailable");
+            }
+        });
+    }
+
+    private void showKpis(DashboardKpiService.Kpis kpis) {
+        headerMembersLabel.setText(String.valueOf(kpis.getActiveMembers()));
+        headerTrainersLabel.setText(String.valueOf(kpis.getTotalTrainers()));
+        headerClassesLabel.setText(String.valueOf(kpis.getTotalClasses()));
+        activeMembersLabel.setText(String.valueOf(kpis.getActiveMembers()));
+        expiringMembersLabel.setText(String.valueOf(kpis.getMembershipsExpiringSoon()));
+        totalTrainersLabel.setText(String.valueOf(kpis.getTotalTrainers()));
+        trainersTodayLabel.setText(String.valueOf(kpis.getTrainersTeachingToday()));
+        classesTodayLabel.setText(String.valueOf(kpis.getClassesToday()));
+        occupancyLabel.setText(String.format("%.0f%%", kpis.getOccupancyToday()));
+        revenueLabel.setText(formatRevenue(kpis.getRevenueMonthToDate()));
+        pendingPaymentsLabel.setText(String.valueOf(kpis.getPendingPayments()));
+
+        long seconds = kpis.getAgeMillis() / 1000;
+        kpiStatusLabel.setText(seconds < 5 ? "Live figures updated just now"
+                : "Live figures updated " + (seconds < 60 ? seconds + " s" : (seconds / 60) + " min") + " ago");
+    }
+
+    // Compact rupee amount for a stat tile, e.g. ₹2.4L
+    private String formatRevenue(BigDecimal amount) {
+        double value = amount.doubleValue();
+        if (value >= 10_000_000) return String.format("₹%.1fCr", value / 10_000_000);
+        if (value >= 100_000) return String.format("₹%.1fL", value / 100_000);
+        if (value >= 1_000) return String.format("₹%.1fK", value / 1_000);
+        return String.format("₹%.0f", value);
     }
 
     @FXML
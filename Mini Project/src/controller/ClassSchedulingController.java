@@ -1,22 +1,29 @@
 package com.gymmanagementsystem.controller;
 
 import com.gymmanagementsystem.dao.ClassDAO;
+import com.gymmanagementsystem.dao.DashboardReads;
 import com.gymmanagementsystem.dao.TrainerDAO;
 import com.gymmanagementsystem.model.GymClass;
 import com.gymmanagementsystem.model.Trainer;
+import com.gymmanagementsystem.util.ClassFilterIndex;
+import com.gymmanagementsystem.util.DaoExecutor;
+import com.gymmanagementsystem.util.DomainEvent.BookingChanged;
+import com.gymmanagementsystem.util.DomainEvent.ClassChanged;
+import com.gymmanagementsystem.util.DomainEventBus;
+import com.gymmanagementsystem.util.ListReconciler;
+import com.gymmanagementsystem.util.SceneManager;
+import com.gymmanagementsystem.util.ScreenLifecycle;
+import com.gymmanagementsystem.util.TypeAheadSearch;
 import javafx.animation.PauseTransition;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.collections.transformation.SortedList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.paint.Color;
-import javafx.stage.Stage;
 import javafx.util.Duration;
 
 import java.io.IOException;
@@ -27,13 +34,17 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.logging.Logger;
 
 /**
  * Enhanced ClassSchedulingController with improved UX, validation, and features
  */
-public class ClassSchedulingController implements Initializable {
+public class ClassSchedulingController implements Initializable, ScreenLifecycle {
 
     private static final Logger LOGGER = Logger.getLogger(ClassSchedulingController.class.getName());
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
@@ -81,9 +92,20 @@ public class ClassSchedulingController implements Initializable {
     private TrainerDAO trainerDAO = new TrainerDAO();
     private ObservableList<GymClass> classes = FXCollections.observableArrayList();
     private ObservableList<Trainer> trainers = FXCollections.observableArrayList();
-    private FilteredList<GymClass> filteredClasses;
+    // Classes passing the current search/date/status filter
+    private ObservableList<GymClass> filteredClasses = FXCollections.observableArrayList();
+    // Date and status filters are answered in memory from the index
+    private final ClassFilterIndex classIndex = new ClassFilterIndex();
+    // Search text goes to the database's ranked search; null while the field is empty
+    private TypeAheadSearch<List<GymClass>> search;
+    private List<Integer> searchMatches;
     private GymClass selectedClass = null;
 
+    // Background work in flight for this screen
+    private Task<?> classesTask;
+    private Task<?> trainersTask;
+    private Task<Boolean> conflictTask;
+
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         setupTable();
@@ -93,8 +115,24 @@ public class ClassSchedulingController implements Initializable {
         loadData();
         setupListeners();
 
-        // Auto-update statuses periodically
-        startAutoUpdate();
+        // Patch rows as classes and bookings change instead of polling
+        subscribeToChanges();
+    }
+
+    /**
+     * Back from another screen: events resume and the reload only touches changed rows
+     */
+    @Override
+    public void onShow() {
+        subscribeToChanges();
+        loadData();
+    }
+
+    @Override
+    public void onHide() {
+        if (search != null) {
+            search.cancel();
+        }
     }
 
     /**
@@ -269,14 +307,17 @@ public class ClassSchedulingController implements Initializable {
      * Setup search and filter functionality
      */
     private void setupSearchAndFilter() {
-        // Wrap observable list in filtered list
-        filteredClasses = new FilteredList<>(classes, p -> true);
-
-        // Search field listener
+        // Search as you type through the FULLTEXT-ranked query, best matches first
         if (searchField != null) {
-            searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-                filterClasses();
-            });
+            search = new TypeAheadSearch<>(
+                    searchField,
+                    (term, handle) -> classDAO.searchClasses(term, false, ClassDAO.SEARCH_LIMIT, handle),
+                    this::showSearchResults,
+                    () -> {
+                        searchMatches = null;
+                        filterClasses();
+                    }
+            );
         }
 
         // Date filter listener
@@ -300,34 +341,52 @@ public class ClassSchedulingController implements Initializable {
     }
 
     /**
-     * Apply filters to class list
+     * Keep the ranked search results, in rank order, for filterClasses to narrow
+     */
+    private void showSearchResults(List<GymClass> results) {
+        searchMatches = new ArrayList<>(results.size());
+        for (GymClass gymClass : results) {
+            searchMatches.add(gymClass.getId());
+        }
+        filterClasses();
+    }
+
+    /**
+     * Apply the date and status filters from the index, then keep only the classes the
+     * last search matched (in relevance order) if a search is active
      */
     private void filterClasses() {
-        filteredClasses.setPredicate(gymClass -> {
-            // Search filter
-            if (searchField != null && !searchField.getText().isEmpty()) {
-                String searchLower = searchField.getText().toLowerCase();
-                boolean matchesSearch = gymClass.getClassName().toLowerCase().contains(searchLower)
-                        || (gymClass.getDescription() != null && gymClass.getDescription().toLowerCase().contains(searchLower))
-                        || gymClass.getTrainerName().toLowerCase().contains(searchLower);
-
-                if (!matchesSearch) return false;
+        LocalDate date = filterDatePicker != null ? filterDatePicker.getValue() : null;
+        String status = filterStatusComboBox != null && !"All".equals(filterStatusComboBox.getValue())
+                ? filterStatusComboBox.getValue() : null;
+
+        List<GymClass> matching = classIndex.select(date, status);
+        if (searchMatches != null) {
+            Map<Integer, GymClass> byId = new HashMap<>();
+            for (GymClass gymClass : matching) {
+                byId.put(gymClass.getId(), gymClass);
             }
-
-            // Date filter
-            if (filterDatePicker != null && filterDatePicker.getValue() != null) {
-                LocalDate filterDate = filterDatePicker.getValue();
-                LocalDate classDate = gymClass.getStartTime().toLocalDateTime().toLocalDate();
-                if (!classDate.equals(filterDate)) return false;
+            matching = new ArrayList<>();
+            for (int id : searchMatches) {
+                GymClass gymClass = byId.get(id);
+                if (gymClass != null) {
+                    matching.add(gymClass);
+                }
             }
+        }
 
-            // Status filter
-            if (filterStatusComboBox != null && !"All".equals(filterStatusComboBox.getValue())) {
-                if (!gymClass.getStatus().equals(filterStatusComboBox.getValue())) return false;
-            }
+        ListReconciler.reconcile(filteredClasses, matching, GymClass::getId, ListReconciler::classRow);
+    }
 
-            return true;
-        });
+    /**
+     * Re-filter after the loaded classes changed; an active search runs again, since a
+     * changed class may now match it or no longer match it
+     */
+    private void refilter() {
+        filterClasses();
+        if (search != null && search.isActive()) {
+            search.searchNow();
+        }
     }
 
     /**
@@ -432,21 +491,26 @@ public class ClassSchedulingController implements Initializable {
                 );
 
                 Integer excludeId = selectedClass != null ? selectedClass.getId() : null;
-                boolean hasConflict = classDAO.hasTrainerConflict(
-                        trainerComboBox.getValue().getId(),
-                        Timestamp.valueOf(start),
-                        Timestamp.valueOf(end),
-                        excludeId
+                int trainerId = trainerComboBox.getValue().getId();
+
+                // Only the latest form state matters; drop any check still running
+                DaoExecutor.cancel(conflictTask);
+                conflictTask = DaoExecutor.load(
+                        () -> classDAO.hasTrainerConflict(trainerId, Timestamp.valueOf(start),
+                                Timestamp.valueOf(end), excludeId),
+                        hasConflict -> {
+                            if (hasConflict) {
+                                conflictWarningLabel.setText("⚠ Trainer has conflicting schedule!");
+                                conflictWarningLabel.setTextFill(Color.RED);
+                                conflictWarningLabel.setVisible(true);
+                            } else {
+                                conflictWarningLabel.setVisible(false);
+                            }
+                        },
+                        error -> conflictWarningLabel.setVisible(false)
                 );
-
-                if (hasConflict) {
-                    conflictWarningLabel.setText("⚠ Trainer has conflicting schedule!");
-                    conflictWarningLabel.setTextFill(Color.RED);
-                    conflictWarningLabel.setVisible(true);
-                } else {
-                    conflictWarningLabel.setVisible(false);
-                }
             } else {
+                DaoExecutor.cancel(conflictTask);
                 conflictWarningLabel.setVisible(false);
             }
         } catch (Exception e) {
@@ -491,16 +555,35 @@ public class ClassSchedulingController implements Initializable {
     }
 
     /**
-     * Load data from database
+     * Load data from database in the background
      */
     private void loadData() {
-        classes.clear();
-        classes.addAll(classDAO.getAllClasses());
-
-        trainers.clear();
-        trainers.addAll(trainerDAO.getAllTrainers());
+        // Last good list first, then the refreshed one
+        DaoExecutor.cancel(classesTask);
+        classesTask = DashboardReads.allClasses().read(
+                snapshot -> {
+                    // Re-index and re-filter only when a class actually changed
+                    if (ListReconciler.reconcile(classes, snapshot.getValue(), GymClass::getId, ListReconciler::classRow)) {
+                        classIndex.rebuild(classes);
+                        refilter();
+                    }
+                    LOGGER.info("Loaded " + classes.size() + " classes (" + snapshot.describe() + ")");
+                    if (snapshot.isStale()) {
+                        showFeedback(snapshot.describe(), "warning");
+                    }
+                },
+                error -> showFeedback("✗ Failed to load classes.", "error"),
+                classesTable
+        );
 
-        LOGGER.info("Loaded " + classes.size() + " classes and " + trainers.size() + " trainers");
+        DaoExecutor.cancel(trainersTask);
+        trainersTask = DaoExecutor.load(
+                trainerDAO::getAllTrainers,
+                result -> {
+                    ListReconciler.reconcile(trainers, result, Trainer::getId, ListReconciler::trainerRow);
+                    LOGGER.info("Loaded " + trainers.size() + " trainers");
+                }
+        );
     }
 
     /**
@@ -513,13 +596,23 @@ public class ClassSchedulingController implements Initializable {
         try {
             GymClass gymClass = createGymClassFromForm();
 
-            if (classDAO.createClass(gymClass)) {
-                showFeedback("✓ Class created successfully!", "success");
-                clearFields();
-                loadData();
-            } else {
-                showFeedback("✗ Failed to create class. Check trainer schedule.", "error");
-            }
+            addButton.setDisable(true);
+            DaoExecutor.submit(
+                    () -> classDAO.createClass(gymClass),
+                    created -> {
+                        addButton.setDisable(false);
+                        if (created) {
+                            showFeedback("✓ Class created successfully!", "success");
+                            clearFields();
+                        } else {
+                            showFeedback("✗ Failed to create class. Check trainer schedule.", "error");
+                        }
+                    },
+                    error -> {
+                        addButton.setDisable(false);
+                        showFeedback("✗ Error: " + error.getMessage(), "error");
+                    }
+            );
         } catch (Exception e) {
             showFeedback("✗ Error: " + e.getMessage(), "error");
             LOGGER.severe("Error creating class: " + e.getMessage());
@@ -534,15 +627,26 @@ public class ClassSchedulingController implements Initializable {
         if (selectedClass == null || !validateInput()) return;
 
         try {
-            updateGymClassFromForm(selectedClass);
+            GymClass gymClass = selectedClass;
+            updateGymClassFromForm(gymClass);
 
-            if (classDAO.updateClass(selectedClass)) {
-                showFeedback("✓ Class updated successfully!", "success");
-                clearFields();
-                loadData();
-            } else {
-                showFeedback("✗ Failed to update class. Check trainer schedule.", "error");
-            }
+            updateButton.setDisable(true);
+            DaoExecutor.submit(
+                    () -> classDAO.updateClass(gymClass),
+                    updated -> {
+                        updateButton.setDisable(false);
+                        if (updated) {
+                            showFeedback("✓ Class updated successfully!", "success");
+                            clearFields();
+                        } else {
+                            showFeedback("✗ Failed to update class. Check trainer schedule.", "error");
+                        }
+                    },
+                    error -> {
+                        updateButton.setDisable(false);
+                        showFeedback("✗ Error: " + error.getMessage(), "error");
+                    }
+            );
         } catch (Exception e) {
             showFeedback("✗ Error: " + e.getMessage(), "error");
             LOGGER.severe("Error updating class: " + e.getMessage());
@@ -564,13 +668,19 @@ public class ClassSchedulingController implements Initializable {
                 "This action cannot be undone.");
 
         if (confirmation.showAndWait().get() == ButtonType.OK) {
-            if (classDAO.deleteClass(selectedClass.getId())) {
-                showFeedback("✓ Class deleted successfully!", "success");
-                clearFields();
-                loadData();
-            } else {
-                showFeedback("✗ Failed to delete class.", "error");
-            }
+            int classId = selectedClass.getId();
+            DaoExecutor.submit(
+                    () -> classDAO.deleteClass(classId),
+                    deleted -> {
+                        if (deleted) {
+                            showFeedback("✓ Class deleted successfully!", "success");
+                            clearFields();
+                        } else {
+                            showFeedback("✗ Failed to delete class.", "error");
+                        }
+                    },
+                    error -> showFeedback("✗ Failed to delete class.", "error")
+            );
         }
     }
 
@@ -579,10 +689,17 @@ public class ClassSchedulingController implements Initializable {
      */
     @FXML
     private void handleRefresh() {
-        // Update class statuses
-        classDAO.updateClassStatuses();
-        loadData();
-        showFeedback("✓ Data refreshed!", "success");
+        // Update class statuses, then reload (a sweep that changed anything reloads via its event)
+        DaoExecutor.submit(
+                classDAO::updateClassStatuses,
+                updated -> {
+                    if (updated == 0) {
+                        loadData();
+                    }
+                    showFeedback("✓ Data refreshed!", "success");
+                },
+                error -> loadData()
+        );
     }
 
     /**
@@ -832,34 +949,10 @@ public class ClassSchedulingController implements Initializable {
             }
         }
 
-        // Trainer conflict check
-        if (trainerComboBox.getValue() != null && startDatePicker.getValue() != null
-                && endDatePicker.getValue() != null && !startTimeField.getText().isEmpty()
-                && !endTimeField.getText().isEmpty()) {
-            try {
-                LocalDateTime start = LocalDateTime.of(
-                        startDatePicker.getValue(),
-                        LocalTime.parse(startTimeField.getText(), TIME_FORMATTER)
-                );
-                LocalDateTime end = LocalDateTime.of(
-                        endDatePicker.getValue(),
-                        LocalTime.parse(endTimeField.getText(), TIME_FORMATTER)
-                );
-
-                Integer excludeId = selectedClass != null ? selectedClass.getId() : null;
-                boolean hasConflict = classDAO.hasTrainerConflict(
-                        trainerComboBox.getValue().getId(),
-                        Timestamp.valueOf(start),
-                        Timestamp.valueOf(end),
-                        excludeId
-                );
-
-                if (hasConflict) {
-                    errors.append("• Trainer has a conflicting class at this time\n");
-                }
-            } catch (Exception e) {
-                // Ignore validation if dates/times are invalid
-            }
+        // Trainer conflicts are flagged live by checkTrainerConflict() and
+        // rejected again by createClass/updateClass, so no DB call here
+        if (conflictWarningLabel != null && conflictWarningLabel.isVisible()) {
+            errors.append("• Trainer has a conflicting class at this time\n");
         }
 
         if (errors.length() > 0) {
@@ -913,22 +1006,51 @@ public class ClassSchedulingController implements Initializable {
     }
 
     /**
-     * Start auto-update timer for class statuses
+     * Keep the table current from domain events; ClassStatusJob handles the time-based status sweep
+     */
+    private void subscribeToChanges() {
+        DomainEventBus bus = DomainEventBus.getInstance();
+        bus.subscribeScreen(ClassChanged.class, event -> {
+            if (event.isBulk()) {
+                loadData();
+            } else {
+                refreshClass(event.getClassId());
+            }
+        });
+        bus.subscribeScreen(BookingChanged.class, event -> refreshClass(event.getClassId()));
+    }
+
+    /**
+     * Re-read one class and patch its row, adding or dropping it as needed
      */
-    private void startAutoUpdate() {
-        // Update statuses every 5 minutes
-        javafx.animation.Timeline timeline = new javafx.animation.Timeline(
-                new javafx.animation.KeyFrame(
-                        javafx.util.Duration.minutes(5),
-                        event -> {
-                            classDAO.updateClassStatuses();
-                            loadData();
-                            LOGGER.info("Auto-updated class statuses");
+    private void refreshClass(int classId) {
+        DaoExecutor.load(
+                () -> classDAO.getClassById(classId),
+                fresh -> {
+                    int index = -1;
+                    for (int i = 0; i < classes.size(); i++) {
+                        if (classes.get(i).getId() == classId) {
+                            index = i;
+                            break;
+                        }
+                    }
+
+                    if (fresh == null) {
+                        if (index == -1) return;
+                        classes.remove(index);
+                        // Positions after the removed class shift, so only a removal re-indexes everything
+                        classIndex.rebuild(classes);
+                    } else {
+                        if (index == -1) {
+                            classes.add(fresh);
+                        } else {
+                            classes.set(index, fresh);
                         }
-                )
+                        classIndex.update(fresh);
+                    }
+                    refilter();
+                }
         );
-        timeline.setCycleCount(javafx.animation.Timeline.INDEFINITE);
-        timeline.play();
     }
 
     /**
@@ -936,21 +1058,7 @@ public class ClassSchedulingController implements Initializable {
      */
     private void loadScene(String fxmlFile, String title) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlFile));
-            Scene scene = new Scene(loader.load());
-
-            // Try to load CSS
-            try {
-                scene.getStylesheets().add(
-                        getClass().getResource("/css/style.css").toExternalForm()
-                );
-            } catch (Exception e) {
-                LOGGER.warning("Could not load CSS file");
-            }
-
-            Stage stage = (Stage) classesTable.getScene().getWindow();
-            stage.setScene(scene);
-            stage.setTitle(title);
+            SceneManager.switchScene(classesTable, fxmlFile, title);
         } catch (IOException e) {
             LOGGER.severe("Error loading scene: " + e.getMessage());
             e.printStackTrace();
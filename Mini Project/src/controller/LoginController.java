@@ -1,15 +1,15 @@
 package com.gymmanagementsystem.controller;
 
+import com.gymmanagementsystem.dao.DashboardKpiService;
 import com.gymmanagementsystem.dao.UserDAO;
 import com.gymmanagementsystem.dao.MemberDAO;
 import com.gymmanagementsystem.model.User;
 import com.gymmanagementsystem.model.Member;
+import com.gymmanagementsystem.util.DaoExecutor;
 import com.gymmanagementsystem.util.SessionManager;
 import com.gymmanagementsystem.util.SceneManager;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 
@@ -59,7 +59,24 @@ public class LoginController implements Initializable {
             return;
         }
 
-        User user = userDAO.authenticate(username, password);
+        // The first login can wait on the pool coming up, so keep the query off the FX thread
+        loginButton.setDisable(true);
+        showMessage("Signing in...", true);
+        DaoExecutor.submit(
+                () -> userDAO.authenticate(username, password),
+                this::completeLogin,
+                e -> {
+                    loginButton.setDisable(false);
+                    showMessage("Login failed. Please try again.", false);
+                }
+        );
+    }
+
+    /**
+     * Open the dashboard for the authenticated user, back on the FX thread
+     */
+    private void completeLogin(User user) {
+        loginButton.setDisable(false);
         if (user != null) {
             SessionManager.getInstance().setCurrentUser(user);
             showMessage("Login successful!", true);
@@ -70,6 +87,8 @@ public class LoginController implements Initializable {
 
                 switch (user.getRole()) {
                     case "ADMIN":
+                        // Start the KPI query now so the dashboard has figures when it opens
+                        DashboardKpiService.getInstance().prefetch();
                         fxmlFile = "/fxml/admin-dashboard.fxml";
                         title = "Gym Management System - Admin Dashboard";
                         break;
@@ -103,19 +122,8 @@ public class LoginController implements Initializable {
      */
     private void loadDashboardMaximized(String fxmlFile, String title) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlFile));
-            Scene scene = new Scene(loader.load());
-
-            // Apply CSS if available
-            try {
-                scene.getStylesheets().add(getClass().getResource("/css/style.css").toExternalForm());
-            } catch (Exception e) {
-                LOGGER.log(Level.WARNING, "Could not load stylesheet", e);
-            }
-
             Stage stage = (Stage) loginButton.getScene().getWindow();
-            stage.setScene(scene);
-            stage.setTitle(title);
+            SceneManager.switchScene(loginButton, fxmlFile, title);
 
             // MAXIMIZE THE WINDOW FOR FULL SCREEN
             stage.setMaximized(true);
@@ -1,20 +1,28 @@
 package com.gymmanagementsystem.controller;
 
+import com.gymmanagementsystem.util.DaoExecutor;
+import com.gymmanagementsystem.util.DomainEvent.BookingChanged;
+import com.gymmanagementsystem.util.DomainEvent.ClassChanged;
+import com.gymmanagementsystem.util.DomainEvent.PaymentChanged;
+import com.gymmanagementsystem.util.DomainEventBus;
+import com.gymmanagementsystem.util.ListReconciler;
 import com.gymmanagementsystem.util.SessionManager;
+import com.gymmanagementsystem.util.SceneManager;
+import com.gymmanagementsystem.util.ScreenLifecycle;
+import com.gymmanagementsystem.dao.BookingIntakeQueue;
 import com.gymmanagementsystem.dao.ClassDAO;
 import com.gymmanagementsystem.dao.PaymentDAO;
 import com.gymmanagementsystem.dao.MemberDAO;
+import com.gymmanagementsystem.dao.WaitlistDAO;
 import com.gymmanagementsystem.model.GymClass;
 import com.gymmanagementsystem.model.Payment;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.net.URL;
@@ -23,7 +31,7 @@ import java.util.ResourceBundle;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class MemberDashboardController implements Initializable {
+public class MemberDashboardController implements Initializable, ScreenLifecycle {
 
     private static final Logger LOGGER = Logger.getLogger(MemberDashboardController.class.getName());
 
@@ -54,11 +62,17 @@ public class MemberDashboardController implements Initializable {
     private ClassDAO classDAO = new ClassDAO();
     private PaymentDAO paymentDAO = new PaymentDAO();
     private MemberDAO memberDAO = new MemberDAO();
+    private WaitlistDAO waitlistDAO = new WaitlistDAO();
     private ObservableList<GymClass> bookedClasses = FXCollections.observableArrayList();
     private ObservableList<GymClass> availableClasses = FXCollections.observableArrayList();
     private ObservableList<Payment> payments = FXCollections.observableArrayList();
 
-    private int currentMemberId;
+    private int currentMemberId = -1;
+
+    // Background loads in flight for this screen
+    private Task<?> bookedTask;
+    private Task<?> availableTask;
+    private Task<?> paymentsTask;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -66,27 +80,43 @@ public class MemberDashboardController implements Initializable {
             String userName = SessionManager.getInstance().getCurrentUser().getFullName();
             welcomeLabel.setText("Welcome, " + userName + " (Member)");
 
-            // Get member ID
-            int userId = SessionManager.getInstance().getCurrentUser().getId();
-            currentMemberId = memberDAO.getMemberIdByUserId(userId);
-
-            LOGGER.log(Level.INFO, "Member Dashboard initialized - User ID: {0}, Member ID: {1}",
-                    new Object[]{userId, currentMemberId});
-
-            if (currentMemberId == -1) {
-                LOGGER.severe("Member ID not found for user ID: " + userId);
-                showAlert("Member information not found. Please contact administrator.", Alert.AlertType.ERROR);
-                return;
-            }
-
             setupTables();
-            loadData();
+
+            // Resolve member ID off the FX thread, then load the tables
+            int userId = SessionManager.getInstance().getCurrentUser().getId();
+            DaoExecutor.load(
+                    () -> memberDAO.getMemberIdByUserId(userId),
+                    memberId -> {
+                        currentMemberId = memberId;
+
+                        LOGGER.log(Level.INFO, "Member Dashboard initialized - User ID: {0}, Member ID: {1}",
+                                new Object[]{userId, currentMemberId});
+
+                        if (currentMemberId == -1) {
+                            LOGGER.severe("Member ID not found for user ID: " + userId);
+                            showAlert("Member information not found. Please contact administrator.", Alert.AlertType.ERROR);
+                            return;
+                        }
+
+                        loadData();
+                        subscribeToChanges();
+                    },
+                    error -> showAlert("Error loading dashboard: " + error.getMessage(), Alert.AlertType.ERROR)
+            );
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error initializing Member Dashboard", e);
             showAlert("Error loading dashboard: " + e.getMessage(), Alert.AlertType.ERROR);
         }
     }
 
+    @Override
+    public void onShow() {
+        // Nothing to refresh until the member ID has resolved
+        if (currentMemberId == -1) return;
+        loadData();
+        subscribeToChanges();
+    }
+
     private void setupTables() {
         // Booked Classes table
         bookedClassNameColumn.setCellValueFactory(new PropertyValueFactory<>("className"));
@@ -137,37 +167,146 @@ public class MemberDashboardController implements Initializable {
             return;
         }
 
-        try {
-            LOGGER.log(Level.INFO, "Loading data for member ID: {0}", currentMemberId);
-
-            // Load booked classes for this member
-            bookedClasses.clear();
-            List<GymClass> booked = classDAO.getBookedClassesByMember(currentMemberId);
-            LOGGER.log(Level.INFO, "Loaded {0} booked classes", booked.size());
-            bookedClasses.addAll(booked);
-
-            // Load available classes (not booked by this member)
-            availableClasses.clear();
-            List<GymClass> available = classDAO.getAvailableClassesForMember(currentMemberId);
-            LOGGER.log(Level.INFO, "Loaded {0} available classes", available.size());
-            availableClasses.addAll(available);
-
-            // Load member's payments
-            // Load member's payments (FIXED: filter by current member)
-            payments.clear();
-            List<Payment> paymentList = paymentDAO.getPaymentsByMember(currentMemberId);
-            LOGGER.log(Level.INFO, "Loaded {0} payments for member ID: {1}",
-                    new Object[]{paymentList.size(), currentMemberId});
-            payments.addAll(paymentList);
-            // Refresh table views
-            bookedClassesTable.refresh();
-            availableClassesTable.refresh();
-            paymentsTable.refresh();
+        LOGGER.log(Level.INFO, "Loading data for member ID: {0}", currentMemberId);
+        int memberId = currentMemberId;
+
+        // Load booked classes for this member
+        DaoExecutor.cancel(bookedTask);
+        bookedTask = DaoExecutor.load(
+                () -> classDAO.getBookedClassesByMember(memberId),
+                booked -> {
+                    LOGGER.log(Level.INFO, "Loaded {0} booked classes", booked.size());
+                    ListReconciler.reconcile(bookedClasses, booked, GymClass::getId, ListReconciler::classRow);
+                },
+                this::handleLoadError,
+                bookedClassesTable
+        );
+
+        // Load available classes (not booked by this member)
+        DaoExecutor.cancel(availableTask);
+        availableTask = DaoExecutor.load(
+                () -> classDAO.getAvailableClassesForMember(memberId),
+                available -> {
+                    LOGGER.log(Level.INFO, "Loaded {0} available classes", available.size());
+                    ListReconciler.reconcile(availableClasses, available, GymClass::getId, ListReconciler::classRow);
+                },
+                this::handleLoadError,
+                availableClassesTable
+        );
+
+        // Load member's payments (filtered by current member)
+        DaoExecutor.cancel(paymentsTask);
+        paymentsTask = DaoExecutor.load(
+                () -> paymentDAO.getPaymentsByMember(memberId),
+                paymentList -> {
+                    LOGGER.log(Level.INFO, "Loaded {0} payments for member ID: {1}",
+                            new Object[]{paymentList.size(), memberId});
+                    ListReconciler.reconcile(payments, paymentList, Payment::getId, ListReconciler::paymentRow);
+                },
+                this::handleLoadError,
+                paymentsTable
+        );
+    }
 
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error loading data", e);
-            showAlert("Error loading data: " + e.getMessage(), Alert.AlertType.ERROR);
+    /**
+     * Patch the tables from domain events instead of reloading everything
+     */
+    private void subscribeToChanges() {
+        DomainEventBus bus = DomainEventBus.getInstance();
+        bus.subscribeScreen(BookingChanged.class, event -> {
+            if (event.getMemberId() == currentMemberId) {
+                refreshClass(event.getClassId(), event.getKind() == BookingChanged.Kind.CREATED);
+            } else {
+                refreshClass(event.getClassId(), null);
+            }
+        });
+        bus.subscribeScreen(ClassChanged.class, event -> {
+            if (event.isBulk()) {
+                loadData();
+            } else {
+                refreshClass(event.getClassId(), null);
+            }
+        });
+        bus.subscribeScreen(PaymentChanged.class, this::refreshPayment);
+    }
+
+    /**
+     * Re-read one class and put it in the right table
+     *
+     * @param bookedByMe whether this member now holds a booking, or null if unchanged
+     */
+    private void refreshClass(int classId, Boolean bookedByMe) {
+        DaoExecutor.load(
+                () -> classDAO.getClassById(classId),
+                fresh -> {
+                    int bookedIndex = indexOfClass(bookedClasses, classId);
+                    int availableIndex = indexOfClass(availableClasses, classId);
+                    boolean booked = bookedByMe != null ? bookedByMe : bookedIndex != -1;
+
+                    if (fresh != null && booked) {
+                        if (availableIndex != -1) availableClasses.remove(availableIndex);
+                        placeClass(bookedClasses, fresh, bookedIndex);
+                    } else {
+                        if (bookedIndex != -1) bookedClasses.remove(bookedIndex);
+                        // Same rule as getAvailableClassesForMember: scheduled and still to come
+                        if (fresh != null && fresh.isUpcoming()) {
+                            placeClass(availableClasses, fresh, availableIndex);
+                        } else if (availableIndex != -1) {
+                            availableClasses.remove(availableIndex);
+                        }
+                    }
+                }
+        );
+    }
+
+    /**
+     * Replace the class at index, or insert it in start-time order if it is not listed
+     */
+    private void placeClass(ObservableList<GymClass> list, GymClass gymClass, int index) {
+        if (index != -1) {
+            list.set(index, gymClass);
+            return;
+        }
+        int position = 0;
+        while (position < list.size() && gymClass.getStartTime() != null && list.get(position).getStartTime() != null
+                && !list.get(position).getStartTime().after(gymClass.getStartTime())) {
+            position++;
+        }
+        list.add(position, gymClass);
+    }
+
+    private int indexOfClass(List<GymClass> list, int classId) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).getId() == classId) return i;
         }
+        return -1;
+    }
+
+    /**
+     * Patch one of this member's payments, newest first
+     */
+    private void refreshPayment(PaymentChanged event) {
+        if (event.getMemberId() != 0 && event.getMemberId() != currentMemberId) return;
+
+        int paymentId = event.getPaymentId();
+        DaoExecutor.load(
+                () -> paymentDAO.getPaymentById(paymentId),
+                fresh -> {
+                    if (fresh == null || fresh.getMemberId() != currentMemberId) return;
+                    for (int i = 0; i < payments.size(); i++) {
+                        if (payments.get(i).getId() == paymentId) {
+                            payments.set(i, fresh);
+                            return;
+                        }
+                    }
+                    payments.add(0, fresh);
+                }
+        );
+    }
+
+    private void handleLoadError(Throwable e) {
+        LOGGER.log(Level.SEVERE, "Error loading data", e);
+        showAlert("Error loading data: " + e.getMessage(), Alert.AlertType.ERROR);
     }
 
     @FXML
@@ -178,34 +317,70 @@ public class MemberDashboardController implements Initializable {
             return;
         }
 
-        if (!selectedClass.hasAvailableSpots()) {
-            showAlert("This class is fully booked.", Alert.AlertType.WARNING);
+        if (currentMemberId == -1) {
+            showAlert("Member information not found. Please contact administrator.", Alert.AlertType.ERROR);
             return;
         }
 
-        if (currentMemberId == -1) {
-            showAlert("Member information not found. Please contact administrator.", Alert.AlertType.ERROR);
+        if (!selectedClass.hasAvailableSpots()) {
+            offerWaitlist(selectedClass);
             return;
         }
 
-        try {
-            LOGGER.log(Level.INFO, "Attempting to book class ID: {0} for member ID: {1}",
-                    new Object[]{selectedClass.getId(), currentMemberId});
+        LOGGER.log(Level.INFO, "Attempting to book class ID: {0} for member ID: {1}",
+                new Object[]{selectedClass.getId(), currentMemberId});
 
-            // Book the class
-            boolean success = classDAO.bookClass(selectedClass.getId(), currentMemberId);
+        // Book the class through the intake queue so rush-hour bookings share a transaction
+        int classId = selectedClass.getId();
+        int memberId = currentMemberId;
+        DaoExecutor.submit(
+                () -> BookingIntakeQueue.getInstance().book(classId, memberId),
+                success -> {
+                    if (success) {
+                        // The BookingChanged event moves the class from available to booked
+                        showAlert("Class booked successfully!", Alert.AlertType.INFORMATION);
+                    } else {
+                        showAlert("Failed to book class. You may have already booked this class, or it might be full.", Alert.AlertType.ERROR);
+                    }
+                },
+                e -> showAlert("An error occurred while booking the class: " + e.getMessage(), Alert.AlertType.ERROR)
+        );
+    }
 
-            if (success) {
-                showAlert("Class booked successfully!", Alert.AlertType.INFORMATION);
-                loadData(); // Refresh data to move class from available to booked
-            } else {
-                showAlert("Failed to book class. You may have already booked this class, or it might be full.", Alert.AlertType.ERROR);
-            }
+    /**
+     * Offer to put the member on a full class's waitlist. They are booked
+     * automatically when a spot frees up, so there is no need to keep refreshing.
+     */
+    private void offerWaitlist(GymClass gymClass) {
+        Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmAlert.setTitle("Class Full");
+        confirmAlert.setHeaderText("This class is fully booked");
+        confirmAlert.setContentText("Join the waitlist for " + gymClass.getClassName() + "?\n" +
+                "You will be booked automatically when a spot opens up.");
 
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error booking class", e);
-            showAlert("An error occurred while booking the class: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        confirmAlert.showAndWait().ifPresent(response -> {
+            if (response == ButtonType.OK) {
+                int classId = gymClass.getId();
+                int memberId = currentMemberId;
+                DaoExecutor.submit(
+                        () -> waitlistDAO.joinWaitlist(classId, memberId),
+                        position -> {
+                            if (position == 0) {
+                                // The BookingChanged event moves the class from available to booked
+                                showAlert("A spot opened up - you are booked into " +
+                                        gymClass.getClassName() + ".", Alert.AlertType.INFORMATION);
+                            } else if (position > 0) {
+                                showAlert("You are #" + position + " on the waitlist for " +
+                                        gymClass.getClassName() + ".", Alert.AlertType.INFORMATION);
+                            } else {
+                                showAlert("Could not join the waitlist. You may already be booked for this class.",
+                                        Alert.AlertType.ERROR);
+                            }
+                        },
+                        e -> showAlert("An error occurred while joining the waitlist: " + e.getMessage(), Alert.AlertType.ERROR)
+                );
+            }
+        });
     }
 
     @FXML
@@ -229,22 +404,23 @@ public class MemberDashboardController implements Initializable {
 
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                try {
-                    LOGGER.log(Level.INFO, "Attempting to cancel booking - Class ID: {0}, Member ID: {1}",
-                            new Object[]{selectedClass.getId(), currentMemberId});
-
-                    boolean success = classDAO.cancelBooking(selectedClass.getId(), currentMemberId);
-
-                    if (success) {
-                        showAlert("Booking cancelled successfully!", Alert.AlertType.INFORMATION);
-                        loadData(); // Refresh data to move class from booked to available
-                    } else {
-                        showAlert("Failed to cancel booking. Please try again.", Alert.AlertType.ERROR);
-                    }
-                } catch (Exception e) {
-                    LOGGER.log(Level.SEVERE, "Error cancelling booking", e);
-                    showAlert("An error occurred while cancelling the booking: " + e.getMessage(), Alert.AlertType.ERROR);
-                }
+                LOGGER.log(Level.INFO, "Attempting to cancel booking - Class ID: {0}, Member ID: {1}",
+                        new Object[]{selectedClass.getId(), currentMemberId});
+
+                int classId = selectedClass.getId();
+                int memberId = currentMemberId;
+                DaoExecutor.submit(
+                        () -> classDAO.cancelBooking(classId, memberId),
+                        success -> {
+                            if (success) {
+                                // The BookingChanged event moves the class from booked to available
+                                showAlert("Booking cancelled successfully!", Alert.AlertType.INFORMATION);
+                            } else {
+                                showAlert("Failed to cancel booking. Please try again.", Alert.AlertType.ERROR);
+                            }
+                        },
+                        e -> showAlert("An error occurred while cancelling the booking: " + e.getMessage(), Alert.AlertType.ERROR)
+                );
             }
         });
     }
@@ -271,13 +447,7 @@ public class MemberDashboardController implements Initializable {
 
     private void loadScene(String fxmlFile, String title) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlFile));
-            Scene scene = new Scene(loader.load());
-            scene.getStylesheets().add(getClass().getResource("/css/style.css").toExternalForm());
-
-            Stage stage = (Stage) welcomeLabel.getScene().getWindow();
-            stage.setScene(scene);
-            stage.setTitle(title);
+            SceneManager.switchSceneWithDefaultSize(welcomeLabel, fxmlFile, title);
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Error loading scene", e);
         }
@@ -299,16 +469,7 @@ public class MemberDashboardController implements Initializable {
         try {
             LOGGER.info("Navigating to Payment Booking page");
 
-            // Close current stage
-            Stage stage = (Stage) welcomeLabel.getScene().getWindow();
-
-            // Load payment booking scene
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/payment-booking.fxml"));
-            Scene scene = new Scene(loader.load());
-            scene.getStylesheets().add(getClass().getResource("/css/style.css").toExternalForm());
-
-            stage.setScene(scene);
-            stage.setTitle("Class Booking & Payment");
+            SceneManager.switchScene(welcomeLabel, "/fxml/payment-booking.fxml", "Class Booking & Payment");
 
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error opening payment booking page", e);
@@ -1,19 +1,23 @@
 package com.gymmanagementsystem.controller;
 
+import com.gymmanagementsystem.dao.DashboardReads;
 import com.gymmanagementsystem.dao.MemberDAO;
 import com.gymmanagementsystem.dao.UserDAO;
 import com.gymmanagementsystem.model.Member;
 import com.gymmanagementsystem.model.User;
+import com.gymmanagementsystem.util.DaoExecutor;
+import com.gymmanagementsystem.util.ListReconciler;
+import com.gymmanagementsystem.util.TypeAheadSearch;
+import com.gymmanagementsystem.util.SceneManager;
+import com.gymmanagementsystem.util.ScreenLifecycle;
 import javafx.animation.PauseTransition;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.stage.Stage;
 import javafx.util.Duration;
 
 import java.io.IOException;
@@ -29,7 +33,7 @@ import java.util.regex.Pattern;
 /**
  * Enhanced Member Management Controller with search, filtering, and better UX
  */
-public class MemberManagementController implements Initializable {
+public class MemberManagementController implements Initializable, ScreenLifecycle {
 
     private static final Logger LOGGER = Logger.getLogger(MemberManagementController.class.getName());
 
@@ -76,8 +80,9 @@ public class MemberManagementController implements Initializable {
     private ObservableList<Member> allMembers = FXCollections.observableArrayList();
     private Member selectedMember = null;
 
-    // For search debouncing
-    private PauseTransition searchDelay;
+    // Type-ahead search (debounced, cancellable, latest result only)
+    private TypeAheadSearch<List<Member>> search;
+    private Task<?> membersTask;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -111,6 +116,26 @@ public class MemberManagementController implements Initializable {
         updateExpiredMemberships();
     }
 
+    /**
+     * Back from another screen: repeat the search the user left, or reload the list
+     */
+    @Override
+    public void onShow() {
+        if (search != null && search.isActive()) {
+            search.searchNow();
+        } else {
+            loadMembers();
+        }
+        updateStatistics();
+    }
+
+    @Override
+    public void onHide() {
+        if (search != null) {
+            search.cancel();
+        }
+    }
+
     private void setupTable() {
         // Name column with null safety
         nameColumn.setCellValueFactory(cellData -> {
@@ -220,29 +245,40 @@ public class MemberManagementController implements Initializable {
     }
 
     private void setupSearchAndFilter() {
-        // Setup search with debouncing (wait 500ms after typing stops)
+        // Search as you type: debounced, runs in the background, latest result wins
         if (searchField != null) {
-            searchDelay = new PauseTransition(Duration.millis(500));
-            searchDelay.setOnFinished(e -> performSearch());
-
-            searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-                searchDelay.playFromStart();
-            });
+            search = new TypeAheadSearch<>(
+                    searchField,
+                    memberDAO::searchMembers,
+                    this::showSearchResults,
+                    () -> {
+                        members.setAll(allMembers);
+                        applyFilter();
+                    }
+            );
         }
     }
 
     private void loadMembers() {
-        try {
-            allMembers.clear();
-            allMembers.addAll(memberDAO.getAllMembers());
-            members.clear();
-            members.addAll(allMembers);
-            updateStatusLabel("Loaded " + members.size() + " members", "success");
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error loading members", e);
-            updateStatusLabel("Error loading members", "error");
-            showAlert("Failed to load members: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        // Last good list first, then the refreshed one
+        DaoExecutor.cancel(membersTask);
+        membersTask = DashboardReads.allMembers().read(
+                snapshot -> {
+                    allMembers.setAll(snapshot.getValue());
+                    ListReconciler.reconcile(members, allMembers, Member::getId, ListReconciler::memberRow);
+                    if (snapshot.isStale()) {
+                        updateStatusLabel(snapshot.describe(), snapshot.isRefreshFailed() ? "error" : "info");
+                    } else {
+                        updateStatusLabel("Loaded " + members.size() + " members", "success");
+                    }
+                },
+                error -> {
+                    LOGGER.log(Level.SEVERE, "Error loading members", error);
+                    updateStatusLabel("Error loading members", "error");
+                    showAlert("Failed to load members: " + error.getMessage(), Alert.AlertType.ERROR);
+                },
+                membersTable
+        );
     }
 
     @FXML
@@ -444,25 +480,9 @@ public class MemberManagementController implements Initializable {
     }
 
     // NEW: Search functionality
-    private void performSearch() {
-        if (searchField == null) return;
-
-        String searchTerm = searchField.getText().trim();
-
-        if (searchTerm.isEmpty()) {
-            members.setAll(allMembers);
-            applyFilter();
-            return;
-        }
-
-        try {
-            List<Member> searchResults = memberDAO.searchMembers(searchTerm);
-            members.setAll(searchResults);
-            updateStatusLabel("Found " + searchResults.size() + " member(s)", "info");
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error searching members", e);
-            updateStatusLabel("Search error", "error");
-        }
+    private void showSearchResults(List<Member> searchResults) {
+        members.setAll(searchResults);
+        updateStatusLabel("Found " + searchResults.size() + " member(s)", "info");
     }
 
     // NEW: Filter functionality
@@ -472,8 +492,8 @@ public class MemberManagementController implements Initializable {
         String selectedStatus = filterStatusComboBox.getValue();
 
         if ("All".equals(selectedStatus)) {
-            if (searchField != null && !searchField.getText().trim().isEmpty()) {
-                performSearch();
+            if (search != null && search.isActive()) {
+                search.searchNow();
             } else {
                 members.setAll(allMembers);
             }
@@ -670,19 +690,7 @@ public class MemberManagementController implements Initializable {
 
     private void loadScene(String fxmlFile, String title) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlFile));
-            Scene scene = new Scene(loader.load());
-
-            // Apply CSS if available
-            try {
-                scene.getStylesheets().add(getClass().getResource("/css/style.css").toExternalForm());
-            } catch (Exception e) {
-                LOGGER.log(Level.WARNING, "Could not load stylesheet", e);
-            }
-
-            Stage stage = (Stage) membersTable.getScene().getWindow();
-            stage.setScene(scene);
-            stage.setTitle(title);
+            SceneManager.switchScene(membersTable, fxmlFile, title);
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Error loading scene: " + fxmlFile, e);
             showAlert("Failed to load screen: " + e.getMessage(), Alert.AlertType.ERROR);
@@ -2,8 +2,15 @@ package com.gymmanagementsystem.controller;
 
 import com.gymmanagementsystem.dao.*;
 import com.gymmanagementsystem.model.*;
+import com.gymmanagementsystem.util.DaoExecutor;
+import com.gymmanagementsystem.util.DomainEvent.BookingChanged;
+import com.gymmanagementsystem.util.DomainEvent.ClassChanged;
+import com.gymmanagementsystem.util.DomainEvent.PaymentChanged;
+import com.gymmanagementsystem.util.DomainEventBus;
+import com.gymmanagementsystem.util.ListReconciler;
 import com.gymmanagementsystem.util.SceneManager;
 import com.gymmanagementsystem.util.SessionManager;
+import com.gymmanagementsystem.util.ScreenLifecycle;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.WriterException;
 import com.google.zxing.client.j2se.MatrixToImageWriter;
@@ -16,7 +23,9 @@ import javafx.embed.swing.SwingFXUtils;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
 import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
@@ -29,12 +38,13 @@ import java.net.URL;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class PaymentBookingController implements Initializable {
+public class PaymentBookingController implements Initializable, ScreenLifecycle {
 
     private static final Logger LOGGER = Logger.getLogger(PaymentBookingController.class.getName());
 
@@ -85,15 +95,20 @@ public class PaymentBookingController implements Initializable {
     // Payment History Tab Components
     @FXML private VBox paymentHistoryContainer;
 
-    // DAOs
-    private MemberDAO memberDAO;
-    private ClassDAO classDAO;
-    private PaymentDAO paymentDAO;
+    // Data access (member and class lists go through DashboardReads; the DAOs re-read single rows for events)
+    private BookingCheckoutService checkoutService;
+    private final ClassDAO classDAO = new ClassDAO();
+    private final PaymentDAO paymentDAO = new PaymentDAO();
 
     // Data
     private ObservableList<Member> members;
     private ObservableList<GymClass> classes;
-    private ObservableList<Payment> payments;
+    private ObservableList<Payment> payments = FXCollections.observableArrayList();
+
+    // Class payments are paged newest first; the next page loads as the table is scrolled
+    private Task<?> paymentsTask;
+    private PaymentDAO.PageCursor nextCursor;
+    private boolean hasMorePages;
 
     private Member selectedMember;
     private GymClass selectedClass;
@@ -112,9 +127,7 @@ public class PaymentBookingController implements Initializable {
             LOGGER.info("Initializing PaymentBookingController");
 
             // Initialize DAOs
-            memberDAO = new MemberDAO();
-            classDAO = new ClassDAO();
-            paymentDAO = new PaymentDAO();
+            checkoutService = new BookingCheckoutService();
 
             // Initialize Toggle Group for payment methods
             paymentMethodGroup = new ToggleGroup();
@@ -141,6 +154,7 @@ public class PaymentBookingController implements Initializable {
 
             // Add listeners
             setupListeners();
+            subscribeToChanges();
 
             // Show Book Class tab by default
             showBookClassTab();
@@ -152,10 +166,23 @@ public class PaymentBookingController implements Initializable {
         }
     }
 
+    @Override
+    public void onShow() {
+        loadClasses();
+        loadPayments();
+        subscribeToChanges();
+    }
+
     private void loadMembers() {
+        LOGGER.info("Loading members");
+        DashboardReads.allMembers().read(
+                snapshot -> applyMembers(snapshot.getValue()),
+                e -> showAlert("Error", "Failed to load members: " + e.getMessage(), Alert.AlertType.ERROR)
+        );
+    }
+
+    private void applyMembers(List<Member> memberList) {
         try {
-            LOGGER.info("Loading members");
-            List<Member> memberList = memberDAO.getAllMembers();
             members = FXCollections.observableArrayList(memberList);
             memberComboBox.setItems(members);
 
@@ -198,9 +225,15 @@ public class PaymentBookingController implements Initializable {
     }
 
     private void loadClasses() {
+        LOGGER.info("Loading classes");
+        DashboardReads.upcomingClasses().read(
+                snapshot -> applyClasses(snapshot.getValue()),
+                e -> showAlert("Error", "Failed to load classes: " + e.getMessage(), Alert.AlertType.ERROR)
+        );
+    }
+
+    private void applyClasses(List<GymClass> classList) {
         try {
-            LOGGER.info("Loading classes");
-            List<GymClass> classList = classDAO.getUpcomingClasses();
             classes = FXCollections.observableArrayList(classList);
             classComboBox.setItems(classes);
 
@@ -237,13 +270,46 @@ public class PaymentBookingController implements Initializable {
     }
 
     private void loadPayments() {
+        LOGGER.info("Loading payments");
+        DaoExecutor.cancel(paymentsTask);
+        paymentsTask = DaoExecutor.load(
+                () -> paymentDAO.getPaymentsByTypePage("CLASS", null, PaymentDAO.DEFAULT_PAGE_SIZE),
+                page -> {
+                    applyPayments(page.getPayments());
+                    nextCursor = page.getNextCursor();
+                    hasMorePages = page.hasMore();
+                },
+                e -> showAlert("Error", "Failed to load payments: " + e.getMessage(), Alert.AlertType.ERROR),
+                paymentManagementTable
+        );
+    }
+
+    /**
+     * Append the page after the current cursor, if there is one and no load is running
+     */
+    private void loadNextPaymentPage() {
+        if (!hasMorePages || (paymentsTask != null && !paymentsTask.isDone())) {
+            return;
+        }
+
+        PaymentDAO.PageCursor cursor = nextCursor;
+        paymentsTask = DaoExecutor.load(
+                () -> paymentDAO.getPaymentsByTypePage("CLASS", cursor, PaymentDAO.DEFAULT_PAGE_SIZE),
+                page -> {
+                    payments.addAll(page.getPayments());
+                    nextCursor = page.getNextCursor();
+                    hasMorePages = page.hasMore();
+                    displayPaymentHistory();
+                    LOGGER.info("Loaded " + payments.size() + " payments");
+                }
+        );
+    }
+
+    private void applyPayments(List<Payment> paymentList) {
         try {
-            LOGGER.info("Loading payments");
-            List<Payment> paymentList = paymentDAO.getAllPayments();
-            paymentList.removeIf(p -> !"CLASS".equals(p.getPaymentType()));
-            payments = FXCollections.observableArrayList(paymentList);
-            paymentManagementTable.setItems(payments);
-            displayPaymentHistory();
+            if (ListReconciler.reconcile(payments, paymentList, Payment::getId, ListReconciler::paymentRow)) {
+                displayPaymentHistory();
+            }
             LOGGER.info("Loaded " + paymentList.size() + " payments");
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error loading payments", e);
@@ -251,6 +317,74 @@ public class PaymentBookingController implements Initializable {
         }
     }
 
+    /**
+     * Patch the class list and payments from domain events instead of reloading them
+     */
+    private void subscribeToChanges() {
+        DomainEventBus bus = DomainEventBus.getInstance();
+        bus.subscribeScreen(BookingChanged.class, event -> refreshClass(event.getClassId()));
+        bus.subscribeScreen(ClassChanged.class, event -> {
+            if (event.isBulk()) {
+                loadClasses();
+            } else {
+                refreshClass(event.getClassId());
+            }
+        });
+        bus.subscribeScreen(PaymentChanged.class, event -> refreshPayment(event.getPaymentId()));
+    }
+
+    private void refreshClass(int classId) {
+        DaoExecutor.load(
+                () -> classDAO.getClassById(classId),
+                fresh -> {
+                    if (classes == null) return;
+                    int index = -1;
+                    for (int i = 0; i < classes.size(); i++) {
+                        if (classes.get(i).getId() == classId) {
+                            index = i;
+                            break;
+                        }
+                    }
+
+                    boolean bookable = fresh != null && fresh.isUpcoming();
+                    if (index != -1 && bookable) {
+                        classes.set(index, fresh);
+                    } else if (index != -1) {
+                        classes.remove(index);
+                    } else if (bookable) {
+                        // Keep the start-time order of the upcoming list
+                        int position = 0;
+                        while (position < classes.size()
+                                && !classes.get(position).getStartTime().after(fresh.getStartTime())) {
+                            position++;
+                        }
+                        classes.add(position, fresh);
+                    }
+                }
+        );
+    }
+
+    private void refreshPayment(int paymentId) {
+        DaoExecutor.load(
+                () -> paymentDAO.getPaymentById(paymentId),
+                fresh -> {
+                    if (fresh == null || !"CLASS".equals(fresh.getPaymentType())) return;
+                    boolean listed = false;
+                    for (int i = 0; i < payments.size(); i++) {
+                        if (payments.get(i).getId() == paymentId) {
+                            payments.set(i, fresh);
+                            listed = true;
+                            break;
+                        }
+                    }
+                    if (!listed) {
+                        payments.add(0, fresh);
+                    }
+                    displayPaymentHistory();
+                }
+        );
+    }
+
     private void setupPaymentManagementTable() {
         pmIdColumn.setCellValueFactory(data ->
                 new SimpleStringProperty(String.valueOf(data.getValue().getId())));
@@ -273,6 +407,21 @@ public class PaymentBookingController implements Initializable {
             return new SimpleStringProperty(
                     data.getValue().getPaymentDate().toLocalDateTime().format(formatter));
         });
+        paymentManagementTable.setItems(payments);
+
+        // The vertical scroll bar only exists once the skin is created
+        paymentManagementTable.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            for (Node node : paymentManagementTable.lookupAll(".scroll-bar")) {
+                if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                    ScrollBar scrollBar = (ScrollBar) node;
+                    scrollBar.valueProperty().addListener((o, oldVal, newVal) -> {
+                        if (newVal.doubleValue() >= scrollBar.getMax() * 0.95) {
+                            loadNextPaymentPage();
+                        }
+                    });
+                }
+            }
+        });
     }
 
     private void setupListeners() {
@@ -428,25 +577,13 @@ public class PaymentBookingController implements Initializable {
 
             String paymentMethod = ((ToggleButton) paymentMethodGroup.getSelectedToggle()).getText();
 
-            if (classDAO.isClassBookedByMember(selectedClass.getId(), selectedMember.getId())) {
-                showAlert("Error", "You have already booked this class!", Alert.AlertType.WARNING);
-                return;
-            }
-
             if (!selectedClass.hasAvailableSpots()) {
                 showAlert("Error", "This class is full!", Alert.AlertType.WARNING);
                 return;
             }
 
-            Payment payment = new Payment();
-            payment.setMemberId(selectedMember.getId());
-            payment.setAmount(BigDecimal.valueOf(CLASS_FEE));
-            payment.setDiscount(BigDecimal.ZERO);
-            payment.setFinalAmount(BigDecimal.valueOf(CLASS_FEE));
-            payment.setPaymentMethod(paymentMethod.toUpperCase());
-            payment.setPaymentType("CLASS");
-            payment.setStatus("COMPLETED");
-            payment.setDescription("Class Booking: " + selectedClass.getClassName());
+            Payment payment = new Payment(selectedMember.getId(), BigDecimal.valueOf(CLASS_FEE),
+                    paymentMethod.toUpperCase(), "CLASS", "Class Booking: " + selectedClass.getClassName());
             payment.setPaymentDate(Timestamp.valueOf(LocalDateTime.now()));
 
             User currentUser = SessionManager.getInstance().getCurrentUser();
@@ -454,38 +591,27 @@ public class PaymentBookingController implements Initializable {
                 payment.setProcessedBy(currentUser.getId());
             }
 
-            boolean paymentSuccess = paymentDAO.createPayment(payment);
-
-            if (paymentSuccess) {
-                boolean bookingSuccess = classDAO.bookClass(selectedClass.getId(), selectedMember.getId());
-
-                if (bookingSuccess) {
-                    String memberName = selectedMember.getUser() != null ?
-                            selectedMember.getUser().getFullName() : "Unknown";
-
-                    LOGGER.info("Booking successful for member: " + selectedMember.getId());
-
-                    showAlert("Success", "Booking Confirmed Successfully!\n\n" +
-                                    "Member: " + memberName + "\n" +
-                                    "Class: " + selectedClass.getClassName() + "\n" +
-                                    "Date: " + selectedClass.getFormattedStartTime() + "\n" +
-                                    "Amount: ₹" + CLASS_FEE + "\n" +
-                                    "Payment Method: " + paymentMethod + "\n" +
-                                    "Transaction ID: " + payment.getTransactionId(),
-                            Alert.AlertType.INFORMATION);
-
-                    resetBookingForm();
-                    loadClasses();
-                    loadPayments();
-                } else {
-                    LOGGER.warning("Booking failed after payment success");
-                    showAlert("Error", "Payment successful but booking failed. Please contact administrator.",
-                            Alert.AlertType.ERROR);
-                }
-            } else {
-                LOGGER.warning("Payment processing failed");
-                showAlert("Error", "Payment processing failed", Alert.AlertType.ERROR);
-            }
+            Member member = selectedMember;
+            GymClass gymClass = selectedClass;
+
+            proceedButton.setDisable(true);
+            DaoExecutor.submit(
+                    () -> checkoutService.checkout(gymClass.getId(), payment),
+                    receipt -> {
+                        checkIfReadyToProceed();
+                        if (receipt.isBooked()) {
+                            showReceipt(receipt, member, gymClass, paymentMethod);
+                            // BookingChanged / PaymentChanged patch the class list and payment history
+                            resetBookingForm();
+                        } else {
+                            showCheckoutFailure(receipt);
+                        }
+                    },
+                    e -> {
+                        checkIfReadyToProceed();
+                        showAlert("Error", "An error occurred: " + e.getMessage(), Alert.AlertType.ERROR);
+                    }
+            );
 
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error processing payment", e);
@@ -493,6 +619,46 @@ public class PaymentBookingController implements Initializable {
         }
     }
 
+    private void showReceipt(BookingCheckoutService.CheckoutReceipt receipt, Member member,
+                             GymClass gymClass, String paymentMethod) {
+        String memberName = member.getUser() != null ? member.getUser().getFullName() : "Unknown";
+        Payment payment = receipt.getPayment();
+
+        LOGGER.info("Booking successful for member: " + member.getId());
+
+        showAlert("Success", "Booking Confirmed Successfully!\n\n" +
+                        "Member: " + memberName + "\n" +
+                        "Class: " + gymClass.getClassName() + "\n" +
+                        "Date: " + gymClass.getFormattedStartTime() + "\n" +
+                        "Amount: ₹" + payment.getFinalAmount() + "\n" +
+                        "Payment Method: " + paymentMethod + "\n" +
+                        "Transaction ID: " + payment.getTransactionId() + "\n" +
+                        "Invoice: " + payment.getInvoiceNumber(),
+                Alert.AlertType.INFORMATION);
+    }
+
+    private void showCheckoutFailure(BookingCheckoutService.CheckoutReceipt receipt) {
+        if (receipt.getReservation() == null) {
+            LOGGER.warning("Checkout failed - nothing was charged");
+            showAlert("Error", "Payment processing failed. You have not been charged.", Alert.AlertType.ERROR);
+            return;
+        }
+
+        switch (receipt.getReservation()) {
+            case ALREADY_BOOKED:
+                showAlert("Error", "You have already booked this class!", Alert.AlertType.WARNING);
+                break;
+            case FULL:
+                showAlert("Error", "This class is full!", Alert.AlertType.WARNING);
+                loadClasses();
+                break;
+            default:
+                showAlert("Error", "This class is no longer available for booking.", Alert.AlertType.WARNING);
+                loadClasses();
+                break;
+        }
+    }
+
     private void resetBookingForm() {
         selectedMember = null;
         selectedClass = null;
@@ -1,24 +1,36 @@
 package com.gymmanagementsystem.controller;
+import com.gymmanagementsystem.util.PaymentExporter;
 import com.gymmanagementsystem.util.PaymentReportGenerator;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import com.gymmanagementsystem.dao.DashboardReads;
 import com.gymmanagementsystem.dao.PaymentDAO;
 import com.gymmanagementsystem.dao.MemberDAO;
 import com.gymmanagementsystem.model.Payment;
 import com.gymmanagementsystem.model.Member;
+import com.gymmanagementsystem.util.DaoExecutor;
+import com.gymmanagementsystem.util.DomainEvent.PaymentChanged;
+import com.gymmanagementsystem.util.DomainEventBus;
+import com.gymmanagementsystem.util.ListReconciler;
 import com.gymmanagementsystem.util.SessionManager;
+import com.gymmanagementsystem.util.TypeAheadSearch;
+import com.gymmanagementsystem.util.SceneManager;
+import com.gymmanagementsystem.util.ScreenLifecycle;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
 import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.VBox;
 
+import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.net.URL;
@@ -26,10 +38,11 @@ import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class PaymentManagementController implements Initializable {
+public class PaymentManagementController implements Initializable, ScreenLifecycle {
 
     private static final Logger LOGGER = Logger.getLogger(PaymentManagementController.class.getName());
 
@@ -74,6 +87,28 @@ public class PaymentManagementController implements Initializable {
     private ObservableList<Member> members = FXCollections.observableArrayList();
     private Payment selectedPayment = null;
 
+    // Background work in flight for this screen
+    private Task<?> paymentsTask;
+    private Task<?> membersTask;
+    private Task<?> statisticsTask;
+    private Task<Long> exportTask;
+    private TypeAheadSearch<PaymentDAO.PaymentPage> paymentSearch;
+
+    // Keyset paging state for the payments table
+    private PageQuery pageQuery;
+    private PaymentDAO.PageCursor nextCursor;
+    private boolean hasMorePages;
+    // True while the table shows the unfiltered list, where new payments belong at the top
+    private boolean showingAllPayments;
+
+    /**
+     * Fetches the page after a cursor (null for the first page) for the active filter
+     */
+    @FunctionalInterface
+    private interface PageQuery {
+        PaymentDAO.PaymentPage fetch(PaymentDAO.PageCursor after);
+    }
+
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         System.out.println("🔄 Initializing Payment Management...");
@@ -83,10 +118,32 @@ public class PaymentManagementController implements Initializable {
         loadData();
         loadStatistics();
         setupListeners();
+        DomainEventBus.getInstance().subscribeScreen(PaymentChanged.class, this::refreshPayment);
 
         System.out.println("✅ Payment Management initialized successfully");
     }
 
+    /**
+     * Back from another screen: re-run whatever query the table was showing
+     */
+    @Override
+    public void onShow() {
+        DomainEventBus.getInstance().subscribeScreen(PaymentChanged.class, this::refreshPayment);
+        if (showingAllPayments || pageQuery == null) {
+            loadData();
+        } else {
+            loadPayments(pageQuery);
+        }
+        loadStatistics();
+    }
+
+    @Override
+    public void onHide() {
+        if (paymentSearch != null) {
+            paymentSearch.cancel();
+        }
+    }
+
     private void setupTable() {
         memberColumn.setCellValueFactory(cellData -> {
             if (cellData.getValue().getMember() != null &&
@@ -135,6 +192,25 @@ public class PaymentManagementController implements Initializable {
         });
 
         paymentsTable.setItems(payments);
+
+        // The vertical scroll bar only exists once the skin is created
+        paymentsTable.skinProperty().addListener((obs, oldSkin, newSkin) -> setupScrollPaging());
+    }
+
+    /**
+     * Load the next page when the user scrolls near the bottom of the table
+     */
+    private void setupScrollPaging() {
+        for (javafx.scene.Node node : paymentsTable.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                ScrollBar scrollBar = (ScrollBar) node;
+                scrollBar.valueProperty().addListener((obs, oldVal, newVal) -> {
+                    if (newVal.doubleValue() >= scrollBar.getMax() * 0.95) {
+                        loadNextPage();
+                    }
+                });
+            }
+        }
     }
 
     private void setupComboBoxes() {
@@ -201,8 +277,13 @@ public class PaymentManagementController implements Initializable {
         amountField.textProperty().addListener((obs, oldVal, newVal) -> calculateFinalAmount());
         discountField.textProperty().addListener((obs, oldVal, newVal) -> calculateFinalAmount());
 
-        // Search field listener
-        searchField.textProperty().addListener((obs, oldVal, newVal) -> handleSearch());
+        // Search as you type: debounced, runs in the background, latest result wins
+        paymentSearch = new TypeAheadSearch<>(
+                searchField,
+                (term, handle) -> paymentDAO.searchPaymentsPage(term, null, PaymentDAO.DEFAULT_PAGE_SIZE, handle),
+                this::showSearchPage,
+                this::loadData
+        );
     }
 
     private void calculateFinalAmount() {
@@ -220,22 +301,103 @@ public class PaymentManagementController implements Initializable {
     private void loadData() {
         System.out.println("🔄 Loading payments and members...");
 
-        payments.clear();
-        payments.addAll(paymentDAO.getAllPayments());
+        loadPayments(after -> paymentDAO.getPaymentsPage(after, PaymentDAO.DEFAULT_PAGE_SIZE));
+        showingAllPayments = true;
+
+        DaoExecutor.cancel(membersTask);
+        membersTask = DashboardReads.allMembers().read(
+                snapshot -> {
+                    ListReconciler.reconcile(members, snapshot.getValue(), Member::getId, ListReconciler::memberRow);
+                    System.out.println("✅ Loaded " + members.size() + " members (" + snapshot.describe() + ")");
+                },
+                null
+        );
+    }
+
+    /**
+     * Replace the table contents with the first page of a payment query.
+     * A newer query (search, date filter, reload) cancels the one still running.
+     */
+    private void loadPayments(PageQuery query) {
+        if (paymentSearch != null) {
+            paymentSearch.cancel();
+        }
+        pageQuery = query;
+        nextCursor = null;
+        hasMorePages = false;
+        showingAllPayments = false;
+
+        DaoExecutor.cancel(paymentsTask);
+        paymentsTask = DaoExecutor.load(
+                () -> query.fetch(null),
+                this::showFirstPage,
+                error -> showAlert("Error", "Failed to load payments.", Alert.AlertType.ERROR),
+                paymentsTable
+        );
+    }
+
+    /**
+     * Install the first page delivered by the type-ahead search and page on from it
+     */
+    private void showSearchPage(PaymentDAO.PaymentPage page) {
+        String searchTerm = searchField.getText().trim();
+        DaoExecutor.cancel(paymentsTask);
+        pageQuery = after -> paymentDAO.searchPaymentsPage(searchTerm, after, PaymentDAO.DEFAULT_PAGE_SIZE);
+        showingAllPayments = false;
+        showFirstPage(page);
+    }
+
+    private void showFirstPage(PaymentDAO.PaymentPage page) {
+        ListReconciler.reconcile(payments, page.getPayments(), Payment::getId, ListReconciler::paymentRow);
+        nextCursor = page.getNextCursor();
+        hasMorePages = page.hasMore();
         System.out.println("✅ Loaded " + payments.size() + " payments");
+    }
 
-        members.clear();
-        members.addAll(memberDAO.getAllMembers());
-        System.out.println("✅ Loaded " + members.size() + " members");
+    /**
+     * Append the page after the current cursor, if there is one and no load is running
+     */
+    private void loadNextPage() {
+        if (!hasMorePages || pageQuery == null || (paymentsTask != null && !paymentsTask.isDone())) {
+            return;
+        }
+
+        PageQuery query = pageQuery;
+        PaymentDAO.PageCursor cursor = nextCursor;
+        paymentsTask = DaoExecutor.load(
+                () -> query.fetch(cursor),
+                page -> {
+                    // Ignore a page that belongs to a filter the user has since replaced
+                    if (query != pageQuery) return;
+                    payments.addAll(page.getPayments());
+                    nextCursor = page.getNextCursor();
+                    hasMorePages = page.hasMore();
+                    System.out.println("✅ Loaded " + payments.size() + " payments");
+                }
+        );
     }
 
     private void loadStatistics() {
         System.out.println("🔄 Loading payment statistics...");
 
-        try {
-            // Try to get statistics from DAO
-            PaymentDAO.PaymentStats stats = paymentDAO.getPaymentStatistics();
+        DaoExecutor.cancel(statisticsTask);
+        statisticsTask = DaoExecutor.load(
+                paymentDAO::getPaymentStatistics,
+                this::applyStatistics,
+                error -> {
+                    System.err.println("❌ Error loading statistics: " + error.getMessage());
+                    try {
+                        calculateStatisticsManually();
+                    } catch (Exception e2) {
+                        LOGGER.log(Level.SEVERE, "Error in manual calculation", e2);
+                        setDefaultStatistics();
+                    }
+                }
+        );
+    }
 
+    private void applyStatistics(PaymentDAO.PaymentStats stats) {
+        try {
             if (stats != null) {
                 // Use the statistics from DAO
                 String totalRevenue = stats.completedRevenue != null ?
@@ -354,22 +516,32 @@ public class PaymentManagementController implements Initializable {
                 payment.setStatus(statusComboBox.getValue());
                 payment.setProcessedBy(SessionManager.getInstance().getCurrentUser().getId());
 
-                if (paymentDAO.createPayment(payment)) {
-                    System.out.println("✅ Payment created successfully");
-
-                    showAlert("Payment Recorded!",
-                            "Payment recorded successfully!\n" +
-                                    "Transaction ID: " + payment.getTransactionId() + "\n" +
-                                    "Invoice Number: " + payment.getInvoiceNumber(),
-                            Alert.AlertType.INFORMATION);
-
-                    clearFields();
-                    loadData();
-                    loadStatistics(); // This will now work with fallback
-                } else {
-                    System.err.println("❌ Failed to create payment");
-                    showAlert("Error", "Failed to record payment.", Alert.AlertType.ERROR);
-                }
+                addButton.setDisable(true);
+                DaoExecutor.submit(
+                        () -> paymentDAO.createPayment(payment),
+                        created -> {
+                            addButton.setDisable(false);
+                            if (created) {
+                                System.out.println("✅ Payment created successfully");
+
+                                showAlert("Payment Recorded!",
+                                        "Payment recorded successfully!\n" +
+                                                "Transaction ID: " + payment.getTransactionId() + "\n" +
+                                                "Invoice Number: " + payment.getInvoiceNumber(),
+                                        Alert.AlertType.INFORMATION);
+
+                                // The PaymentChanged event adds the row and refreshes the statistics
+                                clearFields();
+                            } else {
+                                System.err.println("❌ Failed to create payment");
+                                showAlert("Error", "Failed to record payment.", Alert.AlertType.ERROR);
+                            }
+                        },
+                        error -> {
+                            addButton.setDisable(false);
+                            showAlert("Error", "Failed to record payment.", Alert.AlertType.ERROR);
+                        }
+                );
             } catch (NumberFormatException e) {
                 LOGGER.log(Level.WARNING, "Invalid number format", e);
                 showAlert("Invalid Input", "Please enter valid amount and discount values.", Alert.AlertType.ERROR);
@@ -381,14 +553,9 @@ public class PaymentManagementController implements Initializable {
     private void handleUpdateStatus() {
         if (selectedPayment != null) {
             String newStatus = statusComboBox.getValue();
-            if (paymentDAO.updatePaymentStatus(selectedPayment.getId(), newStatus)) {
-                showAlert("Success", "Payment status updated successfully!", Alert.AlertType.INFORMATION);
-                clearFields();
-                loadData();
-                loadStatistics();
-            } else {
-                showAlert("Error", "Failed to update payment status.", Alert.AlertType.ERROR);
-            }
+            int paymentId = selectedPayment.getId();
+            runPaymentUpdate(() -> paymentDAO.updatePaymentStatus(paymentId, newStatus),
+                    "Payment status updated successfully!", "Failed to update payment status.");
         }
     }
 
@@ -446,16 +613,10 @@ public class PaymentManagementController implements Initializable {
                         return;
                     }
 
-                    if (paymentDAO.processRefund(selectedPayment.getId(), refundAmount, reason)) {
-                        showAlert("Refund Processed",
-                                "Refund of ₹" + refundAmount + " processed successfully!",
-                                Alert.AlertType.INFORMATION);
-                        clearFields();
-                        loadData();
-                        loadStatistics();
-                    } else {
-                        showAlert("Error", "Failed to process refund.", Alert.AlertType.ERROR);
-                    }
+                    int paymentId = selectedPayment.getId();
+                    runPaymentUpdate(() -> paymentDAO.processRefund(paymentId, refundAmount, reason),
+                            "Refund of ₹" + refundAmount + " processed successfully!",
+                            "Failed to process refund.");
                 } catch (NumberFormatException e) {
                     showAlert("Invalid Amount", "Please enter a valid refund amount.", Alert.AlertType.ERROR);
                 }
@@ -474,18 +635,32 @@ public class PaymentManagementController implements Initializable {
 
             Optional<ButtonType> result = confirmation.showAndWait();
             if (result.isPresent() && result.get() == ButtonType.OK) {
-                if (paymentDAO.deletePayment(selectedPayment.getId())) {
-                    showAlert("Success", "Payment cancelled successfully!", Alert.AlertType.INFORMATION);
-                    clearFields();
-                    loadData();
-                    loadStatistics();
-                } else {
-                    showAlert("Error", "Failed to cancel payment.", Alert.AlertType.ERROR);
-                }
+                int paymentId = selectedPayment.getId();
+                runPaymentUpdate(() -> paymentDAO.deletePayment(paymentId),
+                        "Payment cancelled successfully!", "Failed to cancel payment.");
             }
         }
     }
 
+    /**
+     * Run a payment write in the background; the PaymentChanged event patches the table
+     */
+    private void runPaymentUpdate(Callable<Boolean> update,
+                                  String successMessage, String failureMessage) {
+        DaoExecutor.submit(
+                update,
+                success -> {
+                    if (success) {
+                        showAlert("Success", successMessage, Alert.AlertType.INFORMATION);
+                        clearFields();
+                    } else {
+                        showAlert("Error", failureMessage, Alert.AlertType.ERROR);
+                    }
+                },
+                error -> showAlert("Error", failureMessage, Alert.AlertType.ERROR)
+        );
+    }
+
     @FXML
     private void handleGenerateReceipt() {
         if (selectedPayment != null) {
@@ -552,17 +727,35 @@ public class PaymentManagementController implements Initializable {
         return receipt.toString();
     }
 
+    /**
+     * Patch one payment row and the statistics after a payment is recorded or changes status
+     */
+    private void refreshPayment(PaymentChanged event) {
+        int paymentId = event.getPaymentId();
+        DaoExecutor.load(
+                () -> paymentDAO.getPaymentById(paymentId),
+                fresh -> {
+                    if (fresh == null) return;
+                    boolean listed = false;
+                    for (int i = 0; i < payments.size(); i++) {
+                        if (payments.get(i).getId() == paymentId) {
+                            payments.set(i, fresh);
+                            listed = true;
+                            break;
+                        }
+                    }
+                    if (!listed && showingAllPayments && event.getKind() == PaymentChanged.Kind.CREATED) {
+                        payments.add(0, fresh);
+                    }
+                }
+        );
+        loadStatistics();
+    }
+
     @FXML
     private void handleSearch() {
-        String searchTerm = searchField.getText().trim();
-        if (searchTerm.isEmpty()) {
-            loadData();
-        } else {
-            payments.clear();
-            payments.addAll(paymentDAO.searchPayments(searchTerm));
-        }
-        // Recalculate statistics after search
-        loadStatistics();
+        // Statistics come from the status summary and do not depend on the search term
+        paymentSearch.searchNow();
     }
 
     @FXML
@@ -576,8 +769,8 @@ public class PaymentManagementController implements Initializable {
                         Alert.AlertType.ERROR);
                 return;
             }
-            payments.clear();
-            payments.addAll(paymentDAO.getPaymentsByDateRange(startDate, endDate));
+            loadPayments(after -> paymentDAO.getPaymentsByDateRangePage(startDate, endDate, after,
+                    PaymentDAO.DEFAULT_PAGE_SIZE));
             loadStatistics(); // Recalculate statistics for filtered data
         } else {
             showAlert("Missing Dates", "Please select both start and end dates.",
@@ -703,13 +896,7 @@ public class PaymentManagementController implements Initializable {
 
     private void loadScene(String fxmlFile, String title) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlFile));
-            Scene scene = new Scene(loader.load());
-            scene.getStylesheets().add(getClass().getResource("/css/style.css").toExternalForm());
-
-            Stage stage = (Stage) paymentsTable.getScene().getWindow();
-            stage.setScene(scene);
-            stage.setTitle(title);
+            SceneManager.switchScene(paymentsTable, fxmlFile, title);
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Error loading scene", e);
             e.printStackTrace();
@@ -744,4 +931,80 @@ public class PaymentManagementController implements Initializable {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Handle Export Payments button click: stream all payments to CSV or JSONL
+     */
+    @FXML
+    private void handleExportPayments() {
+        if (exportTask != null && exportTask.isRunning()) {
+            showAlert("Export Running", "A payment export is already in progress.", Alert.AlertType.INFORMATION);
+            return;
+        }
+
+        ChoiceDialog<PaymentExporter.Format> formatDialog =
+                new ChoiceDialog<>(PaymentExporter.Format.CSV, PaymentExporter.Format.values());
+        formatDialog.setTitle("Export Payments");
+        formatDialog.setHeaderText("Choose an export format");
+        Optional<PaymentExporter.Format> chosen = formatDialog.showAndWait();
+        if (!chosen.isPresent()) return;
+        PaymentExporter.Format format = chosen.get();
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save Payment Export");
+        fileChooser.setInitialFileName("payments_" + LocalDate.now() + format.getExtension());
+        File file = fileChooser.showSaveDialog(paymentsTable.getScene().getWindow());
+        if (file == null) return;
+
+        ProgressBar progressBar = new ProgressBar(ProgressBar.INDETERMINATE_PROGRESS);
+        progressBar.setPrefWidth(320);
+        Label progressLabel = new Label("Starting export...");
+
+        Alert progressAlert = new Alert(Alert.AlertType.NONE, "", ButtonType.CANCEL);
+        progressAlert.setTitle("Exporting Payments");
+        progressAlert.setHeaderText("Writing " + file.getName());
+        progressAlert.getDialogPane().setContent(new VBox(10, progressBar, progressLabel));
+
+        Task<Long> task = new Task<Long>() {
+            @Override
+            protected Long call() throws Exception {
+                // Summary-table count, so the total is known without scanning payments
+                long total = paymentDAO.getPaymentStatistics().totalPayments;
+                return new PaymentExporter().export(file.toPath(), format, rows -> {
+                    updateProgress(rows, Math.max(total, rows));
+                    updateMessage(rows + (total > 0 ? " of " + total : "") + " payments written");
+                }, this::isCancelled);
+            }
+        };
+        progressBar.progressProperty().bind(task.progressProperty());
+        progressLabel.textProperty().bind(task.messageProperty());
+
+        task.setOnSucceeded(e -> {
+            progressAlert.close();
+            long rows = task.getValue();
+            if (rows >= 0) {
+                System.out.println("✅ Exported " + rows + " payments to " + file.getAbsolutePath());
+                showAlert("Export Complete", rows + " payments exported to:\n" + file.getAbsolutePath(),
+                        Alert.AlertType.INFORMATION);
+            }
+        });
+        task.setOnFailed(e -> {
+            progressAlert.close();
+            LOGGER.log(Level.SEVERE, "Payment export failed", task.getException());
+            showAlert("Export Failed", "Unable to export payments: " + task.getException().getMessage(),
+                    Alert.AlertType.ERROR);
+        });
+        task.setOnCancelled(e -> {
+            progressAlert.close();
+            System.out.println("⚠ Payment export cancelled");
+        });
+
+        // Closing the dialog (Cancel button or window close) stops the export
+        progressAlert.setOnHidden(e -> DaoExecutor.cancel(task));
+
+        exportTask = task;
+        // Not tracked by cancelAll, so an export keeps running if the user leaves this screen
+        DaoExecutor.executor().execute(task);
+        progressAlert.show();
+    }
+}
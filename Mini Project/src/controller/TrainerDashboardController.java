@@ -1,25 +1,31 @@
 package com.gymmanagementsystem.controller;
 
 import com.gymmanagementsystem.util.SessionManager;
+import com.gymmanagementsystem.util.DaoExecutor;
+import com.gymmanagementsystem.util.DomainEvent.BookingChanged;
+import com.gymmanagementsystem.util.DomainEvent.ClassChanged;
+import com.gymmanagementsystem.util.DomainEventBus;
+import com.gymmanagementsystem.util.ListReconciler;
+import com.gymmanagementsystem.util.SceneManager;
+import com.gymmanagementsystem.util.ScreenLifecycle;
 import com.gymmanagementsystem.dao.ClassDAO;
+import com.gymmanagementsystem.dao.DashboardReads;
 import com.gymmanagementsystem.model.GymClass;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.net.URL;
 import java.util.ResourceBundle;
 
-public class TrainerDashboardController implements Initializable {
+public class TrainerDashboardController implements Initializable, ScreenLifecycle {
 
     @FXML private Label welcomeLabel;
+    @FXML private Label dataAgeLabel;
     @FXML private TableView<GymClass> classesTable;
     @FXML private TableColumn<GymClass, String> classNameColumn;
     @FXML private TableColumn<GymClass, String> startTimeColumn;
@@ -28,8 +34,8 @@ public class TrainerDashboardController implements Initializable {
     @FXML private TableColumn<GymClass, Integer> maxCapacityColumn;
     @FXML private TableColumn<GymClass, String> statusColumn;
 
-    private ClassDAO classDAO = new ClassDAO();
     private ObservableList<GymClass> classes = FXCollections.observableArrayList();
+    private final ClassDAO classDAO = new ClassDAO();
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -38,6 +44,49 @@ public class TrainerDashboardController implements Initializable {
         
         setupTable();
         loadTrainerClasses();
+        subscribeToChanges();
+    }
+
+    @Override
+    public void onShow() {
+        loadTrainerClasses();
+        subscribeToChanges();
+    }
+
+    /**
+     * Patch booking counts and class edits as they happen
+     */
+    private void subscribeToChanges() {
+        DomainEventBus bus = DomainEventBus.getInstance();
+        bus.subscribeScreen(BookingChanged.class, event -> refreshClass(event.getClassId()));
+        bus.subscribeScreen(ClassChanged.class, event -> {
+            if (event.isBulk()) {
+                loadTrainerClasses();
+            } else {
+                refreshClass(event.getClassId());
+            }
+        });
+    }
+
+    private void refreshClass(int classId) {
+        DaoExecutor.load(
+                () -> classDAO.getClassById(classId),
+                fresh -> {
+                    for (int i = 0; i < classes.size(); i++) {
+                        if (classes.get(i).getId() == classId) {
+                            if (fresh != null) {
+                                classes.set(i, fresh);
+                            } else {
+                                classes.remove(i);
+                            }
+                            return;
+                        }
+                    }
+                    if (fresh != null) {
+                        classes.add(fresh);
+                    }
+                }
+        );
     }
 
     private void setupTable() {
@@ -55,8 +104,20 @@ public class TrainerDashboardController implements Initializable {
         // Note: You would need to implement a way to get trainer ID from user ID
         // For now, we'll load all classes - in a real implementation, 
         // you'd filter by the logged-in trainer's ID
-        classes.clear();
-        classes.addAll(classDAO.getAllClasses());
+        DashboardReads.allClasses().read(
+                snapshot -> {
+                    ListReconciler.reconcile(classes, snapshot.getValue(), GymClass::getId, ListReconciler::classRow);
+                    if (dataAgeLabel != null) {
+                        dataAgeLabel.setText(snapshot.describe());
+                    }
+                },
+                error -> {
+                    if (dataAgeLabel != null) {
+                        dataAgeLabel.setText("Could not load classes");
+                    }
+                },
+                classesTable
+        );
     }
 
     @FXML
@@ -72,18 +133,16 @@ public class TrainerDashboardController implements Initializable {
     @FXML
     private void handleLogout() {
         SessionManager.getInstance().logout();
-        loadScene("/fxml/login.fxml", "Gym Management System");
+        try {
+            SceneManager.switchSceneWithDefaultSize(welcomeLabel, "/fxml/login.fxml", "Gym Management System");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
     private void loadScene(String fxmlFile, String title) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlFile));
-            Scene scene = new Scene(loader.load());
-            scene.getStylesheets().add(getClass().getResource("/css/style.css").toExternalForm());
-            
-            Stage stage = (Stage) welcomeLabel.getScene().getWindow();
-            stage.setScene(scene);
-            stage.setTitle(title);
+            SceneManager.switchScene(welcomeLabel, fxmlFile, title);
         } catch (IOException e) {
             e.printStackTrace();
         }
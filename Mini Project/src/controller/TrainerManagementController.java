@@ -4,16 +4,17 @@ import com.gymmanagementsystem.dao.TrainerDAO;
 import com.gymmanagementsystem.dao.UserDAO;
 import com.gymmanagementsystem.model.Trainer;
 import com.gymmanagementsystem.model.User;
+import com.gymmanagementsystem.util.ListReconciler;
+import com.gymmanagementsystem.util.TypeAheadSearch;
+import com.gymmanagementsystem.util.SceneManager;
+import com.gymmanagementsystem.util.ScreenLifecycle;
 import javafx.animation.PauseTransition;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.stage.Stage;
 import javafx.util.Duration;
 
 import java.io.IOException;
@@ -28,7 +29,7 @@ import java.util.regex.Pattern;
 /**
  * Enhanced Trainer Management Controller with search, filtering, and better UX
  */
-public class TrainerManagementController implements Initializable {
+public class TrainerManagementController implements Initializable, ScreenLifecycle {
 
     private static final Logger LOGGER = Logger.getLogger(TrainerManagementController.class.getName());
 
@@ -76,8 +77,8 @@ public class TrainerManagementController implements Initializable {
     private ObservableList<Trainer> allTrainers = FXCollections.observableArrayList();
     private Trainer selectedTrainer = null;
 
-    // For search debouncing
-    private PauseTransition searchDelay;
+    // Type-ahead search (debounced, cancellable, latest result only)
+    private TypeAheadSearch<List<Trainer>> search;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -112,6 +113,26 @@ public class TrainerManagementController implements Initializable {
         System.out.println("✅ Trainer Management initialized successfully");
     }
 
+    /**
+     * Back from another screen: repeat the search the user left, or reload the list
+     */
+    @Override
+    public void onShow() {
+        if (search != null && search.isActive()) {
+            search.searchNow();
+        } else {
+            loadTrainers();
+        }
+        updateStatistics();
+    }
+
+    @Override
+    public void onHide() {
+        if (search != null) {
+            search.cancel();
+        }
+    }
+
     private void setupTable() {
         // Name column with null safety
         nameColumn.setCellValueFactory(cellData -> {
@@ -207,13 +228,17 @@ public class TrainerManagementController implements Initializable {
     }
 
     private void setupSearchAndFilter() {
+        // Search as you type: debounced, runs in the background, latest result wins
         if (searchField != null) {
-            searchDelay = new PauseTransition(Duration.millis(500));
-            searchDelay.setOnFinished(e -> performSearch());
-
-            searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-                searchDelay.playFromStart();
-            });
+            search = new TypeAheadSearch<>(
+                    searchField,
+                    trainerDAO::searchTrainers,
+                    this::showSearchResults,
+                    () -> {
+                        trainers.setAll(allTrainers);
+                        applyFilter();
+                    }
+            );
         }
     }
 
@@ -221,15 +246,11 @@ public class TrainerManagementController implements Initializable {
         try {
             System.out.println("🔄 Loading trainers from database...");
 
-            allTrainers.clear();
             List<Trainer> trainerList = trainerDAO.getAllTrainers();
-            allTrainers.addAll(trainerList);
-
-            trainers.clear();
-            trainers.addAll(allTrainers);
+            allTrainers.setAll(trainerList);
 
-            // Force table refresh
-            trainersTable.refresh();
+            // Only rows that changed are replaced, so the selection survives a reload
+            ListReconciler.reconcile(trainers, allTrainers, Trainer::getId, ListReconciler::trainerRow);
 
             System.out.println("✅ Successfully loaded " + trainers.size() + " trainers");
             updateStatusLabel("Loaded " + trainers.size() + " trainers", "success");
@@ -432,26 +453,10 @@ public class TrainerManagementController implements Initializable {
     }
 
     // NEW: Search functionality
-    private void performSearch() {
-        if (searchField == null) return;
-
-        String searchTerm = searchField.getText().trim();
-
-        if (searchTerm.isEmpty()) {
-            trainers.setAll(allTrainers);
-            applyFilter();
-            return;
-        }
-
-        try {
-            List<Trainer> searchResults = trainerDAO.searchTrainers(searchTerm);
-            trainers.setAll(searchResults);
-            trainersTable.refresh();
-            updateStatusLabel("Found " + searchResults.size() + " trainer(s)", "info");
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error searching trainers", e);
-            updateStatusLabel("Search error", "error");
-        }
+    private void showSearchResults(List<Trainer> searchResults) {
+        trainers.setAll(searchResults);
+        trainersTable.refresh();
+        updateStatusLabel("Found " + searchResults.size() + " trainer(s)", "info");
     }
 
     // NEW: Filter functionality
@@ -461,8 +466,8 @@ public class TrainerManagementController implements Initializable {
         String selectedSpec = filterSpecializationComboBox.getValue();
 
         if ("All Specializations".equals(selectedSpec)) {
-            if (searchField != null && !searchField.getText().trim().isEmpty()) {
-                performSearch();
+            if (search != null && search.isActive()) {
+                search.searchNow();
             } else {
                 trainers.setAll(allTrainers);
                 trainersTable.refresh();
@@ -659,18 +664,7 @@ public class TrainerManagementController implements Initializable {
 
     private void loadScene(String fxmlFile, String title) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlFile));
-            Scene scene = new Scene(loader.load());
-
-            try {
-                scene.getStylesheets().add(getClass().getResource("/css/style.css").toExternalForm());
-            } catch (Exception e) {
-                LOGGER.log(Level.WARNING, "Could not load stylesheet", e);
-            }
-
-            Stage stage = (Stage) trainersTable.getScene().getWindow();
-            stage.setScene(scene);
-            stage.setTitle(title);
+            SceneManager.switchScene(trainersTable, fxmlFile, title);
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Error loading scene: " + fxmlFile, e);
             showAlert("Failed to load screen: " + e.getMessage(), Alert.AlertType.ERROR);
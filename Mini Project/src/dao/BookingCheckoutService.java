@@ -0,0 +1,129 @@
+package com.gymmanagementsystem.dao;
+
+import com.gymmanagementsystem.model.Payment;
+import com.gymmanagementsystem.util.DatabaseConnection;
+import com.gymmanagementsystem.util.DomainEvent.BookingChanged;
+import com.gymmanagementsystem.util.DomainEvent.PaymentChanged;
+import com.gymmanagementsystem.util.DomainEventBus;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pay-and-book checkout for a single class.
+ *
+ * The capacity check, the booking insert and the payment insert share one
+ * connection and one commit, so a member is never charged without a booking
+ * (or booked without a payment). The class row is locked first, so a full or
+ * already-booked class is rejected before any payment row is written.
+ */
+public class BookingCheckoutService {
+
+    private static final Logger LOGGER = Logger.getLogger(BookingCheckoutService.class.getName());
+
+    private final ClassDAO classDAO = new ClassDAO();
+    private final PaymentDAO paymentDAO = new PaymentDAO();
+    private final DomainEventBus events = DomainEventBus.getInstance();
+
+    /**
+     * Book a class for the payment's member and record the payment in one transaction
+     */
+    public CheckoutReceipt checkout(int classId, Payment payment) {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            ClassDAO.ReservationResult reservation = classDAO.reserveSpot(conn, classId, payment.getMemberId());
+            if (reservation != ClassDAO.ReservationResult.RESERVED) {
+                conn.rollback();
+                return CheckoutReceipt.rejected(classId, payment, reservation);
+            }
+
+            if (!paymentDAO.insertPayment(conn, payment)) {
+                conn.rollback();
+                return CheckoutReceipt.failed(classId, payment);
+            }
+
+            BookingChanged booked = new BookingChanged(classId, payment.getMemberId(), BookingChanged.Kind.CREATED);
+            PaymentChanged paid = new PaymentChanged(payment.getId(), payment.getMemberId(), PaymentChanged.Kind.CREATED);
+            ChangeLog.append(conn, booked, paid);
+
+            conn.commit();
+            EntityCaches.classes().invalidate(classId);
+            if (PaymentDAO.extendsMembership(payment)) {
+                EntityCaches.members().invalidate(payment.getMemberId());
+            }
+            events.publish(booked);
+            events.publish(paid);
+            LOGGER.log(Level.INFO, "Checkout complete: Class ID {0}, Member ID {1}, Transaction {2}",
+                    new Object[]{classId, payment.getMemberId(), payment.getTransactionId()});
+            return CheckoutReceipt.booked(classId, payment);
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error during booking checkout", e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
+                }
+            }
+            return CheckoutReceipt.failed(classId, payment);
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.SEVERE, "Error closing connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Combined result of a checkout: booking outcome plus the payment that was recorded
+     */
+    public static class CheckoutReceipt {
+        private final int classId;
+        private final Payment payment;
+        private final ClassDAO.ReservationResult reservation;
+        private final boolean committed;
+        private final Timestamp checkedOutAt;
+
+        private CheckoutReceipt(int classId, Payment payment, ClassDAO.ReservationResult reservation,
+                                boolean committed) {
+            this.classId = classId;
+            this.payment = payment;
+            this.reservation = reservation;
+            this.committed = committed;
+            this.checkedOutAt = new Timestamp(System.currentTimeMillis());
+        }
+
+        static CheckoutReceipt booked(int classId, Payment payment) {
+            return new CheckoutReceipt(classId, payment, ClassDAO.ReservationResult.RESERVED, true);
+        }
+
+        static CheckoutReceipt rejected(int classId, Payment payment, ClassDAO.ReservationResult reservation) {
+            return new CheckoutReceipt(classId, payment, reservation, false);
+        }
+
+        static CheckoutReceipt failed(int classId, Payment payment) {
+            return new CheckoutReceipt(classId, payment, null, false);
+        }
+
+        /** True if both the booking and the payment were committed */
+        public boolean isBooked() { return committed; }
+
+        /** Why the booking was refused, or null if the checkout failed with an error */
+        public ClassDAO.ReservationResult getReservation() { return reservation; }
+
+        public int getClassId() { return classId; }
+        public Payment getPayment() { return payment; }
+        public Timestamp getCheckedOutAt() { return checkedOutAt; }
+    }
+}
@@ -0,0 +1,246 @@
+package com.gymmanagementsystem.dao;
+
+import com.gymmanagementsystem.util.DatabaseConnection;
+import com.gymmanagementsystem.util.DomainEvent.BookingChanged;
+import com.gymmanagementsystem.util.DomainEventBus;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Intake queue for class bookings during booking rushes.
+ *
+ * Requests for the same class that arrive while a batch for that class is being
+ * written are held and written together as the next batch: one connection, one
+ * row lock on the class, one batched INSERT, one commit. Each caller still gets
+ * its own accept/reject result, and spots are handed out in arrival order.
+ *
+ * The queue lives in this JVM only, so it coalesces the requests made through
+ * this client; other clients booking the same class write their own batches.
+ * Correctness does not depend on it: every batch locks the class row, so
+ * batches from different clients still take spots one after another. A batch
+ * holds at most MAX_BATCH_SIZE requests, which also bounds the IN list used to
+ * look up existing bookings; the rest wait for the next batch.
+ */
+public class BookingIntakeQueue {
+
+    private static final Logger LOGGER = Logger.getLogger(BookingIntakeQueue.class.getName());
+
+    // Requests written per transaction; keeps the class row lock and the IN list short
+    private static final int MAX_BATCH_SIZE = 100;
+
+    private static BookingIntakeQueue instance;
+
+    private final Map<Integer, ClassQueue> queues = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    private BookingIntakeQueue() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "booking-intake-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized BookingIntakeQueue getInstance() {
+        if (instance == null) {
+            instance = new BookingIntakeQueue();
+        }
+        return instance;
+    }
+
+    /**
+     * Queue a booking request; the future completes with true if the member got a spot
+     */
+    public CompletableFuture<Boolean> submit(int classId, int memberId) {
+        BookingRequest request = new BookingRequest(memberId);
+        ClassQueue queue = queues.computeIfAbsent(classId, id -> new ClassQueue());
+
+        synchronized (queue) {
+            queue.pending.add(request);
+            if (!queue.draining) {
+                queue.draining = true;
+                executor.execute(() -> drain(classId, queue));
+            }
+        }
+
+        return request.result;
+    }
+
+    /**
+     * Queue a booking request and wait for its result (call off the FX thread)
+     */
+    public boolean book(int classId, int memberId) {
+        try {
+            return submit(classId, memberId).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            LOGGER.log(Level.SEVERE, "Error waiting for booking result", e.getCause());
+            return false;
+        }
+    }
+
+    /**
+     * Write batches for one class until no more requests are waiting
+     */
+    private void drain(int classId, ClassQueue queue) {
+        while (true) {
+            List<BookingRequest> batch;
+            synchronized (queue) {
+                if (queue.pending.isEmpty()) {
+                    queue.draining = false;
+                    return;
+                }
+                List<BookingRequest> next = queue.pending.subList(0, Math.min(MAX_BATCH_SIZE, queue.pending.size()));
+                batch = new ArrayList<>(next);
+                next.clear();
+            }
+
+            processBatch(classId, batch);
+        }
+    }
+
+    private void processBatch(int classId, List<BookingRequest> batch) {
+        String lockClassSql = "SELECT max_capacity, current_bookings, status FROM classes WHERE id = ? FOR UPDATE";
+        String insertSql = "INSERT INTO class_bookings (class_id, member_id, booking_date, status) " +
+                "VALUES (?, ?, NOW(), 'CONFIRMED')";
+
+        List<BookingRequest> accepted = new ArrayList<>();
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // Lock the class row once for the whole batch
+            int freeSpots = 0;
+            try (PreparedStatement lockStmt = conn.prepareStatement(lockClassSql)) {
+                lockStmt.setInt(1, classId);
+                try (ResultSet rs = lockStmt.executeQuery()) {
+                    if (rs.next()) {
+                        String status = rs.getString("status");
+                        if (!"CANCELLED".equals(status) && !"COMPLETED".equals(status)) {
+                            freeSpots = rs.getInt("max_capacity") - rs.getInt("current_bookings");
+                        }
+                    }
+                }
+            }
+
+            // Members in this batch who already hold a booking, in one query
+            Set<Integer> alreadyBooked = findExistingBookings(conn, classId, batch);
+
+            // Hand out spots in arrival order; repeat requests in the batch are rejected
+            Set<Integer> seen = new HashSet<>();
+            for (BookingRequest request : batch) {
+                if (freeSpots > 0 && !alreadyBooked.contains(request.memberId) && seen.add(request.memberId)) {
+                    accepted.add(request);
+                    freeSpots--;
+                }
+            }
+
+            if (!accepted.isEmpty()) {
+                try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+                    for (BookingRequest request : accepted) {
+                        insertStmt.setInt(1, classId);
+                        insertStmt.setInt(2, request.memberId);
+                        insertStmt.addBatch();
+                    }
+                    insertStmt.executeBatch();
+                }
+            }
+
+            BookingChanged[] booked = new BookingChanged[accepted.size()];
+            for (int i = 0; i < booked.length; i++) {
+                booked[i] = new BookingChanged(classId, accepted.get(i).memberId, BookingChanged.Kind.CREATED);
+            }
+            if (booked.length > 0) {
+                ChangeLog.append(conn, booked);
+            }
+
+            conn.commit();
+            if (booked.length > 0) {
+                EntityCaches.classes().invalidate(classId);
+                for (BookingChanged event : booked) {
+                    DomainEventBus.getInstance().publish(event);
+                }
+            }
+            LOGGER.log(Level.INFO, "Booking batch for class {0}: {1} requested, {2} accepted",
+                    new Object[]{classId, batch.size(), accepted.size()});
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error writing booking batch for class: " + classId, e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
+                }
+            }
+            accepted.clear();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.SEVERE, "Error closing connection", e);
+                }
+            }
+        }
+
+        // Complete callers in arrival order
+        for (BookingRequest request : batch) {
+            request.result.complete(accepted.contains(request));
+        }
+    }
+
+    private Set<Integer> findExistingBookings(Connection conn, int classId, List<BookingRequest> batch)
+            throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT member_id FROM class_bookings WHERE class_id = ? AND member_id IN (");
+        for (int i = 0; i < batch.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+
+        Set<Integer> booked = new HashSet<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            stmt.setInt(1, classId);
+            for (int i = 0; i < batch.size(); i++) {
+                stmt.setInt(i + 2, batch.get(i).memberId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    booked.add(rs.getInt("member_id"));
+                }
+            }
+        }
+        return booked;
+    }
+
+    private static class ClassQueue {
+        final List<BookingRequest> pending = new ArrayList<>();
+        boolean draining;
+    }
+
+    private static class BookingRequest {
+        final int memberId;
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        BookingRequest(int memberId) {
+            this.memberId = memberId;
+        }
+    }
+}
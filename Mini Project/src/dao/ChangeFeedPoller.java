@@ -0,0 +1,268 @@
+package com.gymmanagementsystem.dao;
+
+import com.gymmanagementsystem.util.DatabaseConnection;
+import com.gymmanagementsystem.util.DomainEvent;
+import com.gymmanagementsystem.util.DomainEvent.BookingChanged;
+import com.gymmanagementsystem.util.DomainEvent.ClassChanged;
+import com.gymmanagementsystem.util.DomainEvent.MemberChanged;
+import com.gymmanagementsystem.util.DomainEvent.PaymentChanged;
+import com.gymmanagementsystem.util.DomainEvent.WaitlistChanged;
+import com.gymmanagementsystem.util.DomainEventBus;
+
+import java.sql.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Brings other clients' writes into this one by polling change_log.
+ *
+ * Every few seconds one indexed query fetches the rows past the last id seen. Rows
+ * written by this client are skipped (they were published when they happened); the
+ * rest invalidate the matching cache entries and are republished on the
+ * DomainEventBus, so open screens patch themselves exactly as for a local write.
+ * Repeats of the same change within one poll are published once.
+ *
+ * Auto-increment ids are handed out before commit, so a row can become visible
+ * after a higher id was already read. Ids skipped over are remembered for
+ * GAP_RETRY_MILLIS and fetched by the same query if they turn up; ids that never
+ * do were rolled back. The first poll starts at the current end of the log, since
+ * screens opened after that load fresh data anyway.
+ */
+public class ChangeFeedPoller {
+
+    private static final Logger LOGGER = Logger.getLogger(ChangeFeedPoller.class.getName());
+
+    private static final long INTERVAL_SECONDS = 3;
+    private static final int BATCH_SIZE = 500;
+    private static final long GAP_RETRY_MILLIS = 30_000;
+    private static final int MAX_GAPS = 100;
+    private static final long RETENTION_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final long PRUNE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static ChangeFeedPoller instance;
+
+    private final DomainEventBus events = DomainEventBus.getInstance();
+    private final WaitlistDAO waitlistDAO = new WaitlistDAO();
+    private final MemberDAO memberDAO = new MemberDAO();
+
+    private ScheduledExecutorService scheduler;
+    private long lastSeenId = -1;
+    // Skipped ids -> when they were skipped
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+    private long lastPrunedAt;
+
+    private ChangeFeedPoller() {}
+
+    public static synchronized ChangeFeedPoller getInstance() {
+        if (instance == null) {
+            instance = new ChangeFeedPoller();
+        }
+        return instance;
+    }
+
+    /**
+     * Poll every few seconds on a daemon thread
+     */
+    public synchronized void start() {
+        if (scheduler != null) return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runOnce, 0, INTERVAL_SECONDS, TimeUnit.SECONDS);
+        LOGGER.info("Change feed polled every " + INTERVAL_SECONDS + " seconds");
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void runOnce() {
+        try {
+            poll();
+            pruneIfDue();
+        } catch (SQLException e) {
+            // Usually the database is briefly unreachable; the next poll catches up
+            LOGGER.log(Level.WARNING, "Error polling change feed", e);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Change feed poll failed", e);
+        }
+    }
+
+    /**
+     * Fetch and apply everything committed by other clients since the last poll
+     *
+     * @return number of distinct changes published
+     */
+    public synchronized int poll() throws SQLException {
+        Map<String, DomainEvent> changes = new LinkedHashMap<>();
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (lastSeenId < 0) {
+                lastSeenId = currentEnd(conn);
+                LOGGER.log(Level.INFO, "Change feed starting after id {0}", lastSeenId);
+                return 0;
+            }
+
+            expireGaps();
+            while (fetch(conn, changes) == BATCH_SIZE) {
+                // A long backlog; keep reading until caught up
+            }
+        }
+
+        for (DomainEvent event : changes.values()) {
+            invalidateCaches(event);
+        }
+        for (DomainEvent event : changes.values()) {
+            events.publish(event);
+        }
+
+        if (!changes.isEmpty()) {
+            LOGGER.log(Level.FINE, "Change feed applied {0} changes from other clients", changes.size());
+        }
+        return changes.size();
+    }
+
+    private long currentEnd(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM change_log")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Read one batch past the mark (plus any gap ids that have since committed)
+     *
+     * @return rows read
+     */
+    private int fetch(Connection conn, Map<String, DomainEvent> changes) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT id, entity_type, entity_id, member_id, change_kind, origin " +
+                "FROM change_log WHERE id > ?");
+        if (!gaps.isEmpty()) {
+            sql.append(" OR id IN (");
+            for (int i = 0; i < gaps.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(")");
+        }
+        sql.append(" ORDER BY id LIMIT ?");
+
+        int rows = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int i = 1;
+            stmt.setLong(i++, lastSeenId);
+            for (long gapId : gaps.keySet()) {
+                stmt.setLong(i++, gapId);
+            }
+            stmt.setInt(i, BATCH_SIZE);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows++;
+                    long id = rs.getLong("id");
+                    if (gaps.remove(id) == null) {
+                        rememberGaps(id);
+                        lastSeenId = Math.max(lastSeenId, id);
+                    }
+
+                    if (ChangeLog.ORIGIN.equals(rs.getString("origin"))) continue;
+
+                    DomainEvent event = ChangeLog.toEvent(rs);
+                    if (event != null) {
+                        String key = rs.getString("entity_type") + ":" + rs.getInt("entity_id") + ":" +
+                                rs.getInt("member_id") + ":" + rs.getString("change_kind");
+                        changes.putIfAbsent(key, event);
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    private void rememberGaps(long id) {
+        long now = System.currentTimeMillis();
+        for (long missing = lastSeenId + 1; missing < id && gaps.size() < MAX_GAPS; missing++) {
+            gaps.put(missing, now);
+        }
+    }
+
+    private void expireGaps() {
+        long cutoff = System.currentTimeMillis() - GAP_RETRY_MILLIS;
+        Iterator<Long> skippedAt = gaps.values().iterator();
+        while (skippedAt.hasNext()) {
+            if (skippedAt.next() < cutoff) {
+                skippedAt.remove();
+            }
+        }
+    }
+
+    /**
+     * Drop what this client may hold about the changed rows, before screens re-read them
+     */
+    private void invalidateCaches(DomainEvent event) {
+        if (event instanceof ClassChanged) {
+            ClassChanged change = (ClassChanged) event;
+            if (change.isBulk()) {
+                EntityCaches.classes().invalidateAll();
+                return;
+            }
+            EntityCaches.classes().invalidate(change.getClassId());
+            // Class counts per trainer move on create, delete and reassignment
+            TrainerCache.getInstance().invalidate();
+            if (change.getKind() == ClassChanged.Kind.DELETED) {
+                waitlistDAO.forgetClass(change.getClassId());
+            }
+        } else if (event instanceof BookingChanged) {
+            BookingChanged change = (BookingChanged) event;
+            EntityCaches.classes().invalidate(change.getClassId());
+            // A cancellation elsewhere may have promoted someone off this waitlist
+            waitlistDAO.forgetClass(change.getClassId());
+        } else if (event instanceof PaymentChanged) {
+            PaymentChanged change = (PaymentChanged) event;
+            if (change.getMemberId() > 0) {
+                EntityCaches.members().invalidate(change.getMemberId());
+            }
+        } else if (event instanceof MemberChanged) {
+            MemberChanged change = (MemberChanged) event;
+            EntityCaches.members().invalidate(change.getMemberId());
+            if (change.getKind() == MemberChanged.Kind.DELETED) {
+                MemberSearchIndex.getInstance().remove(change.getMemberId());
+            } else {
+                memberDAO.reindex(change.getMemberId());
+            }
+        } else if (event instanceof WaitlistChanged) {
+            // Reloaded from class_waitlist on the next position lookup
+            waitlistDAO.forgetClass(((WaitlistChanged) event).getClassId());
+        }
+    }
+
+    /**
+     * Delete rows older than RETENTION_MILLIS, at most once per PRUNE_INTERVAL_MILLIS
+     */
+    private void pruneIfDue() throws SQLException {
+        long now = System.currentTimeMillis();
+        if (now - lastPrunedAt < PRUNE_INTERVAL_MILLIS) return;
+        lastPrunedAt = now;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("DELETE FROM change_log WHERE created_at < ?")) {
+            stmt.setTimestamp(1, new Timestamp(now - RETENTION_MILLIS));
+            int deleted = stmt.executeUpdate();
+            if (deleted > 0) {
+                LOGGER.log(Level.INFO, "Pruned {0} change_log rows", deleted);
+            }
+        }
+    }
+}
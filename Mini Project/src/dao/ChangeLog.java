@@ -0,0 +1,142 @@
+package com.gymmanagementsystem.dao;
+
+import com.gymmanagementsystem.util.DomainEvent;
+import com.gymmanagementsystem.util.DomainEvent.BookingChanged;
+import com.gymmanagementsystem.util.DomainEvent.ClassChanged;
+import com.gymmanagementsystem.util.DomainEvent.MemberChanged;
+import com.gymmanagementsystem.util.DomainEvent.PaymentChanged;
+import com.gymmanagementsystem.util.DomainEvent.WaitlistChanged;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Rows of the change_log table, the feed other clients poll to see this client's writes.
+ *
+ * Each row is a {@link DomainEvent} flattened to (entity_type, entity_id, member_id,
+ * change_kind) and tagged with the writing client's ORIGIN, so the poller can skip
+ * changes it already published locally. Writes inside a transaction append before
+ * the commit, so a change and its log row become visible together.
+ */
+final class ChangeLog {
+
+    private static final Logger LOGGER = Logger.getLogger(ChangeLog.class.getName());
+
+    /** Identifies this running client in change_log.origin */
+    static final String ORIGIN = UUID.randomUUID().toString();
+
+    private static final String INSERT_SQL = "INSERT INTO change_log " +
+            "(entity_type, entity_id, member_id, change_kind, origin) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String CLASS = "CLASS";
+    private static final String BOOKING = "BOOKING";
+    private static final String PAYMENT = "PAYMENT";
+    private static final String MEMBER = "MEMBER";
+    private static final String WAITLIST = "WAITLIST";
+
+    private ChangeLog() {}
+
+    /**
+     * Append events on the caller's connection, as part of its transaction
+     */
+    static void append(Connection conn, DomainEvent... events) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            for (DomainEvent event : events) {
+                bind(stmt, event);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Append after a write that has already committed (auto-commit statements). A
+     * failure here must not fail the write, so it is only logged; other clients then
+     * see the change on their next full load.
+     */
+    static void appendQuietly(Connection conn, DomainEvent event) {
+        try {
+            append(conn, event);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not record " + event + " in change_log", e);
+        }
+    }
+
+    private static void bind(PreparedStatement stmt, DomainEvent event) throws SQLException {
+        int memberId = 0;
+        if (event instanceof ClassChanged) {
+            ClassChanged change = (ClassChanged) event;
+            stmt.setString(1, CLASS);
+            stmt.setInt(2, change.getClassId());
+            stmt.setString(4, change.getKind().name());
+        } else if (event instanceof BookingChanged) {
+            BookingChanged change = (BookingChanged) event;
+            stmt.setString(1, BOOKING);
+            stmt.setInt(2, change.getClassId());
+            stmt.setString(4, change.getKind().name());
+            memberId = change.getMemberId();
+        } else if (event instanceof PaymentChanged) {
+            PaymentChanged change = (PaymentChanged) event;
+            stmt.setString(1, PAYMENT);
+            stmt.setInt(2, change.getPaymentId());
+            stmt.setString(4, change.getKind().name());
+            memberId = change.getMemberId();
+        } else if (event instanceof MemberChanged) {
+            MemberChanged change = (MemberChanged) event;
+            stmt.setString(1, MEMBER);
+            stmt.setInt(2, change.getMemberId());
+            stmt.setString(4, change.getKind().name());
+            memberId = change.getMemberId();
+        } else if (event instanceof WaitlistChanged) {
+            WaitlistChanged change = (WaitlistChanged) event;
+            stmt.setString(1, WAITLIST);
+            stmt.setInt(2, change.getClassId());
+            stmt.setString(4, change.getKind().name());
+            memberId = change.getMemberId();
+        } else {
+            throw new IllegalArgumentException("No change_log mapping for " + event);
+        }
+
+        if (memberId > 0) {
+            stmt.setInt(3, memberId);
+        } else {
+            stmt.setNull(3, Types.INTEGER);
+        }
+        stmt.setString(5, ORIGIN);
+    }
+
+    /**
+     * Event for the current change_log row, or null for a row this version does not understand
+     */
+    static DomainEvent toEvent(ResultSet rs) throws SQLException {
+        String entityType = rs.getString("entity_type");
+        int entityId = rs.getInt("entity_id");
+        int memberId = rs.getInt("member_id");
+        String kind = rs.getString("change_kind");
+
+        try {
+            switch (entityType) {
+                case CLASS:
+                    return new ClassChanged(entityId, ClassChanged.Kind.valueOf(kind));
+                case BOOKING:
+                    return new BookingChanged(entityId, memberId, BookingChanged.Kind.valueOf(kind));
+                case PAYMENT:
+                    return new PaymentChanged(entityId, memberId, PaymentChanged.Kind.valueOf(kind));
+                case MEMBER:
+                    return new MemberChanged(entityId, MemberChanged.Kind.valueOf(kind));
+                case WAITLIST:
+                    return new WaitlistChanged(entityId, memberId, WaitlistChanged.Kind.valueOf(kind));
+                default:
+                    return null;
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -3,13 +3,20 @@ package com.gymmanagementsystem.dao;
 import com.gymmanagementsystem.model.GymClass;
 import com.gymmanagementsystem.model.Trainer;
 import com.gymmanagementsystem.model.User;
+import com.gymmanagementsystem.util.CancellableQuery;
 import com.gymmanagementsystem.util.DatabaseConnection;
+import com.gymmanagementsystem.util.DomainEvent.BookingChanged;
+import com.gymmanagementsystem.util.DomainEvent.ClassChanged;
+import com.gymmanagementsystem.util.DomainEventBus;
+import com.gymmanagementsystem.util.EntityCache;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -20,6 +27,14 @@ public class ClassDAO {
 
     private static final Logger LOGGER = Logger.getLogger(ClassDAO.class.getName());
 
+    // Most classes returned for one search
+    public static final int SEARCH_LIMIT = 200;
+
+    private final WaitlistDAO waitlistDAO = new WaitlistDAO();
+    private final TrainerCache trainerCache = TrainerCache.getInstance();
+    private final EntityCache<Integer, GymClass> classCache = EntityCaches.classes();
+    private final DomainEventBus events = DomainEventBus.getInstance();
+
     /**
      * Create a new class with enhanced validation
      */
@@ -63,6 +78,10 @@ public class ClassDAO {
                         LOGGER.log(Level.INFO, "Class created successfully: {0}", gymClass.getClassName());
                     }
                 }
+                trainerCache.adjustClassCount(gymClass.getTrainerId(), 1);
+                ClassChanged event = new ClassChanged(gymClass.getId(), ClassChanged.Kind.CREATED);
+                ChangeLog.appendQuietly(conn, event);
+                events.publish(event);
                 return true;
             }
         } catch (SQLException e) {
@@ -76,6 +95,18 @@ public class ClassDAO {
      * Get all classes with enhanced data
      */
     public List<GymClass> getAllClasses() {
+        try {
+            return loadAllClasses();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error retrieving all classes", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Same as getAllClasses, but a database error reaches the caller (used by DashboardReads)
+     */
+    List<GymClass> loadAllClasses() throws SQLException {
         List<GymClass> classes = new ArrayList<>();
         String sql = "SELECT c.*, u.first_name, u.last_name, u.email, u.phone, " +
                 "t.specialization " +
@@ -93,8 +124,6 @@ public class ClassDAO {
             }
 
             LOGGER.log(Level.INFO, "Retrieved {0} classes", classes.size());
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error retrieving all classes", e);
         }
 
         return classes;
@@ -104,6 +133,11 @@ public class ClassDAO {
      * Get class by ID
      */
     public GymClass getClassById(int classId) {
+        GymClass cached = classCache.get(classId);
+        if (cached != null) {
+            return cached;
+        }
+
         String sql = "SELECT c.*, u.first_name, u.last_name, u.email, u.phone, " +
                 "t.specialization " +
                 "FROM classes c " +
@@ -114,10 +148,13 @@ public class ClassDAO {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+            long cacheVersion = classCache.version();
             stmt.setInt(1, classId);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return extractGymClassFromResultSet(rs);
+                    GymClass gymClass = extractGymClassFromResultSet(rs);
+                    classCache.put(classId, gymClass, cacheVersion);
+                    return gymClass;
                 }
             }
         } catch (SQLException e) {
@@ -160,6 +197,18 @@ public class ClassDAO {
      * Get upcoming classes
      */
     public List<GymClass> getUpcomingClasses() {
+        try {
+            return loadUpcomingClasses();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error retrieving upcoming classes", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Same as getUpcomingClasses, but a database error reaches the caller (used by DashboardReads)
+     */
+    List<GymClass> loadUpcomingClasses() throws SQLException {
         List<GymClass> classes = new ArrayList<>();
         String sql = "SELECT c.*, u.first_name, u.last_name, u.email, u.phone, " +
                 "t.specialization " +
@@ -176,8 +225,6 @@ public class ClassDAO {
             while (rs.next()) {
                 classes.add(extractGymClassFromResultSet(rs));
             }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error retrieving upcoming classes", e);
         }
 
         return classes;
@@ -246,40 +293,161 @@ public class ClassDAO {
      * Search classes by name or description
      */
     public List<GymClass> searchClasses(String searchTerm) {
+        return searchClasses(searchTerm, false, SEARCH_LIMIT);
+    }
+
+    /**
+     * Relevance-ranked class search. Class name/description go through the FULLTEXT
+     * indexes (name matches weigh double). Trainer-name matches come from a second
+     * branch, a LIKE '%term%' over the joined users rows that no index can serve; they
+     * rank after text matches. Ties go to upcoming classes first, soonest first, then
+     * past classes, most recent first, so an old class never outranks next week's.
+     *
+     * @param upcomingOnly only scheduled classes that have not started yet
+     */
+    public List<GymClass> searchClasses(String searchTerm, boolean upcomingOnly, int limit) {
+        return searchClasses(searchTerm, upcomingOnly, limit, null);
+    }
+
+    /**
+     * Ranked search, letting the caller cancel the database query (handle may be null)
+     */
+    public List<GymClass> searchClasses(String searchTerm, boolean upcomingOnly, int limit,
+                                        CancellableQuery handle) {
+        String booleanQuery = toBooleanQuery(searchTerm);
+        if (booleanQuery.isEmpty()) {
+            // Only words shorter than the FULLTEXT minimum: match without the index
+            return searchClassesShortTerm(searchTerm, upcomingOnly, limit, handle);
+        }
+
+        // Tie-break columns are selected in both branches, since a UNION can only be ordered by its columns
+        String select = "SELECT c.*, u.first_name, u.last_name, u.email, u.phone, t.specialization, " +
+                "c.start_time > NOW() AS upcoming, ABS(TIMESTAMPDIFF(SECOND, NOW(), c.start_time)) AS distance, ";
+        String from = "FROM classes c " +
+                "JOIN trainers t ON c.trainer_id = t.id " +
+                "JOIN users u ON t.user_id = u.id ";
+        String upcoming = upcomingOnly ? "AND c.start_time > NOW() AND c.status = 'SCHEDULED' " : "";
+
+        String sql = "(" + select +
+                "MATCH(c.class_name) AGAINST (? IN BOOLEAN MODE) * 2 + " +
+                "MATCH(c.class_name, c.description) AGAINST (? IN BOOLEAN MODE) + 1 AS relevance " +
+                from + "WHERE MATCH(c.class_name, c.description) AGAINST (? IN BOOLEAN MODE) " + upcoming +
+                ") UNION ALL (" + select + "0 AS relevance " +
+                from + "WHERE LOWER(CONCAT(u.first_name, ' ', u.last_name)) LIKE ? " + upcoming +
+                ") ORDER BY relevance DESC, upcoming DESC, distance ASC LIMIT ?";
+
+        List<GymClass> classes = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, booleanQuery);
+            stmt.setString(2, booleanQuery);
+            stmt.setString(3, booleanQuery);
+            stmt.setString(4, "%" + likeTerm(searchTerm) + "%");
+            // A class can match both branches; read enough rows to still fill the limit
+            stmt.setInt(5, limit * 2);
+            CancellableQuery.attach(handle, stmt);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next() && classes.size() < limit) {
+                    // Rows arrive best-first, so the first copy of a class is its best rank
+                    if (seen.add(rs.getInt("id"))) {
+                        classes.add(extractGymClassFromResultSet(rs));
+                    }
+                }
+            } finally {
+                CancellableQuery.detach(handle, stmt);
+            }
+
+            LOGGER.log(Level.INFO, "Search found {0} classes for term: {1}",
+                    new Object[]{classes.size(), searchTerm});
+        } catch (SQLException e) {
+            if (CancellableQuery.isCancelled(handle)) {
+                LOGGER.log(Level.FINE, "Class search cancelled for term: {0}", searchTerm);
+            } else {
+                LOGGER.log(Level.SEVERE, "Error searching classes", e);
+            }
+        }
+
+        return classes;
+    }
+
+    /**
+     * Search for terms too short for the FULLTEXT index: class names starting with the
+     * term first, then classes whose name, description or trainer contains it, upcoming
+     * before past as in the ranked search. This scans the joined rows, but only for one-
+     * and two-letter terms.
+     */
+    private List<GymClass> searchClassesShortTerm(String searchTerm, boolean upcomingOnly, int limit,
+                                                  CancellableQuery handle) {
         List<GymClass> classes = new ArrayList<>();
         String sql = "SELECT c.*, u.first_name, u.last_name, u.email, u.phone, " +
                 "t.specialization " +
                 "FROM classes c " +
                 "JOIN trainers t ON c.trainer_id = t.id " +
                 "JOIN users u ON t.user_id = u.id " +
-                "WHERE LOWER(c.class_name) LIKE ? " +
-                "OR LOWER(c.description) LIKE ? " +
-                "OR LOWER(CONCAT(u.first_name, ' ', u.last_name)) LIKE ? " +
-                "ORDER BY c.start_time DESC";
+                "WHERE (LOWER(c.class_name) LIKE ? OR LOWER(c.description) LIKE ? " +
+                "OR LOWER(CONCAT(u.first_name, ' ', u.last_name)) LIKE ?) " +
+                (upcomingOnly ? "AND c.start_time > NOW() AND c.status = 'SCHEDULED' " : "") +
+                "ORDER BY CASE WHEN LOWER(c.class_name) LIKE ? THEN 0 ELSE 1 END, c.start_time <= NOW(), " +
+                "ABS(TIMESTAMPDIFF(SECOND, NOW(), c.start_time)) LIMIT ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            String searchPattern = "%" + searchTerm.toLowerCase() + "%";
-            stmt.setString(1, searchPattern);
-            stmt.setString(2, searchPattern);
-            stmt.setString(3, searchPattern);
+            String term = likeTerm(searchTerm);
+            String contains = "%" + term + "%";
+            stmt.setString(1, contains);
+            stmt.setString(2, contains);
+            stmt.setString(3, contains);
+            stmt.setString(4, term + "%");
+            stmt.setInt(5, limit);
+            CancellableQuery.attach(handle, stmt);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     classes.add(extractGymClassFromResultSet(rs));
                 }
+            } finally {
+                CancellableQuery.detach(handle, stmt);
             }
-
-            LOGGER.log(Level.INFO, "Search found {0} classes for term: {1}",
-                    new Object[]{classes.size(), searchTerm});
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error searching classes", e);
+            if (CancellableQuery.isCancelled(handle)) {
+                LOGGER.log(Level.FINE, "Class search cancelled for term: {0}", searchTerm);
+            } else {
+                LOGGER.log(Level.SEVERE, "Error searching classes", e);
+            }
         }
 
         return classes;
     }
 
+    /**
+     * Lowercased search term with the LIKE wildcards escaped, so "%" or "_" typed by the
+     * user matches literally instead of matching everything
+     */
+    private static String likeTerm(String searchTerm) {
+        return searchTerm.trim().toLowerCase().replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Turn free text into a BOOLEAN MODE query requiring every word as a prefix
+     * ("yoga morn" -> "+yoga* +morn*"). Operator characters are dropped, as are words
+     * below InnoDB's default minimum token size of 3, which the index never contains.
+     */
+    private String toBooleanQuery(String searchTerm) {
+        StringBuilder query = new StringBuilder();
+        for (String word : searchTerm.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() >= 3) {
+                if (query.length() > 0) query.append(' ');
+                query.append('+').append(word).append('*');
+            }
+        }
+        return query.toString();
+    }
+
     /**
      * Get all classes booked by a specific member
      * FIXED: Simplified query without status filter
@@ -384,6 +552,8 @@ public class ClassDAO {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+            Integer previousTrainerId = findTrainerId(conn, gymClass.getId());
+
             stmt.setString(1, gymClass.getClassName());
             stmt.setString(2, gymClass.getDescription());
             stmt.setInt(3, gymClass.getTrainerId());
@@ -397,6 +567,14 @@ public class ClassDAO {
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected > 0) {
                 LOGGER.log(Level.INFO, "Class updated successfully: {0}", gymClass.getClassName());
+                classCache.invalidate(gymClass.getId());
+                if (previousTrainerId != null && previousTrainerId != gymClass.getTrainerId()) {
+                    trainerCache.adjustClassCount(previousTrainerId, -1);
+                    trainerCache.adjustClassCount(gymClass.getTrainerId(), 1);
+                }
+                ClassChanged event = new ClassChanged(gymClass.getId(), ClassChanged.Kind.UPDATED);
+                ChangeLog.appendQuietly(conn, event);
+                events.publish(event);
                 return true;
             }
         } catch (SQLException e) {
@@ -415,11 +593,21 @@ public class ClassDAO {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+            Integer trainerId = findTrainerId(conn, classId);
+
             stmt.setInt(1, classId);
             int rowsAffected = stmt.executeUpdate();
 
             if (rowsAffected > 0) {
+                waitlistDAO.forgetClass(classId);
+                classCache.invalidate(classId);
+                if (trainerId != null) {
+                    trainerCache.adjustClassCount(trainerId, -1);
+                }
                 LOGGER.log(Level.INFO, "Class deleted: ID {0}", classId);
+                ClassChanged event = new ClassChanged(classId, ClassChanged.Kind.DELETED);
+                ChangeLog.appendQuietly(conn, event);
+                events.publish(event);
                 return true;
             }
         } catch (SQLException e) {
@@ -429,6 +617,18 @@ public class ClassDAO {
         return false;
     }
 
+    /**
+     * Trainer currently assigned to a class, or null if the class does not exist
+     */
+    private Integer findTrainerId(Connection conn, int classId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT trainer_id FROM classes WHERE id = ?")) {
+            stmt.setInt(1, classId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt("trainer_id") : null;
+            }
+        }
+    }
+
     /**
      * Check if trainer has conflicting schedule
      */
@@ -497,155 +697,42 @@ public class ClassDAO {
     }
 
     /**
-     * Book a class for a member with proper validation
-     * DIAGNOSTIC VERSION - Shows detailed error information
+     * Book a class for a member without ever exceeding capacity.
+     *
+     * Two statements in one transaction: a locking read of the class row, then the
+     * INSERT (the increment_booking_count trigger bumps current_bookings). Concurrent
+     * bookers for the same class queue on the row lock, so the capacity check always
+     * sees the committed count. Duplicate bookings are rejected by the
+     * (class_id, member_id) unique key instead of a separate SELECT.
      */
     public boolean bookClass(int classId, int memberId) {
-        String checkClassSql = "SELECT id, class_name, max_capacity, current_bookings, status FROM classes WHERE id = ?";
-        String checkBookingSql = "SELECT id FROM class_bookings WHERE class_id = ? AND member_id = ?";
-        String insertSql = "INSERT INTO class_bookings (class_id, member_id, booking_date, status) " +
-                "VALUES (?, ?, NOW(), 'CONFIRMED')";
-
         Connection conn = null;
         try {
             conn = DatabaseConnection.getConnection();
-
-            if (conn == null) {
-                LOGGER.severe("Database connection is NULL!");
-                return false;
-            }
-
-            LOGGER.log(Level.INFO, "=== BOOKING ATTEMPT START ===");
-            LOGGER.log(Level.INFO, "Class ID: {0}, Member ID: {1}", new Object[]{classId, memberId});
-
             conn.setAutoCommit(false);
 
-            // Check class existence and availability
-            int maxCapacity = 0;
-            int currentBookings = 0;
-            String status = "";
-            String className = "";
-
-            try (PreparedStatement checkStmt = conn.prepareStatement(checkClassSql)) {
-                checkStmt.setInt(1, classId);
-                try (ResultSet rs = checkStmt.executeQuery()) {
-                    if (rs.next()) {
-                        className = rs.getString("class_name");
-                        maxCapacity = rs.getInt("max_capacity");
-                        currentBookings = rs.getInt("current_bookings");
-                        status = rs.getString("status");
-
-                        LOGGER.log(Level.INFO, "Class found: {0}", className);
-                        LOGGER.log(Level.INFO, "Max Capacity: {0}, Current Bookings: {1}, Status: {2}",
-                                new Object[]{maxCapacity, currentBookings, status});
-
-                        if (currentBookings >= maxCapacity) {
-                            LOGGER.warning("Class is FULL - cannot book");
-                            conn.rollback();
-                            return false;
-                        }
-
-                        if ("CANCELLED".equals(status) || "COMPLETED".equals(status)) {
-                            LOGGER.warning("Class status is " + status + " - cannot book");
-                            conn.rollback();
-                            return false;
-                        }
-                    } else {
-                        LOGGER.severe("Class ID " + classId + " NOT FOUND in database!");
-                        conn.rollback();
-                        return false;
-                    }
-                }
-            }
-
-            // Check for existing booking
-            try (PreparedStatement checkBookingStmt = conn.prepareStatement(checkBookingSql)) {
-                checkBookingStmt.setInt(1, classId);
-                checkBookingStmt.setInt(2, memberId);
-                try (ResultSet rs = checkBookingStmt.executeQuery()) {
-                    if (rs.next()) {
-                        LOGGER.warning("Member already has a booking for this class (ID: " + rs.getInt("id") + ")");
-                        conn.rollback();
-                        return false;
-                    } else {
-                        LOGGER.info("No existing booking found - proceeding with insert");
-                    }
-                }
-            }
-
-            // Insert booking
-            LOGGER.info("Inserting booking into database...");
-            try (PreparedStatement insertStmt = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
-                insertStmt.setInt(1, classId);
-                insertStmt.setInt(2, memberId);
-
-                int rowsInserted = insertStmt.executeUpdate();
-                LOGGER.log(Level.INFO, "INSERT executed - rows affected: {0}", rowsInserted);
-
-                if (rowsInserted > 0) {
-                    try (ResultSet generatedKeys = insertStmt.getGeneratedKeys()) {
-                        if (generatedKeys.next()) {
-                            int bookingId = generatedKeys.getInt(1);
-                            LOGGER.log(Level.INFO, "Booking created with ID: {0}", bookingId);
-                        }
-                    }
-                } else {
-                    LOGGER.severe("INSERT failed - no rows affected!");
-                    conn.rollback();
-                    return false;
-                }
-            }
-
-            // Verify the trigger worked
-            try (PreparedStatement verifyStmt = conn.prepareStatement(
-                    "SELECT current_bookings FROM classes WHERE id = ?")) {
-                verifyStmt.setInt(1, classId);
-                try (ResultSet rs = verifyStmt.executeQuery()) {
-                    if (rs.next()) {
-                        int newBookings = rs.getInt("current_bookings");
-                        LOGGER.log(Level.INFO, "After insert - current_bookings: {0} (was {1})",
-                                new Object[]{newBookings, currentBookings});
-                    }
-                }
+            if (reserveSpot(conn, classId, memberId) != ReservationResult.RESERVED) {
+                conn.rollback();
+                return false;
             }
 
+            BookingChanged event = new BookingChanged(classId, memberId, BookingChanged.Kind.CREATED);
+            ChangeLog.append(conn, event);
             conn.commit();
-            LOGGER.log(Level.INFO, "=== BOOKING SUCCESS - Transaction committed ===");
+            classCache.invalidate(classId);
+            LOGGER.log(Level.INFO, "Class booked: Class ID {0}, Member ID {1}", new Object[]{classId, memberId});
+            events.publish(event);
             return true;
 
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "=== SQL EXCEPTION ===");
-            LOGGER.log(Level.SEVERE, "Error Code: " + e.getErrorCode());
-            LOGGER.log(Level.SEVERE, "SQL State: " + e.getSQLState());
-            LOGGER.log(Level.SEVERE, "Message: " + e.getMessage(), e);
-
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                    LOGGER.log(Level.INFO, "Transaction rolled back");
-                } catch (SQLException ex) {
-                    LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
-                }
-            }
-            return false;
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "=== UNEXPECTED EXCEPTION ===");
-            LOGGER.log(Level.SEVERE, "Error: " + e.getMessage(), e);
-
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    LOGGER.log(Level.SEVERE, "Error rolling back", ex);
-                }
-            }
+            LOGGER.log(Level.SEVERE, "Error booking class", e);
+            rollbackQuietly(conn);
             return false;
         } finally {
             if (conn != null) {
                 try {
                     conn.setAutoCommit(true);
                     conn.close();
-                    LOGGER.info("Connection closed");
                 } catch (SQLException e) {
                     LOGGER.log(Level.SEVERE, "Error closing connection", e);
                 }
@@ -654,53 +741,107 @@ public class ClassDAO {
     }
 
     /**
-     * Cancel a class booking
-     * FIXED VERSION - Relies on database trigger for current_bookings decrement
+     * Outcome of trying to reserve a spot in a class
      */
+    public enum ReservationResult { RESERVED, NOT_FOUND, FULL, NOT_BOOKABLE, ALREADY_BOOKED }
+
     /**
-     * Cancel a class booking
-     * FIXED VERSION - Checks for any booking record, not just CONFIRMED status
+     * Lock the class row, check capacity/status and insert the booking on the caller's
+     * connection. The caller owns the transaction and must roll back unless RESERVED,
+     * and should invalidate the class in EntityCaches once it has committed.
+     */
+    ReservationResult reserveSpot(Connection conn, int classId, int memberId) throws SQLException {
+        String lockClassSql = "SELECT max_capacity, current_bookings, status FROM classes WHERE id = ? FOR UPDATE";
+        String insertSql = "INSERT INTO class_bookings (class_id, member_id, booking_date, status) " +
+                "VALUES (?, ?, NOW(), 'CONFIRMED')";
+
+        // Lock the class row and check capacity/status
+        try (PreparedStatement lockStmt = conn.prepareStatement(lockClassSql)) {
+            lockStmt.setInt(1, classId);
+            try (ResultSet rs = lockStmt.executeQuery()) {
+                if (!rs.next()) {
+                    LOGGER.warning("Class ID " + classId + " not found - cannot book");
+                    return ReservationResult.NOT_FOUND;
+                }
+
+                int maxCapacity = rs.getInt("max_capacity");
+                int currentBookings = rs.getInt("current_bookings");
+                String status = rs.getString("status");
+
+                if (currentBookings >= maxCapacity) {
+                    LOGGER.log(Level.INFO, "Class {0} is full ({1}/{2}) - cannot book",
+                            new Object[]{classId, currentBookings, maxCapacity});
+                    return ReservationResult.FULL;
+                }
+
+                if (!isBookable(status)) {
+                    LOGGER.log(Level.INFO, "Class {0} is {1} - cannot book", new Object[]{classId, status});
+                    return ReservationResult.NOT_BOOKABLE;
+                }
+            }
+        }
+
+        // Insert booking (trigger increments current_bookings under the same lock)
+        try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+            insertStmt.setInt(1, classId);
+            insertStmt.setInt(2, memberId);
+
+            return insertStmt.executeUpdate() > 0 ? ReservationResult.RESERVED : ReservationResult.NOT_FOUND;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            LOGGER.log(Level.INFO, "Member {0} already has a booking for class {1}",
+                    new Object[]{memberId, classId});
+            return ReservationResult.ALREADY_BOOKED;
+        }
+    }
+
+    /**
+     * Statuses that still take bookings; FULL only means there was no spot at the last sweep
+     */
+    private static boolean isBookable(String status) {
+        return !GymClass.STATUS_CANCELLED.equals(status) && !GymClass.STATUS_COMPLETED.equals(status);
+    }
+
+    private void rollbackQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
+            }
+        }
+    }
+
+    /**
+     * Cancel a class booking and hand the freed spot to the next waitlisted member.
+     *
+     * The class row is locked first so the delete, the trigger's decrement and the
+     * waitlist promotion all commit together; bookers for the same class wait on
+     * the lock and never see the transient free spot.
      */
     public boolean cancelBooking(int classId, int memberId) {
-        // First check if booking exists
-        String checkSql = "SELECT id, status FROM class_bookings WHERE class_id = ? AND member_id = ?";
+        String lockClassSql = "SELECT status, start_time FROM classes WHERE id = ? FOR UPDATE";
         String deleteSql = "DELETE FROM class_bookings WHERE class_id = ? AND member_id = ?";
+        String reopenSql = "UPDATE classes SET status = 'SCHEDULED' " +
+                "WHERE id = ? AND status = 'FULL' AND current_bookings < max_capacity";
 
         Connection conn = null;
+        int promotedMemberId = -1;
         try {
             conn = DatabaseConnection.getConnection();
-
-            if (conn == null) {
-                LOGGER.severe("Database connection is NULL!");
-                return false;
-            }
-
             conn.setAutoCommit(false);
 
-            LOGGER.log(Level.INFO, "=== CANCEL BOOKING ATTEMPT START ===");
-            LOGGER.log(Level.INFO, "Class ID: {0}, Member ID: {1}", new Object[]{classId, memberId});
-
-            // Check if booking exists
-            int bookingId = -1;
-            String bookingStatus = null;
-            try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
-                checkStmt.setInt(1, classId);
-                checkStmt.setInt(2, memberId);
-                try (ResultSet rs = checkStmt.executeQuery()) {
+            // Lock the class row; only upcoming bookable classes (FULL included) promote from the waitlist
+            boolean canPromote = false;
+            boolean wasFull = false;
+            try (PreparedStatement lockStmt = conn.prepareStatement(lockClassSql)) {
+                lockStmt.setInt(1, classId);
+                try (ResultSet rs = lockStmt.executeQuery()) {
                     if (rs.next()) {
-                        bookingId = rs.getInt("id");
-                        try {
-                            bookingStatus = rs.getString("status");
-                            LOGGER.log(Level.INFO, "Booking found - ID: {0}, Status: {1}",
-                                    new Object[]{bookingId, bookingStatus});
-                        } catch (SQLException e) {
-                            // Status column might not exist
-                            LOGGER.info("Status column not found, proceeding without status check");
-                        }
-                    } else {
-                        LOGGER.warning("No booking found for Class ID: " + classId + ", Member ID: " + memberId);
-                        conn.rollback();
-                        return false;
+                        String status = rs.getString("status");
+                        Timestamp startTime = rs.getTimestamp("start_time");
+                        canPromote = isBookable(status)
+                                && startTime != null && startTime.after(new Timestamp(System.currentTimeMillis()));
+                        wasFull = GymClass.STATUS_FULL.equals(status);
                     }
                 }
             }
@@ -709,81 +850,59 @@ public class ClassDAO {
             try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSql)) {
                 deleteStmt.setInt(1, classId);
                 deleteStmt.setInt(2, memberId);
-                int rowsAffected = deleteStmt.executeUpdate();
-
-                LOGGER.log(Level.INFO, "DELETE executed - rows affected: {0}", rowsAffected);
 
-                if (rowsAffected == 0) {
-                    LOGGER.warning("DELETE failed - no rows affected");
+                if (deleteStmt.executeUpdate() == 0) {
+                    LOGGER.warning("No booking found for Class ID: " + classId + ", Member ID: " + memberId);
                     conn.rollback();
                     return false;
                 }
             }
 
-            // Verify deletion
-            try (PreparedStatement verifyStmt = conn.prepareStatement(
-                    "SELECT COUNT(*) FROM class_bookings WHERE class_id = ? AND member_id = ?")) {
-                verifyStmt.setInt(1, classId);
-                verifyStmt.setInt(2, memberId);
-                try (ResultSet rs = verifyStmt.executeQuery()) {
-                    if (rs.next()) {
-                        int count = rs.getInt(1);
-                        LOGGER.log(Level.INFO, "After delete - remaining bookings: {0}", count);
-                    }
-                }
+            if (canPromote) {
+                promotedMemberId = waitlistDAO.promoteNext(conn, classId);
             }
 
-            // Verify current_bookings was decremented
-            try (PreparedStatement verifyStmt = conn.prepareStatement(
-                    "SELECT current_bookings FROM classes WHERE id = ?")) {
-                verifyStmt.setInt(1, classId);
-                try (ResultSet rs = verifyStmt.executeQuery()) {
-                    if (rs.next()) {
-                        int currentBookings = rs.getInt("current_bookings");
-                        LOGGER.log(Level.INFO, "After cancel - current_bookings: {0}", currentBookings);
-                    }
+            // Nobody took the freed spot: the class is open for booking again
+            if (wasFull && promotedMemberId == -1) {
+                try (PreparedStatement reopenStmt = conn.prepareStatement(reopenSql)) {
+                    reopenStmt.setInt(1, classId);
+                    reopenStmt.executeUpdate();
                 }
             }
 
+            BookingChanged cancelled = new BookingChanged(classId, memberId, BookingChanged.Kind.CANCELLED);
+            BookingChanged promoted = promotedMemberId != -1
+                    ? new BookingChanged(classId, promotedMemberId, BookingChanged.Kind.CREATED) : null;
+            if (promoted != null) {
+                ChangeLog.append(conn, cancelled, promoted);
+            } else {
+                ChangeLog.append(conn, cancelled);
+            }
+
             conn.commit();
-            LOGGER.log(Level.INFO, "=== CANCEL BOOKING SUCCESS - Transaction committed ===");
+            classCache.invalidate(classId);
             LOGGER.log(Level.INFO, "Booking cancelled: Class ID {0}, Member ID {1}",
                     new Object[]{classId, memberId});
-            return true;
 
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "=== SQL EXCEPTION DURING CANCEL ===");
-            LOGGER.log(Level.SEVERE, "Error Code: " + e.getErrorCode());
-            LOGGER.log(Level.SEVERE, "SQL State: " + e.getSQLState());
-            LOGGER.log(Level.SEVERE, "Message: " + e.getMessage(), e);
+            events.publish(cancelled);
 
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                    LOGGER.info("Transaction rolled back");
-                } catch (SQLException ex) {
-                    LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
-                }
+            if (promotedMemberId != -1) {
+                waitlistDAO.onPromoted(classId, promotedMemberId);
+                LOGGER.log(Level.INFO, "Promoted member {0} from waitlist into class {1}",
+                        new Object[]{promotedMemberId, classId});
+                events.publish(promoted);
             }
-            return false;
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "=== UNEXPECTED EXCEPTION DURING CANCEL ===");
-            LOGGER.log(Level.SEVERE, "Error: " + e.getMessage(), e);
+            return true;
 
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    LOGGER.log(Level.SEVERE, "Error rolling back", ex);
-                }
-            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error cancelling booking", e);
+            rollbackQuietly(conn);
             return false;
         } finally {
             if (conn != null) {
                 try {
                     conn.setAutoCommit(true);
                     conn.close();
-                    LOGGER.info("Connection closed");
                 } catch (SQLException e) {
                     LOGGER.log(Level.SEVERE, "Error closing connection", e);
                 }
@@ -791,6 +910,48 @@ public class ClassDAO {
         }
     }
 
+    /**
+     * Delete every booking a member holds, on the caller's connection, ahead of deleting
+     * the member. The foreign-key cascade fires no triggers, so it would leave the
+     * classes' current_bookings, and DailyRollupJob's class facts, counting the member.
+     * Explicit deletes run the booking-count trigger, which also marks the classes
+     * changed for the rollup.
+     *
+     * @return one CANCELLED event per class, for the caller to log before its commit and
+     *         hand to {@link #onBookingsDeleted} after it
+     */
+    List<BookingChanged> deleteBookingsOfMember(Connection conn, int memberId) throws SQLException {
+        String selectSql = "SELECT class_id FROM class_bookings WHERE member_id = ? ORDER BY class_id";
+        String deleteSql = "DELETE FROM class_bookings WHERE member_id = ?";
+
+        List<BookingChanged> cancelled = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+            stmt.setInt(1, memberId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    cancelled.add(new BookingChanged(rs.getInt("class_id"), memberId, BookingChanged.Kind.CANCELLED));
+                }
+            }
+        }
+        if (cancelled.isEmpty()) return cancelled;
+
+        try (PreparedStatement stmt = conn.prepareStatement(deleteSql)) {
+            stmt.setInt(1, memberId);
+            stmt.executeUpdate();
+        }
+        return cancelled;
+    }
+
+    /**
+     * After the commit: drop the cached classes and tell open screens
+     */
+    void onBookingsDeleted(List<BookingChanged> cancelled) {
+        for (BookingChanged event : cancelled) {
+            classCache.invalidate(event.getClassId());
+            events.publish(event);
+        }
+    }
+
     /**
      * Get class statistics
      */
@@ -854,23 +1015,29 @@ public class ClassDAO {
         return classes;
     }
 
+    // Only rows whose status would change, so the update count is the real number of changes
+    private static final String STATUS_SWEEP_SQL = "UPDATE classes SET status = CASE " +
+            "WHEN end_time < NOW() THEN 'COMPLETED' " +
+            "WHEN start_time <= NOW() THEN 'IN_PROGRESS' " +
+            "ELSE 'FULL' END " +
+            "WHERE status IN ('SCHEDULED', 'IN_PROGRESS', 'FULL') " +
+            "AND (end_time < NOW() " +
+            "OR (status = 'SCHEDULED' AND (start_time <= NOW() OR current_bookings >= max_capacity)))";
+
+    private static final String SWEEP_JOB_NAME = "class_status";
+
     /**
      * Update class statuses based on current time
      */
     public int updateClassStatuses() {
-        String sql = "UPDATE classes SET status = CASE " +
-                "WHEN end_time < NOW() AND status != 'CANCELLED' THEN 'COMPLETED' " +
-                "WHEN start_time <= NOW() AND end_time > NOW() AND status = 'SCHEDULED' THEN 'IN_PROGRESS' " +
-                "WHEN current_bookings >= max_capacity AND status = 'SCHEDULED' THEN 'FULL' " +
-                "ELSE status END " +
-                "WHERE status IN ('SCHEDULED', 'IN_PROGRESS', 'FULL')";
-
         try (Connection conn = DatabaseConnection.getConnection();
              Statement stmt = conn.createStatement()) {
 
-            int updated = stmt.executeUpdate(sql);
+            int updated = stmt.executeUpdate(STATUS_SWEEP_SQL);
             if (updated > 0) {
-                LOGGER.log(Level.INFO, "Updated {0} class statuses", updated);
+                ClassChanged event = new ClassChanged(ClassChanged.ALL_CLASSES, ClassChanged.Kind.UPDATED);
+                ChangeLog.appendQuietly(conn, event);
+                onStatusesSwept(updated, event);
             }
             return updated;
         } catch (SQLException e) {
@@ -880,6 +1047,84 @@ public class ClassDAO {
         return 0;
     }
 
+    /**
+     * The scheduled sweep: run updateClassStatuses unless another client already swept
+     * within minIntervalMillis. The last sweep time lives in rollup_state and its row
+     * is locked for the sweep, so of all the clients running the job only one sweeps
+     * per interval.
+     *
+     * @return classes updated, 0 when skipped
+     */
+    public int updateClassStatusesIfDue(long minIntervalMillis) {
+        String lockSql = "SELECT high_water_mark, CURRENT_TIMESTAMP AS now FROM rollup_state " +
+                "WHERE job_name = ? FOR UPDATE";
+        String updateMarkSql = "UPDATE rollup_state SET high_water_mark = CURRENT_TIMESTAMP WHERE job_name = ?";
+        String insertMarkSql = "INSERT INTO rollup_state (job_name, high_water_mark) VALUES (?, CURRENT_TIMESTAMP)";
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            boolean hasMark = false;
+            try (PreparedStatement stmt = conn.prepareStatement(lockSql)) {
+                stmt.setString(1, SWEEP_JOB_NAME);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        hasMark = true;
+                        Timestamp lastSweep = rs.getTimestamp("high_water_mark");
+                        Timestamp now = rs.getTimestamp("now");
+                        if (lastSweep != null && now.getTime() - lastSweep.getTime() < minIntervalMillis) {
+                            conn.rollback();
+                            return 0;
+                        }
+                    }
+                }
+            }
+
+            int updated;
+            try (Statement stmt = conn.createStatement()) {
+                updated = stmt.executeUpdate(STATUS_SWEEP_SQL);
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(hasMark ? updateMarkSql : insertMarkSql)) {
+                stmt.setString(1, SWEEP_JOB_NAME);
+                stmt.executeUpdate();
+            }
+
+            ClassChanged event = new ClassChanged(ClassChanged.ALL_CLASSES, ClassChanged.Kind.UPDATED);
+            if (updated > 0) {
+                ChangeLog.append(conn, event);
+            }
+            conn.commit();
+
+            if (updated > 0) {
+                onStatusesSwept(updated, event);
+            }
+            return updated;
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error updating class statuses", e);
+            rollbackQuietly(conn);
+            return 0;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.SEVERE, "Error closing connection", e);
+                }
+            }
+        }
+    }
+
+    private void onStatusesSwept(int updated, ClassChanged event) {
+        LOGGER.log(Level.INFO, "Updated {0} class statuses", updated);
+        classCache.invalidateAll();
+        events.publish(event);
+    }
+
     /**
      * Helper method to extract GymClass from ResultSet
      */
@@ -0,0 +1,70 @@
+package com.gymmanagementsystem.dao;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Moves classes to IN_PROGRESS / COMPLETED / FULL as time passes.
+ *
+ * Replaces the per-screen polling timer. Every client schedules the job on a daemon
+ * thread, but the last sweep time is shared in rollup_state, so only one client
+ * sweeps per interval; the others skip. The sweep updates only classes whose status
+ * changes, and only when there are some does ClassDAO publish a ClassChanged event
+ * (and log it for other clients) for open screens to pick up.
+ */
+public class ClassStatusJob {
+
+    private static final Logger LOGGER = Logger.getLogger(ClassStatusJob.class.getName());
+
+    private static final long INTERVAL_MINUTES = 5;
+    // Clients' timers drift apart; a sweep this close to the last one is not needed yet
+    private static final long MIN_SWEEP_GAP_MILLIS = TimeUnit.MINUTES.toMillis(INTERVAL_MINUTES) - 30_000;
+
+    private static ClassStatusJob instance;
+
+    private final ClassDAO classDAO = new ClassDAO();
+    private ScheduledExecutorService scheduler;
+
+    private ClassStatusJob() {}
+
+    public static synchronized ClassStatusJob getInstance() {
+        if (instance == null) {
+            instance = new ClassStatusJob();
+        }
+        return instance;
+    }
+
+    /**
+     * Run the sweep now and then every few minutes on a daemon thread
+     */
+    public synchronized void start() {
+        if (scheduler != null) return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "class-status");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runOnce, 0, INTERVAL_MINUTES, TimeUnit.MINUTES);
+        LOGGER.info("Class status job scheduled every " + INTERVAL_MINUTES + " minutes");
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void runOnce() {
+        try {
+            classDAO.updateClassStatusesIfDue(MIN_SWEEP_GAP_MILLIS);
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; the next run tries again
+            LOGGER.log(Level.SEVERE, "Class status sweep failed", e);
+        }
+    }
+}
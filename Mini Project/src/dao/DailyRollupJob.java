@@ -0,0 +1,316 @@
+package com.gymmanagementsystem.dao;
+
+import com.gymmanagementsystem.util.DatabaseConnection;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the daily fact tables (daily_payment_facts, daily_class_facts) in step with
+ * payments, classes and class_bookings.
+ *
+ * Each run reads the high-water mark from rollup_state, finds the days and classes
+ * touched by rows whose updated_at is past it, recomputes just those facts and
+ * advances the mark, all in one transaction. The first run (no mark yet) builds
+ * everything. Recomputing a day is idempotent, so the small overlap below only
+ * costs a little repeated work and covers rows committed late by long transactions.
+ *
+ * A payment moved to another day, or deleted, leaves nothing behind on the day it
+ * left, so triggers on payments record that day in payment_fact_stale_days; each
+ * run recomputes those days as well and clears them. Foreign-key cascades skip
+ * triggers, so member deletes remove the member's bookings and payments explicitly
+ * (MemberDAO.deleteHistory) before the member row.
+ */
+public class DailyRollupJob {
+
+    private static final Logger LOGGER = Logger.getLogger(DailyRollupJob.class.getName());
+
+    private static final String JOB_NAME = "daily_facts";
+    private static final long OVERLAP_MILLIS = 60_000;
+    private static final long INTERVAL_MINUTES = 5;
+
+    private static DailyRollupJob instance;
+
+    private ScheduledExecutorService scheduler;
+
+    private DailyRollupJob() {}
+
+    public static synchronized DailyRollupJob getInstance() {
+        if (instance == null) {
+            instance = new DailyRollupJob();
+        }
+        return instance;
+    }
+
+    /**
+     * Run the job now and then every few minutes on a daemon thread
+     */
+    public synchronized void start() {
+        if (scheduler != null) return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "daily-rollup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runIncremental, 0, INTERVAL_MINUTES, TimeUnit.MINUTES);
+        LOGGER.info("Daily rollup job scheduled every " + INTERVAL_MINUTES + " minutes");
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Bring the fact tables up to date with everything changed since the last run
+     */
+    public synchronized boolean runIncremental() {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            Timestamp runStart = currentDbTime(conn);
+            Timestamp mark = readHighWaterMark(conn);
+
+            int days;
+            int classes;
+            if (mark == null) {
+                days = rebuildPaymentFacts(conn);
+                classes = rebuildClassFacts(conn);
+            } else {
+                Timestamp since = new Timestamp(mark.getTime() - OVERLAP_MILLIS);
+                days = refreshPaymentDays(conn, since);
+                classes = refreshClasses(conn, since);
+            }
+
+            writeHighWaterMark(conn, runStart);
+            conn.commit();
+
+            if (days > 0 || classes > 0) {
+                LOGGER.log(Level.INFO, "Daily rollup refreshed {0} payment days and {1} classes",
+                        new Object[]{days, classes});
+            }
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error running daily rollup job", e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
+                }
+            }
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.SEVERE, "Error closing connection", e);
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Forget the high-water mark so the next run rebuilds every fact, e.g. after rows
+     * were deleted outside the application. Cascaded deletes fire no triggers and leave
+     * no updated_at behind, which is why MemberDAO deletes a member's bookings and
+     * payments explicitly first.
+     */
+    public synchronized boolean rebuildAll() {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("DELETE FROM rollup_state WHERE job_name = ?")) {
+            stmt.setString(1, JOB_NAME);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error resetting daily rollup job", e);
+            return false;
+        }
+        return runIncremental();
+    }
+
+    // ==================== PAYMENTS ====================
+
+    private int rebuildPaymentFacts(Connection conn) throws SQLException {
+        String insertSql = "INSERT INTO daily_payment_facts " +
+                "(fact_date, status, payment_method, payment_type, payment_count, amount_total, refund_total) " +
+                "SELECT DATE(payment_date), status, payment_method, payment_type, COUNT(*), " +
+                "COALESCE(SUM(final_amount), 0), COALESCE(SUM(refund_amount), 0) " +
+                "FROM payments GROUP BY DATE(payment_date), status, payment_method, payment_type";
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM daily_payment_facts");
+            stmt.executeUpdate("DELETE FROM payment_fact_stale_days");
+            return stmt.executeUpdate(insertSql);
+        }
+    }
+
+    private int refreshPaymentDays(Connection conn, Timestamp since) throws SQLException {
+        String changedSql = "SELECT DISTINCT DATE(payment_date) AS fact_date FROM payments WHERE updated_at >= ?";
+        String staleSql = "SELECT fact_date FROM payment_fact_stale_days FOR UPDATE";
+        String clearStaleSql = "DELETE FROM payment_fact_stale_days WHERE fact_date = ?";
+        String deleteSql = "DELETE FROM daily_payment_facts WHERE fact_date = ?";
+        String insertSql = "INSERT INTO daily_payment_facts " +
+                "(fact_date, status, payment_method, payment_type, payment_count, amount_total, refund_total) " +
+                "SELECT ?, status, payment_method, payment_type, COUNT(*), " +
+                "COALESCE(SUM(final_amount), 0), COALESCE(SUM(refund_amount), 0) " +
+                "FROM payments WHERE payment_date >= ? AND payment_date < ? " +
+                "GROUP BY status, payment_method, payment_type";
+
+        Set<Date> days = new LinkedHashSet<>();
+        try (PreparedStatement stmt = conn.prepareStatement(changedSql)) {
+            stmt.setTimestamp(1, since);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    days.add(rs.getDate("fact_date"));
+                }
+            }
+        }
+
+        // Days a payment moved away from (or was deleted from)
+        List<Date> staleDays = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(staleSql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                staleDays.add(rs.getDate("fact_date"));
+            }
+        }
+        if (!staleDays.isEmpty()) {
+            try (PreparedStatement stmt = conn.prepareStatement(clearStaleSql)) {
+                for (Date day : staleDays) {
+                    stmt.setDate(1, day);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            days.addAll(staleDays);
+        }
+        if (days.isEmpty()) return 0;
+
+        try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSql);
+             PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+            for (Date day : days) {
+                deleteStmt.setDate(1, day);
+                deleteStmt.addBatch();
+
+                insertStmt.setDate(1, day);
+                insertStmt.setTimestamp(2, Timestamp.valueOf(day.toLocalDate().atStartOfDay()));
+                insertStmt.setTimestamp(3, Timestamp.valueOf(day.toLocalDate().plusDays(1).atStartOfDay()));
+                insertStmt.addBatch();
+            }
+            deleteStmt.executeBatch();
+            insertStmt.executeBatch();
+        }
+
+        return days.size();
+    }
+
+    // ==================== CLASSES ====================
+
+    private static final String CLASS_FACTS_SELECT =
+            "SELECT DATE(c.start_time), c.id, " +
+            "COUNT(CASE WHEN b.status <> 'CANCELLED' THEN 1 END), " +
+            "COUNT(CASE WHEN b.status = 'ATTENDED' THEN 1 END) " +
+            "FROM classes c LEFT JOIN class_bookings b ON b.class_id = c.id ";
+
+    private int rebuildClassFacts(Connection conn) throws SQLException {
+        String insertSql = "INSERT INTO daily_class_facts (fact_date, class_id, booking_count, attended_count) " +
+                CLASS_FACTS_SELECT + "GROUP BY c.id, DATE(c.start_time)";
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM daily_class_facts");
+            return stmt.executeUpdate(insertSql);
+        }
+    }
+
+    /**
+     * Classes whose row changed (the booking-count triggers bump classes.updated_at on
+     * every booking insert/delete) or whose bookings changed status
+     */
+    private int refreshClasses(Connection conn, Timestamp since) throws SQLException {
+        String changedSql = "SELECT id FROM classes WHERE updated_at >= ? " +
+                "UNION SELECT class_id FROM class_bookings WHERE updated_at >= ?";
+        String deleteSql = "DELETE FROM daily_class_facts WHERE class_id = ?";
+        String insertSql = "INSERT INTO daily_class_facts (fact_date, class_id, booking_count, attended_count) " +
+                CLASS_FACTS_SELECT + "WHERE c.id = ? GROUP BY c.id, DATE(c.start_time)";
+
+        List<Integer> classIds = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(changedSql)) {
+            stmt.setTimestamp(1, since);
+            stmt.setTimestamp(2, since);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    classIds.add(rs.getInt(1));
+                }
+            }
+        }
+        if (classIds.isEmpty()) return 0;
+
+        try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSql);
+             PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+            for (int classId : classIds) {
+                deleteStmt.setInt(1, classId);
+                deleteStmt.addBatch();
+                insertStmt.setInt(1, classId);
+                insertStmt.addBatch();
+            }
+            deleteStmt.executeBatch();
+            insertStmt.executeBatch();
+        }
+
+        return classIds.size();
+    }
+
+    // ==================== STATE ====================
+
+    private Timestamp currentDbTime(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT CURRENT_TIMESTAMP")) {
+            rs.next();
+            return rs.getTimestamp(1);
+        }
+    }
+
+    private Timestamp readHighWaterMark(Connection conn) throws SQLException {
+        String sql = "SELECT high_water_mark FROM rollup_state WHERE job_name = ? FOR UPDATE";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, JOB_NAME);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getTimestamp("high_water_mark") : null;
+            }
+        }
+    }
+
+    private void writeHighWaterMark(Connection conn, Timestamp mark) throws SQLException {
+        String updateSql = "UPDATE rollup_state SET high_water_mark = ? WHERE job_name = ?";
+        String insertSql = "INSERT INTO rollup_state (job_name, high_water_mark) VALUES (?, ?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+            stmt.setTimestamp(1, mark);
+            stmt.setString(2, JOB_NAME);
+            if (stmt.executeUpdate() > 0) return;
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
+            stmt.setString(1, JOB_NAME);
+            stmt.setTimestamp(2, mark);
+            stmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.gymmanagementsystem.dao;
+
+import com.gymmanagementsystem.util.DaoExecutor;
+import com.gymmanagementsystem.util.DatabaseConnection;
+import com.gymmanagementsystem.util.DomainEvent.BookingChanged;
+import com.gymmanagementsystem.util.DomainEvent.ClassChanged;
+import com.gymmanagementsystem.util.DomainEvent.PaymentChanged;
+import com.gymmanagementsystem.util.DomainEventBus;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headline numbers for the admin dashboard, computed in a single query.
+ *
+ * Member, class and payment aggregates are each one pass over their table,
+ * joined into one row, instead of a round trip per figure. The pending count
+ * comes from payment_status_summary. The last snapshot is kept for TTL_MILLIS and
+ * shared by every dashboard opened in this client; once it is older than
+ * REFRESH_AHEAD_MILLIS a read still gets it immediately while a fresh one loads
+ * in the background, so opening the dashboard only waits on the database the
+ * very first time. Booking, payment and class events mark the snapshot dirty, so
+ * the next read refreshes it in the background even if it is still young.
+ */
+public class DashboardKpiService {
+
+    private static final Logger LOGGER = Logger.getLogger(DashboardKpiService.class.getName());
+
+    private static final long TTL_MILLIS = 60_000;
+    private static final long REFRESH_AHEAD_MILLIS = 20_000;
+    private static final int EXPIRING_WITHIN_DAYS = 7;
+
+    private static final String KPI_SQL = "SELECT m.active_members, m.expiring_soon, m.new_this_month, " +
+            "c.total_classes, c.classes_today, c.booked_today, c.capacity_today, c.trainers_today, " +
+            "(SELECT COUNT(*) FROM trainers) AS total_trainers, " +
+            "(SELECT COALESCE(SUM(final_amount), 0) FROM payments " +
+            "   WHERE status = 'COMPLETED' AND payment_date >= ?) AS revenue_month_to_date, " +
+            "(SELECT COALESCE(MAX(payment_count), 0) FROM payment_status_summary " +
+            "   WHERE status = 'PENDING') AS pending_payments " +
+            "FROM (SELECT " +
+            "   COUNT(CASE WHEN membership_status = 'ACTIVE' THEN 1 END) AS active_members, " +
+            "   COUNT(CASE WHEN membership_status = 'ACTIVE' " +
+            "       AND membership_end_date >= ? AND membership_end_date <= ? THEN 1 END) AS expiring_soon, " +
+            "   COUNT(CASE WHEN membership_start_date >= ? THEN 1 END) AS new_this_month " +
+            "   FROM members) m " +
+            "CROSS JOIN (SELECT " +
+            "   COUNT(*) AS total_classes, " +
+            "   COUNT(CASE WHEN start_time >= ? AND start_time < ? AND status <> 'CANCELLED' THEN 1 END) AS classes_today, " +
+            "   COALESCE(SUM(CASE WHEN start_time >= ? AND start_time < ? AND status <> 'CANCELLED' " +
+            "       THEN current_bookings END), 0) AS booked_today, " +
+            "   COALESCE(SUM(CASE WHEN start_time >= ? AND start_time < ? AND status <> 'CANCELLED' " +
+            "       THEN max_capacity END), 0) AS capacity_today, " +
+            "   COUNT(DISTINCT CASE WHEN start_time >= ? AND start_time < ? AND status <> 'CANCELLED' " +
+            "       THEN trainer_id END) AS trainers_today " +
+            "   FROM classes) c";
+
+    private static DashboardKpiService instance;
+
+    private volatile Kpis latest;
+    private volatile boolean dirty;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private DashboardKpiService() {
+        DomainEventBus bus = DomainEventBus.getInstance();
+        bus.subscribe(BookingChanged.class, event -> dirty = true);
+        bus.subscribe(PaymentChanged.class, event -> dirty = true);
+        bus.subscribe(ClassChanged.class, event -> dirty = true);
+    }
+
+    public static synchronized DashboardKpiService getInstance() {
+        if (instance == null) {
+            instance = new DashboardKpiService();
+        }
+        return instance;
+    }
+
+    /**
+     * Last snapshot, or null if nothing has loaded yet (never touches the database)
+     */
+    public Kpis peek() {
+        return latest;
+    }
+
+    /**
+     * Current snapshot: the cached one while it is within the TTL, otherwise a fresh
+     * load. Call off the FX thread.
+     */
+    public Kpis get() throws SQLException {
+        Kpis current = latest;
+        if (current != null && current.getAgeMillis() < TTL_MILLIS) {
+            if (dirty || current.getAgeMillis() > REFRESH_AHEAD_MILLIS) {
+                refreshInBackground();
+            }
+            return current;
+        }
+        return refresh();
+    }
+
+    /**
+     * Start loading a snapshot in the background, e.g. as soon as an admin logs in
+     */
+    public void prefetch() {
+        Kpis current = latest;
+        if (current == null || dirty || current.getAgeMillis() > REFRESH_AHEAD_MILLIS) {
+            refreshInBackground();
+        }
+    }
+
+    /**
+     * Run the KPI query now and cache the result
+     */
+    public synchronized Kpis refresh() throws SQLException {
+        // Another caller may have refreshed while this one waited for the lock
+        Kpis current = latest;
+        if (current != null && !dirty && current.getAgeMillis() < REFRESH_AHEAD_MILLIS) {
+            return current;
+        }
+        // Changes from here on need another refresh
+        dirty = false;
+
+        LocalDate today = LocalDate.now();
+        Timestamp startOfToday = Timestamp.valueOf(today.atStartOfDay());
+        Timestamp startOfTomorrow = Timestamp.valueOf(today.plusDays(1).atStartOfDay());
+        LocalDate firstOfMonth = today.withDayOfMonth(1);
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(KPI_SQL)) {
+
+            int i = 1;
+            stmt.setTimestamp(i++, Timestamp.valueOf(firstOfMonth.atStartOfDay()));
+            stmt.setDate(i++, Date.valueOf(today));
+            stmt.setDate(i++, Date.valueOf(today.plusDays(EXPIRING_WITHIN_DAYS)));
+            stmt.setDate(i++, Date.valueOf(firstOfMonth));
+            for (int range = 0; range < 4; range++) {
+                stmt.setTimestamp(i++, startOfToday);
+                stmt.setTimestamp(i++, startOfTomorrow);
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                Kpis kpis = new Kpis(
+                        rs.getInt("active_members"),
+                        rs.getInt("expiring_soon"),
+                        rs.getInt("new_this_month"),
+                        rs.getInt("total_trainers"),
+                        rs.getInt("trainers_today"),
+                        rs.getInt("total_classes"),
+                        rs.getInt("classes_today"),
+                        rs.getInt("booked_today"),
+                        rs.getInt("capacity_today"),
+                        rs.getBigDecimal("revenue_month_to_date"),
+                        rs.getInt("pending_payments"),
+                        System.currentTimeMillis());
+                latest = kpis;
+                LOGGER.log(Level.FINE, "Dashboard KPIs refreshed: {0}", kpis);
+                return kpis;
+            }
+        }
+    }
+
+    private void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) return;
+
+        DaoExecutor.executor().execute(() -> {
+            try {
+                refresh();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error refreshing dashboard KPIs", e);
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    /**
+     * One snapshot of the dashboard figures
+     */
+    public static class Kpis {
+        private final int activeMembers;
+        private final int membershipsExpiringSoon;
+        private final int newMembersThisMonth;
+        private final int totalTrainers;
+        private final int trainersTeachingToday;
+        private final int totalClasses;
+        private final int classesToday;
+        private final int bookedToday;
+        private final int capacityToday;
+        private final BigDecimal revenueMonthToDate;
+        private final int pendingPayments;
+        private final long computedAt;
+
+        public Kpis(int activeMembers, int membershipsExpiringSoon, int newMembersThisMonth,
+                    int totalTrainers, int trainersTeachingToday, int totalClasses, int classesToday,
+                    int bookedToday, int capacityToday, BigDecimal revenueMonthToDate,
+                    int pendingPayments, long computedAt) {
+            this.activeMembers = activeMembers;
+            this.membershipsExpiringSoon = membershipsExpiringSoon;
+            this.newMembersThisMonth = newMembersThisMonth;
+            this.totalTrainers = totalTrainers;
+            this.trainersTeachingToday = trainersTeachingToday;
+            this.totalClasses = totalClasses;
+            this.classesToday = classesToday;
+            this.bookedToday = bookedToday;
+            this.capacityToday = capacityToday;
+            this.revenueMonthToDate = revenueMonthToDate != null ? revenueMonthToDate : BigDecimal.ZERO;
+            this.pendingPayments = pendingPayments;
+            this.computedAt = computedAt;
+        }
+
+        public int getActiveMembers() { return activeMembers; }
+
+        /** Active memberships ending within the next EXPIRING_WITHIN_DAYS days */
+        public int getMembershipsExpiringSoon() { return membershipsExpiringSoon; }
+
+        public int getNewMembersThisMonth() { return newMembersThisMonth; }
+        public int getTotalTrainers() { return totalTrainers; }
+        public int getTrainersTeachingToday() { return trainersTeachingToday; }
+        public int getTotalClasses() { return totalClasses; }
+        public int getClassesToday() { return classesToday; }
+        public int getBookedToday() { return bookedToday; }
+        public int getCapacityToday() { return capacityToday; }
+        public BigDecimal getRevenueMonthToDate() { return revenueMonthToDate; }
+        public int getPendingPayments() { return pendingPayments; }
+        public long getComputedAt() { return computedAt; }
+
+        /** Booked share of today's capacity, in percent */
+        public double getOccupancyToday() {
+            return capacityToday == 0 ? 0 : bookedToday * 100.0 / capacityToday;
+        }
+
+        public long getAgeMillis() {
+            return System.currentTimeMillis() - computedAt;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d active members (%d expiring), %d classes today at %.0f%% occupancy, " +
+                            "revenue %s this month, %d pending payments",
+                    activeMembers, membershipsExpiringSoon, classesToday, getOccupancyToday(),
+                    revenueMonthToDate, pendingPayments);
+        }
+    }
+}
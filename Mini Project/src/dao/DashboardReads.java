@@ -0,0 +1,46 @@
+package com.gymmanagementsystem.dao;
+
+import com.gymmanagementsystem.model.GymClass;
+import com.gymmanagementsystem.model.Member;
+import com.gymmanagementsystem.util.StaleWhileRevalidate;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stale-while-revalidate read layer for the list queries the screens open with.
+ *
+ * Each list is shared by every screen in this client: a screen gets the last good
+ * list immediately and the refreshed one moments later, and keeps working from the
+ * last good list if the database is briefly unreachable. Every read revalidates, so
+ * changes made by other clients still appear on the next load. The lists handed out
+ * are unmodifiable; copy them before filtering or sorting in place.
+ *
+ * Use from the FX Application Thread only.
+ */
+public final class DashboardReads {
+
+    private static final ClassDAO CLASS_DAO = new ClassDAO();
+    private static final MemberDAO MEMBER_DAO = new MemberDAO();
+
+    private static final StaleWhileRevalidate<List<GymClass>> ALL_CLASSES = new StaleWhileRevalidate<>(
+            "all classes", () -> Collections.unmodifiableList(CLASS_DAO.loadAllClasses()));
+    private static final StaleWhileRevalidate<List<GymClass>> UPCOMING_CLASSES = new StaleWhileRevalidate<>(
+            "upcoming classes", () -> Collections.unmodifiableList(CLASS_DAO.loadUpcomingClasses()));
+    private static final StaleWhileRevalidate<List<Member>> ALL_MEMBERS = new StaleWhileRevalidate<>(
+            "all members", () -> Collections.unmodifiableList(MEMBER_DAO.loadAllMembers()));
+
+    private DashboardReads() {}
+
+    public static StaleWhileRevalidate<List<GymClass>> allClasses() {
+        return ALL_CLASSES;
+    }
+
+    public static StaleWhileRevalidate<List<GymClass>> upcomingClasses() {
+        return UPCOMING_CLASSES;
+    }
+
+    public static StaleWhileRevalidate<List<Member>> allMembers() {
+        return ALL_MEMBERS;
+    }
+}
@@ -0,0 +1,82 @@
+package com.gymmanagementsystem.dao;
+
+import com.gymmanagementsystem.model.GymClass;
+import com.gymmanagementsystem.model.Member;
+import com.gymmanagementsystem.model.User;
+import com.gymmanagementsystem.util.EntityCache;
+
+/**
+ * Shared by-ID caches for the single-row lookups on the booking and payment paths.
+ *
+ * ClassDAO.getClassById and MemberDAO.getMemberById read through these. Every DAO
+ * that writes a class row, a booking (the triggers change current_bookings) or a
+ * member row invalidates the affected entry after it commits; bulk updates clear
+ * the whole cache. The TTL bounds how long a change made by another client can go
+ * unseen.
+ */
+public final class EntityCaches {
+
+    private static final int MAX_CLASSES = 256;
+    private static final int MAX_MEMBERS = 512;
+    private static final long TTL_MILLIS = 30_000;
+
+    private static final EntityCache<Integer, GymClass> CLASSES =
+            new EntityCache<>("class", MAX_CLASSES, TTL_MILLIS, EntityCaches::copy);
+    private static final EntityCache<Integer, Member> MEMBERS =
+            new EntityCache<>("member", MAX_MEMBERS, TTL_MILLIS, EntityCaches::copy);
+
+    private EntityCaches() {}
+
+    public static EntityCache<Integer, GymClass> classes() {
+        return CLASSES;
+    }
+
+    public static EntityCache<Integer, Member> members() {
+        return MEMBERS;
+    }
+
+    private static GymClass copy(GymClass source) {
+        GymClass gymClass = new GymClass();
+        gymClass.setId(source.getId());
+        gymClass.setClassName(source.getClassName());
+        gymClass.setDescription(source.getDescription());
+        gymClass.setTrainerId(source.getTrainerId());
+        gymClass.setStartTime(source.getStartTime());
+        gymClass.setEndTime(source.getEndTime());
+        gymClass.setMaxCapacity(source.getMaxCapacity());
+        gymClass.setCurrentBookings(source.getCurrentBookings());
+        gymClass.setStatus(source.getStatus());
+        if (source.getTrainer() != null) {
+            gymClass.setTrainer(TrainerCache.copy(source.getTrainer()));
+        }
+        return gymClass;
+    }
+
+    private static Member copy(Member source) {
+        Member member = new Member();
+        member.setId(source.getId());
+        member.setUserId(source.getUserId());
+        member.setEmergencyContact(source.getEmergencyContact());
+        member.setMedicalConditions(source.getMedicalConditions());
+        member.setMembershipPlanId(source.getMembershipPlanId());
+        member.setMembershipStartDate(source.getMembershipStartDate());
+        member.setMembershipEndDate(source.getMembershipEndDate());
+        member.setMembershipStatus(source.getMembershipStatus());
+        member.setMembershipPlanName(source.getMembershipPlanName());
+        member.setMembershipPlanPrice(source.getMembershipPlanPrice());
+
+        User sourceUser = source.getUser();
+        if (sourceUser != null) {
+            User user = new User();
+            user.setId(sourceUser.getId());
+            user.setUsername(sourceUser.getUsername());
+            user.setEmail(sourceUser.getEmail());
+            user.setFirstName(sourceUser.getFirstName());
+            user.setLastName(sourceUser.getLastName());
+            user.setPhone(sourceUser.getPhone());
+            user.setRole(sourceUser.getRole());
+            member.setUser(user);
+        }
+        return member;
+    }
+}
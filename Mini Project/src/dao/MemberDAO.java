@@ -1,13 +1,22 @@
 package com.gymmanagementsystem.dao;
 
 import com.gymmanagementsystem.model.Member;
+import com.gymmanagementsystem.model.MembershipPlan;
 import com.gymmanagementsystem.model.User;
+import com.gymmanagementsystem.util.CancellableQuery;
 import com.gymmanagementsystem.util.DatabaseConnection;
+import com.gymmanagementsystem.util.DomainEvent;
+import com.gymmanagementsystem.util.DomainEvent.BookingChanged;
+import com.gymmanagementsystem.util.DomainEvent.MemberChanged;
+import com.gymmanagementsystem.util.DomainEventBus;
+import com.gymmanagementsystem.util.EntityCache;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,6 +27,19 @@ public class MemberDAO {
 
     private static final Logger LOGGER = Logger.getLogger(MemberDAO.class.getName());
 
+    private final MembershipPlanCatalog planCatalog = MembershipPlanCatalog.getInstance();
+    private final EntityCache<Integer, Member> memberCache = EntityCaches.members();
+    private final DomainEventBus events = DomainEventBus.getInstance();
+    private final ClassDAO classDAO = new ClassDAO();
+    private final PaymentDAO paymentDAO = new PaymentDAO();
+
+    // Most members returned for one search
+    private static final int SEARCH_LIMIT = 200;
+
+    private static final String MEMBER_SELECT = "SELECT m.*, u.username, u.email, u.first_name, u.last_name, u.phone " +
+            "FROM members m " +
+            "JOIN users u ON m.user_id = u.id ";
+
     /**
      * Create a new member with transaction support
      */
@@ -46,6 +68,10 @@ public class MemberDAO {
                         LOGGER.log(Level.INFO, "Member created successfully with ID: {0}", member.getId());
                     }
                 }
+                reindex(member.getId());
+                MemberChanged event = new MemberChanged(member.getId(), MemberChanged.Kind.CREATED);
+                ChangeLog.appendQuietly(conn, event);
+                events.publish(event);
                 return true;
             }
         } catch (SQLException e) {
@@ -59,12 +85,22 @@ public class MemberDAO {
      * Get all members with enhanced data including membership plan details
      */
     public List<Member> getAllMembers() {
+        try {
+            return loadAllMembers();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error retrieving all members", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Same as getAllMembers, but a database error reaches the caller (used by DashboardReads)
+     */
+    List<Member> loadAllMembers() throws SQLException {
         List<Member> members = new ArrayList<>();
-        String sql = "SELECT m.*, u.username, u.email, u.first_name, u.last_name, u.phone, " +
-                "mp.plan_name, mp.price as plan_price " +
+        String sql = "SELECT m.*, u.username, u.email, u.first_name, u.last_name, u.phone " +
                 "FROM members m " +
                 "JOIN users u ON m.user_id = u.id " +
-                "LEFT JOIN membership_plans mp ON m.membership_plan_id = mp.id " +
                 "ORDER BY u.first_name, u.last_name";
 
         try (Connection conn = DatabaseConnection.getConnection();
@@ -76,8 +112,6 @@ public class MemberDAO {
             }
 
             LOGGER.log(Level.INFO, "Retrieved {0} members", members.size());
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error retrieving all members", e);
         }
 
         return members;
@@ -87,20 +121,26 @@ public class MemberDAO {
      * Get member by ID with full details
      */
     public Member getMemberById(int memberId) {
-        String sql = "SELECT m.*, u.username, u.email, u.first_name, u.last_name, u.phone, " +
-                "mp.plan_name, mp.price as plan_price " +
+        Member cached = memberCache.get(memberId);
+        if (cached != null) {
+            return cached;
+        }
+
+        String sql = "SELECT m.*, u.username, u.email, u.first_name, u.last_name, u.phone " +
                 "FROM members m " +
                 "JOIN users u ON m.user_id = u.id " +
-                "LEFT JOIN membership_plans mp ON m.membership_plan_id = mp.id " +
                 "WHERE m.id = ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+            long cacheVersion = memberCache.version();
             stmt.setInt(1, memberId);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return extractMemberFromResultSet(rs);
+                    Member member = extractMemberFromResultSet(rs);
+                    memberCache.put(memberId, member, cacheVersion);
+                    return member;
                 }
             }
         } catch (SQLException e) {
@@ -132,6 +172,11 @@ public class MemberDAO {
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected > 0) {
                 LOGGER.log(Level.INFO, "Member updated successfully: ID {0}", member.getId());
+                memberCache.invalidate(member.getId());
+                reindex(member.getId());
+                MemberChanged event = new MemberChanged(member.getId(), MemberChanged.Kind.UPDATED);
+                ChangeLog.appendQuietly(conn, event);
+                events.publish(event);
                 return true;
             }
         } catch (SQLException e) {
@@ -147,21 +192,76 @@ public class MemberDAO {
     public boolean deleteMember(int memberId) {
         String sql = "DELETE FROM members WHERE id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            List<BookingChanged> cancelled = deleteHistory(conn, memberId);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, memberId);
+                if (stmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
+            }
 
-            stmt.setInt(1, memberId);
-            int rowsAffected = stmt.executeUpdate();
+            MemberChanged event = new MemberChanged(memberId, MemberChanged.Kind.DELETED);
+            ChangeLog.append(conn, event);
+            conn.commit();
+
+            LOGGER.log(Level.INFO, "Member deleted: ID {0}", memberId);
+            onHistoryDeleted(memberId, cancelled);
+            events.publish(event);
+            return true;
 
-            if (rowsAffected > 0) {
-                LOGGER.log(Level.INFO, "Member deleted: ID {0}", memberId);
-                return true;
-            }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting member: " + memberId, e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
+                }
+            }
+            return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.SEVERE, "Error closing connection", e);
+                }
+            }
         }
+    }
 
-        return false;
+    /**
+     * Delete a member's bookings and payments on the caller's connection, in its
+     * transaction, before the member row itself goes. Left to the foreign-key cascade
+     * they would vanish without firing any trigger, and booking counts, the payment
+     * status summary and the daily fact tables would keep counting them.
+     *
+     * @return booking events, already in change_log, for {@link #onHistoryDeleted}
+     */
+    List<BookingChanged> deleteHistory(Connection conn, int memberId) throws SQLException {
+        List<BookingChanged> cancelled = classDAO.deleteBookingsOfMember(conn, memberId);
+        if (!cancelled.isEmpty()) {
+            ChangeLog.append(conn, cancelled.toArray(new DomainEvent[0]));
+        }
+        paymentDAO.deletePaymentsOfMember(conn, memberId);
+        return cancelled;
+    }
+
+    /**
+     * After the delete committed: drop the member from caches and the search index, and
+     * publish the booking events
+     */
+    void onHistoryDeleted(int memberId, List<BookingChanged> cancelled) {
+        memberCache.invalidate(memberId);
+        MemberSearchIndex.getInstance().remove(memberId);
+        classDAO.onBookingsDeleted(cancelled);
     }
 
     /**
@@ -188,14 +288,29 @@ public class MemberDAO {
 
     /**
      * NEW: Search members by name, email, or phone
+     * Served from MemberSearchIndex once it is built, including when it has no hit: local
+     * writes update it directly and other clients' writes arrive through the change feed.
+     * The LIKE scan only runs before the first build has finished.
      */
     public List<Member> searchMembers(String searchTerm) {
+        return searchMembers(searchTerm, null);
+    }
+
+    /**
+     * Search members, letting the caller cancel the database query (handle may be null)
+     */
+    public List<Member> searchMembers(String searchTerm, CancellableQuery handle) {
+        MemberSearchIndex index = MemberSearchIndex.getInstance();
+        if (index.isReady()) {
+            List<Integer> ids = index.search(searchTerm, SEARCH_LIMIT);
+            List<Member> members = ids.isEmpty() ? new ArrayList<>() : getMembersByIds(ids, handle);
+            LOGGER.log(Level.INFO, "Index search found {0} members for term: {1}",
+                    new Object[]{members.size(), searchTerm});
+            return members;
+        }
+
         List<Member> members = new ArrayList<>();
-        String sql = "SELECT m.*, u.username, u.email, u.first_name, u.last_name, u.phone, " +
-                "mp.plan_name, mp.price as plan_price " +
-                "FROM members m " +
-                "JOIN users u ON m.user_id = u.id " +
-                "LEFT JOIN membership_plans mp ON m.membership_plan_id = mp.id " +
+        String sql = MEMBER_SELECT +
                 "WHERE LOWER(u.first_name) LIKE ? OR LOWER(u.last_name) LIKE ? " +
                 "OR LOWER(u.email) LIKE ? OR u.phone LIKE ? " +
                 "ORDER BY u.first_name, u.last_name";
@@ -208,32 +323,98 @@ public class MemberDAO {
             stmt.setString(2, searchPattern);
             stmt.setString(3, searchPattern);
             stmt.setString(4, searchPattern);
+            CancellableQuery.attach(handle, stmt);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     members.add(extractMemberFromResultSet(rs));
                 }
+            } finally {
+                CancellableQuery.detach(handle, stmt);
             }
 
             LOGGER.log(Level.INFO, "Search found {0} members for term: {1}",
                     new Object[]{members.size(), searchTerm});
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error searching members", e);
+            if (CancellableQuery.isCancelled(handle)) {
+                LOGGER.log(Level.FINE, "Member search cancelled for term: {0}", searchTerm);
+            } else {
+                LOGGER.log(Level.SEVERE, "Error searching members", e);
+            }
         }
 
         return members;
     }
 
+    /**
+     * Load members by primary key, returned in the order of the given IDs
+     */
+    public List<Member> getMembersByIds(List<Integer> memberIds) {
+        return getMembersByIds(memberIds, null);
+    }
+
+    private List<Member> getMembersByIds(List<Integer> memberIds, CancellableQuery handle) {
+        List<Member> members = new ArrayList<>();
+        if (memberIds.isEmpty()) return members;
+
+        StringBuilder sql = new StringBuilder(MEMBER_SELECT).append("WHERE m.id IN (");
+        for (int i = 0; i < memberIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+
+        Map<Integer, Member> byId = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            for (int i = 0; i < memberIds.size(); i++) {
+                stmt.setInt(i + 1, memberIds.get(i));
+            }
+            CancellableQuery.attach(handle, stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Member member = extractMemberFromResultSet(rs);
+                    byId.put(member.getId(), member);
+                }
+            } finally {
+                CancellableQuery.detach(handle, stmt);
+            }
+        } catch (SQLException e) {
+            if (!CancellableQuery.isCancelled(handle)) {
+                LOGGER.log(Level.SEVERE, "Error retrieving members by IDs", e);
+            }
+        }
+
+        for (int id : memberIds) {
+            Member member = byId.get(id);
+            if (member != null) {
+                members.add(member);
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Refresh a member's entry in the search index from the database
+     */
+    void reindex(int memberId) {
+        MemberSearchIndex index = MemberSearchIndex.getInstance();
+        if (!index.isStarted()) return;
+
+        Member member = getMemberById(memberId);
+        if (member != null) {
+            index.put(member);
+        }
+    }
+
     /**
      * NEW: Get members by status
      */
     public List<Member> getMembersByStatus(String status) {
         List<Member> members = new ArrayList<>();
-        String sql = "SELECT m.*, u.username, u.email, u.first_name, u.last_name, u.phone, " +
-                "mp.plan_name, mp.price as plan_price " +
+        String sql = "SELECT m.*, u.username, u.email, u.first_name, u.last_name, u.phone " +
                 "FROM members m " +
                 "JOIN users u ON m.user_id = u.id " +
-                "LEFT JOIN membership_plans mp ON m.membership_plan_id = mp.id " +
                 "WHERE m.membership_status = ? " +
                 "ORDER BY u.first_name, u.last_name";
 
@@ -259,11 +440,9 @@ public class MemberDAO {
      */
     public List<Member> getExpiringMemberships(int daysAhead) {
         List<Member> members = new ArrayList<>();
-        String sql = "SELECT m.*, u.username, u.email, u.first_name, u.last_name, u.phone, " +
-                "mp.plan_name, mp.price as plan_price " +
+        String sql = "SELECT m.*, u.username, u.email, u.first_name, u.last_name, u.phone " +
                 "FROM members m " +
                 "JOIN users u ON m.user_id = u.id " +
-                "LEFT JOIN membership_plans mp ON m.membership_plan_id = mp.id " +
                 "WHERE m.membership_status = 'ACTIVE' " +
                 "AND m.membership_end_date BETWEEN CURRENT_DATE AND CURRENT_DATE + ? " +
                 "ORDER BY m.membership_end_date";
@@ -300,6 +479,9 @@ public class MemberDAO {
 
             int rowsAffected = stmt.executeUpdate();
             LOGGER.log(Level.INFO, "Updated {0} expired memberships", rowsAffected);
+            if (rowsAffected > 0) {
+                memberCache.invalidateAll();
+            }
             return rowsAffected;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating expired memberships", e);
@@ -352,12 +534,11 @@ public class MemberDAO {
         member.setMembershipEndDate(rs.getDate("membership_end_date"));
         member.setMembershipStatus(rs.getString("membership_status"));
 
-        // Set membership plan details if available
-        try {
-            member.setMembershipPlanName(rs.getString("plan_name"));
-            member.setMembershipPlanPrice(rs.getDouble("plan_price"));
-        } catch (SQLException e) {
-            // Plan details not available in this query
+        // Plan details come from the in-memory catalog rather than a join
+        MembershipPlan plan = planCatalog.get(member.getMembershipPlanId());
+        if (plan != null) {
+            member.setMembershipPlanName(plan.getPlanName());
+            member.setMembershipPlanPrice(plan.getPrice() != null ? plan.getPrice().doubleValue() : 0);
         }
 
         // Set user information
@@ -0,0 +1,386 @@
+package com.gymmanagementsystem.dao;
+
+import com.gymmanagementsystem.model.Member;
+import com.gymmanagementsystem.model.User;
+import com.gymmanagementsystem.util.DatabaseConnection;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory substring search over member name, email and phone.
+ *
+ * Every field is split into trigrams and each trigram keeps a sorted array of the
+ * member IDs containing it. A query is answered by intersecting the postings of its
+ * own trigrams, checking the few survivors against the real text and ranking them
+ * (exact match, then prefix, then word prefix, then substring). Phone numbers are
+ * indexed as digits only, so "555-0101" and "5550101" find the same member.
+ *
+ * Built at startup and kept current by MemberDAO's create/update/delete. Writes that
+ * land while a build is reading the table are replayed onto the new index after the
+ * swap, so they are not lost with the old one. A full rebuild every
+ * REBUILD_INTERVAL_MINUTES picks up anything the incremental updates miss, such as a
+ * name changed directly on the users table.
+ */
+public class MemberSearchIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(MemberSearchIndex.class.getName());
+
+    private static final int GRAM = 3;
+    private static final int[] EMPTY = new int[0];
+    private static final long REBUILD_INTERVAL_MINUTES = 15;
+
+    private static MemberSearchIndex instance;
+
+    private final Map<Integer, Keys> keysById = new HashMap<>();
+    private final Map<String, int[]> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+    private volatile boolean started;
+    // Writes made while a build is running (null keys = removed); guarded by lock
+    private Map<Integer, Keys> pendingDuringBuild;
+    private ScheduledExecutorService scheduler;
+
+    private MemberSearchIndex() {}
+
+    public static synchronized MemberSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new MemberSearchIndex();
+        }
+        return instance;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * True once the first build has started; before that, writes need not be indexed
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Rebuild the index every few minutes on a daemon thread
+     */
+    public synchronized void start() {
+        if (scheduler != null) return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "member-search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::build, REBUILD_INTERVAL_MINUTES, REBUILD_INTERVAL_MINUTES,
+                TimeUnit.MINUTES);
+        LOGGER.info("Member search index rebuilt every " + REBUILD_INTERVAL_MINUTES + " minutes");
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Load every member's searchable fields and (re)build the index. Builds run one at
+     * a time; searches keep using the previous index until the swap.
+     */
+    public synchronized boolean build() {
+        String sql = "SELECT m.id, u.first_name, u.last_name, u.email, u.phone " +
+                "FROM members m JOIN users u ON m.user_id = u.id";
+
+        long start = System.currentTimeMillis();
+        Map<Integer, Keys> loaded = new HashMap<>();
+
+        lock.writeLock().lock();
+        try {
+            pendingDuringBuild = new HashMap<>();
+            started = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                loaded.put(rs.getInt("id"), new Keys(rs.getString("first_name"), rs.getString("last_name"),
+                        rs.getString("email"), rs.getString("phone")));
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error building member search index", e);
+            lock.writeLock().lock();
+            try {
+                pendingDuringBuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return false;
+        }
+
+        // Collect postings as lists first, then freeze them into sorted arrays
+        Map<String, List<Integer>> building = new HashMap<>();
+        for (Map.Entry<Integer, Keys> entry : loaded.entrySet()) {
+            for (String gram : entry.getValue().grams()) {
+                building.computeIfAbsent(gram, g -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            keysById.clear();
+            keysById.putAll(loaded);
+            postings.clear();
+            for (Map.Entry<String, List<Integer>> entry : building.entrySet()) {
+                int[] ids = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+                Arrays.sort(ids);
+                postings.put(entry.getKey(), ids);
+            }
+
+            // The query may have missed these, or read them before they changed
+            for (Map.Entry<Integer, Keys> write : pendingDuringBuild.entrySet()) {
+                removeLocked(write.getKey());
+                if (write.getValue() != null) {
+                    addLocked(write.getKey(), write.getValue());
+                }
+            }
+            pendingDuringBuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        LOGGER.log(Level.INFO, "Member search index built: {0} members, {1} trigrams in {2} ms",
+                new Object[]{loaded.size(), postings.size(), System.currentTimeMillis() - start});
+        return true;
+    }
+
+    /**
+     * Add or re-index one member (its User must be populated)
+     */
+    public void put(Member member) {
+        User user = member.getUser();
+        if (user == null) return;
+
+        Keys keys = new Keys(user.getFirstName(), user.getLastName(), user.getEmail(), user.getPhone());
+        lock.writeLock().lock();
+        try {
+            removeLocked(member.getId());
+            addLocked(member.getId(), keys);
+            if (pendingDuringBuild != null) {
+                pendingDuringBuild.put(member.getId(), keys);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int memberId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(memberId);
+            if (pendingDuringBuild != null) {
+                pendingDuringBuild.put(memberId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addLocked(int memberId, Keys keys) {
+        keysById.put(memberId, keys);
+        for (String gram : keys.grams()) {
+            postings.put(gram, insert(postings.getOrDefault(gram, EMPTY), memberId));
+        }
+    }
+
+    private void removeLocked(int memberId) {
+        Keys old = keysById.remove(memberId);
+        if (old == null) return;
+
+        for (String gram : old.grams()) {
+            int[] ids = delete(postings.getOrDefault(gram, EMPTY), memberId);
+            if (ids.length == 0) {
+                postings.remove(gram);
+            } else {
+                postings.put(gram, ids);
+            }
+        }
+    }
+
+    /**
+     * Member IDs matching the query as a substring of name, email or phone, best first
+     */
+    public List<Integer> search(String query, int limit) {
+        String text = normalize(query);
+        String digits = digitsOf(query);
+        // Only treat the query as a phone number if it is mostly digits
+        if (digits.length() < GRAM || digits.length() * 2 < text.replace(" ", "").length()) {
+            digits = "";
+        }
+        if (text.isEmpty()) return new ArrayList<>();
+
+        List<int[]> ranked = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Set<Integer> candidates = new HashSet<>();
+            if (text.length() < GRAM) {
+                // Too short for trigrams: scan all keys (still only in memory)
+                candidates.addAll(keysById.keySet());
+            } else {
+                addAll(candidates, intersect(gramsOf(text)));
+                if (!digits.isEmpty()) {
+                    addAll(candidates, intersect(gramsOf(digits)));
+                }
+            }
+
+            for (int id : candidates) {
+                Keys keys = keysById.get(id);
+                int score = keys != null ? keys.score(text, digits) : 0;
+                if (score > 0) {
+                    ranked.add(new int[]{id, score});
+                }
+            }
+
+            Comparator<int[]> byScore = Comparator.comparingInt(r -> -r[1]);
+            ranked.sort(byScore.thenComparing(r -> keysById.get(r[0]).name));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            ids.add(ranked.get(i)[0]);
+        }
+        return ids;
+    }
+
+    /**
+     * Intersect the postings of every gram, smallest list first
+     */
+    private int[] intersect(Set<String> grams) {
+        List<int[]> lists = new ArrayList<>();
+        for (String gram : grams) {
+            int[] ids = postings.get(gram);
+            if (ids == null) return EMPTY;
+            lists.add(ids);
+        }
+        if (lists.isEmpty()) return EMPTY;
+        lists.sort(Comparator.comparingInt(ids -> ids.length));
+
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else { out[n++] = a[i]; i++; j++; }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] insert(int[] ids, int id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos >= 0) return ids;
+        pos = -pos - 1;
+        int[] out = new int[ids.length + 1];
+        System.arraycopy(ids, 0, out, 0, pos);
+        out[pos] = id;
+        System.arraycopy(ids, pos, out, pos + 1, ids.length - pos);
+        return out;
+    }
+
+    private static int[] delete(int[] ids, int id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos < 0) return ids;
+        int[] out = new int[ids.length - 1];
+        System.arraycopy(ids, 0, out, 0, pos);
+        System.arraycopy(ids, pos + 1, out, pos, ids.length - pos - 1);
+        return out;
+    }
+
+    private static void addAll(Set<Integer> target, int[] ids) {
+        for (int id : ids) target.add(id);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    private static String digitsOf(String value) {
+        return value == null ? "" : value.replaceAll("\\D", "");
+    }
+
+    private static Set<String> gramsOf(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * Normalized searchable fields of one member
+     */
+    private static class Keys {
+        final String first;
+        final String last;
+        final String name;
+        final String email;
+        final String phone;
+
+        Keys(String firstName, String lastName, String email, String phone) {
+            this.first = normalize(firstName);
+            this.last = normalize(lastName);
+            this.name = normalize(this.first + " " + this.last);
+            this.email = normalize(email);
+            this.phone = digitsOf(phone);
+        }
+
+        Set<String> grams() {
+            Set<String> grams = gramsOf(name);
+            grams.addAll(gramsOf(email));
+            grams.addAll(gramsOf(phone));
+            return grams;
+        }
+
+        /**
+         * Rank of this member for the query, 0 if it does not match
+         */
+        int score(String text, String digits) {
+            if (name.equals(text) || email.equals(text) || (!digits.isEmpty() && phone.equals(digits))) return 100;
+            if (first.startsWith(text) || last.startsWith(text) || name.startsWith(text)) return 80;
+            if (email.startsWith(text) || (!digits.isEmpty() && phone.startsWith(digits))) return 70;
+            if (name.contains(" " + text)) return 60;
+            if (name.contains(text) || email.contains(text)) return 40;
+            if (!digits.isEmpty() && phone.contains(digits)) return 40;
+            return 0;
+        }
+    }
+}
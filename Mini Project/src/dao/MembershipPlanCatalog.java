@@ -0,0 +1,129 @@
+package com.gymmanagementsystem.dao;
+
+import com.gymmanagementsystem.model.MembershipPlan;
+import com.gymmanagementsystem.util.DaoExecutor;
+import com.gymmanagementsystem.util.DatabaseConnection;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory copy of the membership_plans table.
+ *
+ * The table only holds a handful of rows, so member and payment queries no longer
+ * join it; they read membership_plan_id and resolve the plan here with a map lookup.
+ * The catalog loads on first use (or at startup) and reloads in the background
+ * every few minutes, or sooner when asked for a plan ID it does not know yet.
+ * Lookups never wait on the database once the first load has finished, so they
+ * are safe to call while a DAO still holds its own connection.
+ *
+ * Returned plans are shared between callers and must be treated as read-only.
+ */
+public class MembershipPlanCatalog {
+
+    private static final Logger LOGGER = Logger.getLogger(MembershipPlanCatalog.class.getName());
+
+    private static final long REFRESH_INTERVAL_MILLIS = 5 * 60_000;
+    // Do not reload more often than this because of unknown plan IDs
+    private static final long MISS_RETRY_MILLIS = 10_000;
+
+    private static MembershipPlanCatalog instance;
+
+    // Immutable snapshot, swapped as a whole on reload; null until the first load
+    private volatile Map<Integer, MembershipPlan> plans;
+    private volatile long loadedAt;
+    private final AtomicBoolean reloading = new AtomicBoolean();
+
+    private MembershipPlanCatalog() {}
+
+    public static synchronized MembershipPlanCatalog getInstance() {
+        if (instance == null) {
+            instance = new MembershipPlanCatalog();
+        }
+        return instance;
+    }
+
+    /**
+     * Reload every plan now; call after changing membership_plans
+     */
+    public synchronized boolean refresh() {
+        String sql = "SELECT id, plan_name, description, price, duration_in_months, is_active " +
+                "FROM membership_plans";
+
+        Map<Integer, MembershipPlan> loaded = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                MembershipPlan plan = new MembershipPlan();
+                plan.setId(rs.getInt("id"));
+                plan.setPlanName(rs.getString("plan_name"));
+                plan.setDescription(rs.getString("description"));
+                plan.setPrice(rs.getBigDecimal("price"));
+                plan.setDurationInMonths(rs.getInt("duration_in_months"));
+                plan.setActive(rs.getBoolean("is_active"));
+                loaded.put(plan.getId(), plan);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error loading membership plans", e);
+            return false;
+        }
+
+        plans = Collections.unmodifiableMap(loaded);
+        loadedAt = System.currentTimeMillis();
+        LOGGER.log(Level.INFO, "Membership plan catalog loaded {0} plans", loaded.size());
+        return true;
+    }
+
+    /**
+     * Plan with the given ID, or null if there is none
+     */
+    public MembershipPlan get(int planId) {
+        MembershipPlan plan = snapshot().get(planId);
+
+        long age = System.currentTimeMillis() - loadedAt;
+        if (age > REFRESH_INTERVAL_MILLIS || (plan == null && planId > 0 && age > MISS_RETRY_MILLIS)) {
+            reloadInBackground();
+        }
+        return plan;
+    }
+
+    /**
+     * Every plan, ordered by ID
+     */
+    public List<MembershipPlan> getAll() {
+        List<MembershipPlan> all = new ArrayList<>(snapshot().values());
+        all.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+        return all;
+    }
+
+    private Map<Integer, MembershipPlan> snapshot() {
+        Map<Integer, MembershipPlan> current = plans;
+        if (current == null) {
+            // Only the very first lookup waits for the database
+            refresh();
+            current = plans;
+        }
+        return current != null ? current : Collections.emptyMap();
+    }
+
+    private void reloadInBackground() {
+        if (!reloading.compareAndSet(false, true)) return;
+
+        DaoExecutor.executor().execute(() -> {
+            try {
+                refresh();
+            } finally {
+                reloading.set(false);
+            }
+        });
+    }
+}
@@ -4,59 +4,62 @@ import com.gymmanagementsystem.model.Payment;
 import com.gymmanagementsystem.model.Member;
 import com.gymmanagementsystem.model.User;
 import com.gymmanagementsystem.model.MembershipPlan;
+import com.gymmanagementsystem.util.CancellableQuery;
 import com.gymmanagementsystem.util.DatabaseConnection;
+import com.gymmanagementsystem.util.DomainEvent.PaymentChanged;
+import com.gymmanagementsystem.util.DomainEventBus;
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.logging.Logger;
 
 public class PaymentDAO {
 
     private static final Logger LOGGER = Logger.getLogger(PaymentDAO.class.getName());
 
+    private final MembershipPlanCatalog planCatalog = MembershipPlanCatalog.getInstance();
+
+    // Default number of rows fetched per page by the keyset-paged queries
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    // Rows pulled from the server cursor per round trip when streaming exports
+    public static final int EXPORT_FETCH_SIZE = 500;
+
+    // Transaction IDs and invoice numbers: prefix + 13-digit millis + 3-digit random.
+    // At least four digits, so a bare "TXN" or "INV1" is not a prefix scan over the whole column
+    private static final Pattern PAYMENT_ID_PATTERN = Pattern.compile("(?i)(TXN|INV)(\\d{4,})");
+    private static final int PAYMENT_ID_DIGITS = 16;
+
+    private static final String PAYMENT_SELECT = "SELECT p.*, u.first_name, u.last_name, u.email, u.phone, " +
+            "m.membership_plan_id " +
+            "FROM payments p " +
+            "JOIN members m ON p.member_id = m.id " +
+            "JOIN users u ON m.user_id = u.id ";
+
     // Create payment with extended membership
     public boolean createPayment(Payment payment) {
-        String sql = "INSERT INTO payments (member_id, transaction_id, amount, discount, final_amount, " +
-                "payment_method, payment_type, status, description, invoice_number, coupon_code, processed_by) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
         Connection conn = null;
         try {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
 
-            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-
-            stmt.setInt(1, payment.getMemberId());
-            stmt.setString(2, payment.getTransactionId());
-            stmt.setBigDecimal(3, payment.getAmount());
-            stmt.setBigDecimal(4, payment.getDiscount());
-            stmt.setBigDecimal(5, payment.getFinalAmount());
-            stmt.setString(6, payment.getPaymentMethod());
-            stmt.setString(7, payment.getPaymentType());
-            stmt.setString(8, payment.getStatus());
-            stmt.setString(9, payment.getDescription());
-            stmt.setString(10, payment.getInvoiceNumber());
-            stmt.setString(11, payment.getCouponCode());
-            stmt.setInt(12, payment.getProcessedBy());
-
-            int rowsAffected = stmt.executeUpdate();
-
-            if (rowsAffected > 0) {
-                ResultSet generatedKeys = stmt.getGeneratedKeys();
-                if (generatedKeys.next()) {
-                    payment.setId(generatedKeys.getInt(1));
-                }
-
-                if ("MEMBERSHIP".equals(payment.getPaymentType()) ||
-                        "RENEWAL".equals(payment.getPaymentType())) {
-                    extendMembership(conn, payment.getMemberId());
-                }
-
+            if (insertPayment(conn, payment)) {
+                PaymentChanged event = new PaymentChanged(payment.getId(), payment.getMemberId(),
+                        PaymentChanged.Kind.CREATED);
+                ChangeLog.append(conn, event);
                 conn.commit();
+                if (extendsMembership(payment)) {
+                    EntityCaches.members().invalidate(payment.getMemberId());
+                }
+                DomainEventBus.getInstance().publish(event);
                 LOGGER.log(Level.INFO, "✅ Payment created: {0}, Status: {1}, Amount: {2}",
                         new Object[]{payment.getTransactionId(), payment.getStatus(), payment.getFinalAmount()});
                 return true;
@@ -86,32 +89,120 @@ public class PaymentDAO {
         return false;
     }
 
+    /**
+     * Insert a payment (and extend membership for membership payments) on the caller's
+     * connection. The caller owns the transaction and must commit or roll back.
+     */
+    boolean insertPayment(Connection conn, Payment payment) throws SQLException {
+        String sql = "INSERT INTO payments (member_id, transaction_id, amount, discount, final_amount, " +
+                "payment_method, payment_type, status, description, invoice_number, coupon_code, processed_by) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setInt(1, payment.getMemberId());
+            stmt.setString(2, payment.getTransactionId());
+            stmt.setBigDecimal(3, payment.getAmount());
+            stmt.setBigDecimal(4, payment.getDiscount());
+            stmt.setBigDecimal(5, payment.getFinalAmount());
+            stmt.setString(6, payment.getPaymentMethod());
+            stmt.setString(7, payment.getPaymentType());
+            stmt.setString(8, payment.getStatus());
+            stmt.setString(9, payment.getDescription());
+            stmt.setString(10, payment.getInvoiceNumber());
+            stmt.setString(11, payment.getCouponCode());
+            stmt.setInt(12, payment.getProcessedBy());
+
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    payment.setId(generatedKeys.getInt(1));
+                }
+            }
+        }
+
+        adjustStatusSummary(conn, payment.getStatus(), 1,
+                orZero(payment.getFinalAmount()), orZero(payment.getRefundAmount()));
+
+        if (extendsMembership(payment)) {
+            extendMembership(conn, payment.getMemberId());
+        }
+
+        return true;
+    }
+
+    /**
+     * True if recording this payment also extends the member's membership
+     */
+    static boolean extendsMembership(Payment payment) {
+        return "MEMBERSHIP".equals(payment.getPaymentType()) ||
+                "RENEWAL".equals(payment.getPaymentType());
+    }
+
+    /**
+     * Push the member's end date out by their plan's duration (from today if already lapsed).
+     * The plan duration comes from the catalog instead of a subquery per renewal; a plan the
+     * catalog does not know yet is read on the same connection. A member whose plan cannot be
+     * found fails the whole payment rather than being charged without an extension.
+     */
     private void extendMembership(Connection conn, int memberId) throws SQLException {
+        String planSql = "SELECT membership_plan_id FROM members WHERE id = ? FOR UPDATE";
         String sql = "UPDATE members SET " +
                 "membership_end_date = CASE " +
-                "   WHEN membership_end_date > CURRENT_DATE THEN " +
-                "       DATE_ADD(membership_end_date, INTERVAL " +
-                "           (SELECT duration_in_months FROM membership_plans WHERE id = members.membership_plan_id) MONTH) " +
-                "   ELSE " +
-                "       DATE_ADD(CURRENT_DATE, INTERVAL " +
-                "           (SELECT duration_in_months FROM membership_plans WHERE id = members.membership_plan_id) MONTH) " +
+                "   WHEN membership_end_date > CURRENT_DATE THEN DATE_ADD(membership_end_date, INTERVAL ? MONTH) " +
+                "   ELSE DATE_ADD(CURRENT_DATE, INTERVAL ? MONTH) " +
                 "END, " +
                 "membership_status = 'ACTIVE' " +
                 "WHERE id = ?";
 
-        PreparedStatement stmt = conn.prepareStatement(sql);
-        stmt.setInt(1, memberId);
-        stmt.executeUpdate();
+        int planId;
+        try (PreparedStatement stmt = conn.prepareStatement(planSql)) {
+            stmt.setInt(1, memberId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Member " + memberId + " not found, membership not extended");
+                }
+                planId = rs.getInt("membership_plan_id");
+            }
+        }
+
+        MembershipPlan plan = planCatalog.get(planId);
+        int months = plan != null ? plan.getDurationInMonths() : readPlanDuration(conn, planId);
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, months);
+            stmt.setInt(2, months);
+            stmt.setInt(3, memberId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Plan duration straight from membership_plans, for a plan missing from the catalog
+     */
+    private int readPlanDuration(Connection conn, int planId) throws SQLException {
+        String sql = "SELECT duration_in_months FROM membership_plans WHERE id = ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, planId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Membership plan " + planId + " not found, membership not extended");
+                }
+                return rs.getInt("duration_in_months");
+            }
+        }
     }
 
     public List<Payment> getAllPayments() {
         List<Payment> payments = new ArrayList<>();
         String sql = "SELECT p.*, u.first_name, u.last_name, u.email, u.phone, " +
-                "mp.plan_name, mp.price as plan_price " +
+                "m.membership_plan_id " +
                 "FROM payments p " +
                 "JOIN members m ON p.member_id = m.id " +
                 "JOIN users u ON m.user_id = u.id " +
-                "LEFT JOIN membership_plans mp ON m.membership_plan_id = mp.id " +
                 "ORDER BY p.payment_date DESC";
 
         try (Connection conn = DatabaseConnection.getConnection();
@@ -134,11 +225,10 @@ public class PaymentDAO {
     public List<Payment> getPaymentsByMember(int memberId) {
         List<Payment> payments = new ArrayList<>();
         String sql = "SELECT p.*, u.first_name, u.last_name, u.email, u.phone, " +
-                "mp.plan_name, mp.price as plan_price " +
+                "m.membership_plan_id " +
                 "FROM payments p " +
                 "JOIN members m ON p.member_id = m.id " +
                 "JOIN users u ON m.user_id = u.id " +
-                "LEFT JOIN membership_plans mp ON m.membership_plan_id = mp.id " +
                 "WHERE p.member_id = ? " +
                 "ORDER BY p.payment_date DESC";
 
@@ -159,13 +249,32 @@ public class PaymentDAO {
         return payments;
     }
 
+    /**
+     * Single payment with member details, or null if there is none
+     */
+    public Payment getPaymentById(int paymentId) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(PAYMENT_SELECT + "WHERE p.id = ?")) {
+
+            stmt.setInt(1, paymentId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return extractPaymentFromResultSet(rs);
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error retrieving payment by ID: " + paymentId, e);
+        }
+
+        return null;
+    }
+
     public Payment getPaymentByTransactionId(String transactionId) {
         String sql = "SELECT p.*, u.first_name, u.last_name, u.email, u.phone, " +
-                "mp.plan_name, mp.price as plan_price " +
+                "m.membership_plan_id " +
                 "FROM payments p " +
                 "JOIN members m ON p.member_id = m.id " +
                 "JOIN users u ON m.user_id = u.id " +
-                "LEFT JOIN membership_plans mp ON m.membership_plan_id = mp.id " +
                 "WHERE p.transaction_id = ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
@@ -185,172 +294,322 @@ public class PaymentDAO {
     }
 
     public boolean updatePaymentStatus(int paymentId, String status) {
-        String sql = "UPDATE payments SET status = ? WHERE id = ?";
+        boolean updated = changePaymentStatus(paymentId, status, null, null);
+        if (updated) {
+            LOGGER.log(Level.INFO, "Payment status updated: ID {0} -> {1}", new Object[]{paymentId, status});
+        }
+        return updated;
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    public boolean processRefund(int paymentId, BigDecimal refundAmount, String reason) {
+        boolean refunded = changePaymentStatus(paymentId, "REFUNDED", refundAmount, reason);
+        if (refunded) {
+            LOGGER.log(Level.INFO, "Refund processed: ID {0}, Amount: {1}",
+                    new Object[]{paymentId, refundAmount});
+        }
+        return refunded;
+    }
 
-            stmt.setString(1, status);
-            stmt.setInt(2, paymentId);
+    /**
+     * Change a payment's status (recording a refund when refundAmount is given) and move
+     * its totals between rows of payment_status_summary in the same transaction. The
+     * change_log row is part of that transaction; the PaymentChanged event follows the commit.
+     */
+    private boolean changePaymentStatus(int paymentId, String newStatus, BigDecimal refundAmount, String reason) {
+        String lockSql = "SELECT member_id, status, final_amount, refund_amount FROM payments WHERE id = ? FOR UPDATE";
+        String statusSql = "UPDATE payments SET status = ? WHERE id = ?";
+        String refundSql = "UPDATE payments SET refund_amount = ?, refund_reason = ?, " +
+                "refund_date = CURRENT_TIMESTAMP, status = ? WHERE id = ?";
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            int memberId;
+            String oldStatus;
+            BigDecimal finalAmount;
+            BigDecimal oldRefund;
+            try (PreparedStatement stmt = conn.prepareStatement(lockSql)) {
+                stmt.setInt(1, paymentId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        conn.rollback();
+                        return false;
+                    }
+                    memberId = rs.getInt("member_id");
+                    oldStatus = rs.getString("status");
+                    finalAmount = orZero(rs.getBigDecimal("final_amount"));
+                    oldRefund = orZero(rs.getBigDecimal("refund_amount"));
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(refundAmount != null ? refundSql : statusSql)) {
+                if (refundAmount != null) {
+                    stmt.setBigDecimal(1, refundAmount);
+                    stmt.setString(2, reason);
+                    stmt.setString(3, newStatus);
+                    stmt.setInt(4, paymentId);
+                } else {
+                    stmt.setString(1, newStatus);
+                    stmt.setInt(2, paymentId);
+                }
+                stmt.executeUpdate();
+            }
 
-            boolean updated = stmt.executeUpdate() > 0;
-            if (updated) {
-                LOGGER.log(Level.INFO, "Payment status updated: ID {0} -> {1}", new Object[]{paymentId, status});
+            BigDecimal newRefund = refundAmount != null ? refundAmount : oldRefund;
+
+            // Touch summary rows in a fixed order so concurrent transitions cannot deadlock.
+            // A payment without a status was never counted, so it only gains a row.
+            if (oldStatus == null) {
+                adjustStatusSummary(conn, newStatus, 1, finalAmount, newRefund);
+            } else if (oldStatus.compareTo(newStatus) <= 0) {
+                adjustStatusSummary(conn, oldStatus, -1, finalAmount.negate(), oldRefund.negate());
+                adjustStatusSummary(conn, newStatus, 1, finalAmount, newRefund);
+            } else {
+                adjustStatusSummary(conn, newStatus, 1, finalAmount, newRefund);
+                adjustStatusSummary(conn, oldStatus, -1, finalAmount.negate(), oldRefund.negate());
             }
-            return updated;
+
+            PaymentChanged event = new PaymentChanged(paymentId, memberId,
+                    refundAmount != null ? PaymentChanged.Kind.REFUNDED : PaymentChanged.Kind.STATUS_CHANGED);
+            ChangeLog.append(conn, event);
+            conn.commit();
+            DomainEventBus.getInstance().publish(event);
+            return true;
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error updating payment status", e);
+            LOGGER.log(Level.SEVERE, "Error changing payment status: ID " + paymentId + " -> " + newStatus, e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
+                }
+            }
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.SEVERE, "Error closing connection", e);
+                }
+            }
         }
 
         return false;
     }
 
-    public boolean processRefund(int paymentId, BigDecimal refundAmount, String reason) {
-        String sql = "UPDATE payments SET refund_amount = ?, refund_reason = ?, " +
-                "refund_date = CURRENT_TIMESTAMP, status = ? WHERE id = ?";
+    /**
+     * Delete all of a member's payments on the caller's connection, ahead of deleting the
+     * member, and take them out of payment_status_summary. The member's foreign-key
+     * cascade fires no triggers; an explicit delete fires payment_deleted, which queues
+     * the payments' days for DailyRollupJob to recompute.
+     */
+    void deletePaymentsOfMember(Connection conn, int memberId) throws SQLException {
+        String lockSql = "SELECT status, final_amount, refund_amount FROM payments WHERE member_id = ? FOR UPDATE";
+        String deleteSql = "DELETE FROM payments WHERE member_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        // Sorted by status so summary rows are touched in a fixed order
+        Map<String, StatusTotals> totals = new TreeMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(lockSql)) {
+            stmt.setInt(1, memberId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String status = rs.getString("status");
+                    if (status == null) continue;
+                    StatusTotals sums = totals.computeIfAbsent(status, key -> new StatusTotals());
+                    sums.count++;
+                    sums.amount = sums.amount.add(orZero(rs.getBigDecimal("final_amount")));
+                    sums.refund = sums.refund.add(orZero(rs.getBigDecimal("refund_amount")));
+                }
+            }
+        }
+
+        for (Map.Entry<String, StatusTotals> entry : totals.entrySet()) {
+            StatusTotals sums = entry.getValue();
+            adjustStatusSummary(conn, entry.getKey(), -sums.count, sums.amount.negate(), sums.refund.negate());
+        }
 
-            stmt.setBigDecimal(1, refundAmount);
-            stmt.setString(2, reason);
-            stmt.setString(3, "REFUNDED");
-            stmt.setInt(4, paymentId);
+        try (PreparedStatement stmt = conn.prepareStatement(deleteSql)) {
+            stmt.setInt(1, memberId);
+            stmt.executeUpdate();
+        }
+    }
 
-            boolean refunded = stmt.executeUpdate() > 0;
-            if (refunded) {
-                LOGGER.log(Level.INFO, "Refund processed: ID {0}, Amount: {1}",
-                        new Object[]{paymentId, refundAmount});
+    /**
+     * Add deltas to one status row of payment_status_summary on the caller's connection
+     */
+    private void adjustStatusSummary(Connection conn, String status, int countDelta,
+                                     BigDecimal amountDelta, BigDecimal refundDelta) throws SQLException {
+        String updateSql = "UPDATE payment_status_summary SET payment_count = payment_count + ?, " +
+                "amount_total = amount_total + ?, refund_total = refund_total + ? WHERE status = ?";
+        String insertSql = "INSERT INTO payment_status_summary (status, payment_count, amount_total, refund_total) " +
+                "VALUES (?, ?, ?, ?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+            stmt.setInt(1, countDelta);
+            stmt.setBigDecimal(2, amountDelta);
+            stmt.setBigDecimal(3, refundDelta);
+            stmt.setString(4, status);
+            if (stmt.executeUpdate() > 0) {
+                return;
             }
-            return refunded;
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error processing refund", e);
         }
 
-        return false;
+        // First payment with a status the schema did not seed
+        try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
+            stmt.setString(1, status);
+            stmt.setInt(2, countDelta);
+            stmt.setBigDecimal(3, amountDelta);
+            stmt.setBigDecimal(4, refundDelta);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
     }
 
-    // COMPLETELY REWRITTEN - ULTRA SIMPLE AND BULLETPROOF
+    private static final class StatusTotals {
+        int count;
+        BigDecimal amount = BigDecimal.ZERO;
+        BigDecimal refund = BigDecimal.ZERO;
+    }
+
+    /**
+     * Read payment statistics from payment_status_summary (one row per status)
+     */
     public PaymentStats getPaymentStatistics() {
-        System.out.println("\n🔄 ========== LOADING PAYMENT STATISTICS ==========");
+        String sql = "SELECT status, payment_count, amount_total, refund_total FROM payment_status_summary";
         PaymentStats stats = new PaymentStats();
 
-        Connection conn = null;
-        Statement stmt = null;
-        ResultSet rs = null;
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
 
-        try {
-            conn = DatabaseConnection.getConnection();
-            System.out.println("✅ Database connection established");
+            while (rs.next()) {
+                String status = rs.getString("status");
+                int count = rs.getInt("payment_count");
+                BigDecimal amount = orZero(rs.getBigDecimal("amount_total"));
+
+                stats.totalPayments += count;
+                switch (status) {
+                    case "COMPLETED":
+                        stats.completedCount = count;
+                        stats.completedRevenue = amount;
+                        stats.totalRevenue = amount;
+                        break;
+                    case "PENDING":
+                        stats.pendingCount = count;
+                        stats.pendingRevenue = amount;
+                        break;
+                    case "FAILED":
+                        stats.failedCount = count;
+                        break;
+                    case "REFUNDED":
+                        stats.refundedCount = count;
+                        stats.totalRefunds = orZero(rs.getBigDecimal("refund_total"));
+                        break;
+                    default:
+                        break;
+                }
+            }
 
-            // STEP 1: Get total count
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery("SELECT COUNT(*) as total FROM payments");
-            if (rs.next()) {
-                stats.totalPayments = rs.getInt("total");
-                System.out.println("📊 Total payments in database: " + stats.totalPayments);
-            }
-            rs.close();
-            stmt.close();
-
-            // STEP 2: Get completed payments and revenue
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(
-                    "SELECT COUNT(*) as count, SUM(final_amount) as revenue " +
-                            "FROM payments WHERE status = 'COMPLETED'"
-            );
-            if (rs.next()) {
-                stats.completedCount = rs.getInt("count");
-                BigDecimal revenue = rs.getBigDecimal("revenue");
-                stats.completedRevenue = (revenue != null) ? revenue : BigDecimal.ZERO;
-                stats.totalRevenue = stats.completedRevenue;
-
-                System.out.println("✅ Completed payments: " + stats.completedCount);
-                System.out.println("💰 Completed revenue: ₹" + stats.completedRevenue);
-            }
-            rs.close();
-            stmt.close();
-
-            // STEP 3: Get pending payments
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(
-                    "SELECT COUNT(*) as count, SUM(final_amount) as revenue " +
-                            "FROM payments WHERE status = 'PENDING'"
-            );
-            if (rs.next()) {
-                stats.pendingCount = rs.getInt("count");
-                BigDecimal revenue = rs.getBigDecimal("revenue");
-                stats.pendingRevenue = (revenue != null) ? revenue : BigDecimal.ZERO;
+            System.out.println("📈 Payment statistics: " + stats.totalPayments + " payments, revenue ₹" +
+                    stats.totalRevenue + ", pending " + stats.pendingCount + ", refunds ₹" + stats.totalRefunds);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error retrieving payment statistics", e);
+        }
+
+        return stats;
+    }
+
+    /**
+     * Rebuild payment_status_summary if it is still empty while payments exist, as on a
+     * database that had payments before the summary table was added. Run at startup.
+     *
+     * @return true if the summary was rebuilt
+     */
+    public boolean backfillStatusSummary() {
+        String checkSql = "SELECT (SELECT COALESCE(SUM(payment_count), 0) FROM payment_status_summary) AS summarized, " +
+                "(SELECT COUNT(*) FROM payments) AS payments";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(checkSql);
+             ResultSet rs = stmt.executeQuery()) {
 
-                System.out.println("⏳ Pending payments: " + stats.pendingCount);
-                System.out.println("💵 Pending revenue: ₹" + stats.pendingRevenue);
+            if (!rs.next() || rs.getLong("summarized") > 0 || rs.getLong("payments") == 0) {
+                return false;
             }
-            rs.close();
-            stmt.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error checking payment status summary", e);
+            return false;
+        }
 
-            // STEP 4: Get failed payments
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery("SELECT COUNT(*) as count FROM payments WHERE status = 'FAILED'");
-            if (rs.next()) {
-                stats.failedCount = rs.getInt("count");
-                System.out.println("❌ Failed payments: " + stats.failedCount);
-            }
-            rs.close();
-            stmt.close();
-
-            // STEP 5: Get refunded payments and amount
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(
-                    "SELECT COUNT(*) as count, SUM(refund_amount) as total_refunds " +
-                            "FROM payments WHERE status = 'REFUNDED'"
-            );
-            if (rs.next()) {
-                stats.refundedCount = rs.getInt("count");
-                BigDecimal refunds = rs.getBigDecimal("total_refunds");
-                stats.totalRefunds = (refunds != null) ? refunds : BigDecimal.ZERO;
+        LOGGER.info("Payment status summary is empty; backfilling from payments");
+        return rebuildStatusSummary();
+    }
+
+    /**
+     * Recompute payment_status_summary from the payments table, e.g. to repair drift.
+     * Resetting the rows first locks them, so concurrent status changes wait for the rebuild.
+     */
+    public boolean rebuildStatusSummary() {
+        String resetSql = "UPDATE payment_status_summary SET payment_count = 0, amount_total = 0, refund_total = 0";
+        String totalsSql = "SELECT status, COUNT(*) AS payment_count, SUM(final_amount) AS amount_total, " +
+                "SUM(refund_amount) AS refund_total FROM payments WHERE status IS NOT NULL GROUP BY status";
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
 
-                System.out.println("🔄 Refunded payments: " + stats.refundedCount);
-                System.out.println("💸 Total refunds: ₹" + stats.totalRefunds);
+            try (PreparedStatement stmt = conn.prepareStatement(resetSql)) {
+                stmt.executeUpdate();
             }
 
-            System.out.println("\n✅ ========== STATISTICS LOADED SUCCESSFULLY ==========");
-            System.out.println("📈 SUMMARY:");
-            System.out.println("   Total Revenue: ₹" + stats.totalRevenue);
-            System.out.println("   Completed: " + stats.completedCount + " payments");
-            System.out.println("   Pending: " + stats.pendingCount + " payments");
-            System.out.println("   Refunds: ₹" + stats.totalRefunds);
-            System.out.println("=====================================================\n");
+            try (PreparedStatement stmt = conn.prepareStatement(totalsSql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    adjustStatusSummary(conn, rs.getString("status"), rs.getInt("payment_count"),
+                            orZero(rs.getBigDecimal("amount_total")), orZero(rs.getBigDecimal("refund_total")));
+                }
+            }
 
+            conn.commit();
+            LOGGER.info("Payment status summary rebuilt");
+            return true;
         } catch (SQLException e) {
-            System.err.println("❌ ========== SQL ERROR ==========");
-            System.err.println("Error message: " + e.getMessage());
-            System.err.println("SQL State: " + e.getSQLState());
-            System.err.println("Error Code: " + e.getErrorCode());
-            e.printStackTrace();
-            System.err.println("==================================\n");
-
-            LOGGER.log(Level.SEVERE, "Error retrieving payment statistics", e);
+            LOGGER.log(Level.SEVERE, "Error rebuilding payment status summary", e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
+                }
+            }
         } finally {
-            try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-                if (conn != null) conn.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources", e);
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.SEVERE, "Error closing connection", e);
+                }
             }
         }
 
-        return stats;
+        return false;
     }
 
     public List<Payment> getPaymentsByDateRange(LocalDate startDate, LocalDate endDate) {
         List<Payment> payments = new ArrayList<>();
         String sql = "SELECT p.*, u.first_name, u.last_name, u.email, u.phone, " +
-                "mp.plan_name, mp.price as plan_price " +
+                "m.membership_plan_id " +
                 "FROM payments p " +
                 "JOIN members m ON p.member_id = m.id " +
                 "JOIN users u ON m.user_id = u.id " +
-                "LEFT JOIN membership_plans mp ON m.membership_plan_id = mp.id " +
                 "WHERE DATE(p.payment_date) BETWEEN ? AND ? " +
                 "ORDER BY p.payment_date DESC";
 
@@ -372,56 +631,199 @@ public class PaymentDAO {
         return payments;
     }
 
-    public List<Payment> searchPayments(String searchTerm) {
+    // ========== KEYSET PAGINATION ==========
+
+    /**
+     * Get one page of payments, newest first.
+     * Pass null as the cursor for the first page, then the page's nextCursor.
+     */
+    public PaymentPage getPaymentsPage(PageCursor after, int pageSize) {
+        return fetchPaymentPage(null, new ArrayList<>(), after, pageSize, null);
+    }
+
+    /**
+     * Get one page of payments of one type (MEMBERSHIP, CLASS, ...), newest first
+     */
+    public PaymentPage getPaymentsByTypePage(String paymentType, PageCursor after, int pageSize) {
+        List<Object> params = new ArrayList<>();
+        params.add(paymentType);
+        return fetchPaymentPage("p.payment_type = ?", params, after, pageSize, null);
+    }
+
+    /**
+     * Get one page of payments made between the given dates (inclusive)
+     */
+    public PaymentPage getPaymentsByDateRangePage(LocalDate startDate, LocalDate endDate,
+                                                  PageCursor after, int pageSize) {
+        // Half-open range on the raw column so the payment_date index stays usable
+        List<Object> params = new ArrayList<>();
+        params.add(Timestamp.valueOf(startDate.atStartOfDay()));
+        params.add(Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+        return fetchPaymentPage("p.payment_date >= ? AND p.payment_date < ?", params, after, pageSize, null);
+    }
+
+    /**
+     * Get one page of payments matching a member name, transaction ID or invoice number
+     */
+    public PaymentPage searchPaymentsPage(String searchTerm, PageCursor after, int pageSize) {
+        return searchPaymentsPage(searchTerm, after, pageSize, null);
+    }
+
+    /**
+     * Search one page of payments, letting the caller cancel the database query (handle may be null)
+     */
+    public PaymentPage searchPaymentsPage(String searchTerm, PageCursor after, int pageSize,
+                                          CancellableQuery handle) {
+        List<Object> idParams = new ArrayList<>();
+        String idFilter = paymentIdFilter(searchTerm, idParams);
+        if (idFilter != null) {
+            return fetchPaymentPage(idFilter, idParams, after, pageSize, handle);
+        }
+
+        String searchPattern = "%" + searchTerm + "%";
+        List<Object> params = new ArrayList<>();
+        params.add(searchPattern);
+        params.add(searchPattern);
+        params.add(searchPattern);
+        params.add(searchPattern);
+        return fetchPaymentPage("(u.first_name LIKE ? OR u.last_name LIKE ? " +
+                "OR p.transaction_id LIKE ? OR p.invoice_number LIKE ?)", params, after, pageSize, handle);
+    }
+
+    /**
+     * For ID-shaped input (TXN.../INV...) build an indexed lookup on the matching column:
+     * equality for a full-length ID, a leading-prefix LIKE otherwise
+     *
+     * @return filter SQL with its parameter added to params, or null for a name search
+     */
+    private String paymentIdFilter(String searchTerm, List<Object> params) {
+        Matcher matcher = PAYMENT_ID_PATTERN.matcher(searchTerm.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        String id = matcher.group(1).toUpperCase() + matcher.group(2);
+        String column = id.startsWith("TXN") ? "p.transaction_id" : "p.invoice_number";
+
+        if (matcher.group(2).length() == PAYMENT_ID_DIGITS) {
+            params.add(id);
+            return column + " = ?";
+        }
+        // Only digits follow the prefix, so there are no LIKE wildcards to escape
+        params.add(id + "%");
+        return column + " LIKE ?";
+    }
+
+    /**
+     * Fetch the page that follows the cursor in (payment_date DESC, id DESC) order.
+     * One extra row is read to tell whether another page exists.
+     */
+    private PaymentPage fetchPaymentPage(String filter, List<Object> params, PageCursor after, int pageSize,
+                                         CancellableQuery handle) {
+        StringBuilder sql = new StringBuilder(PAYMENT_SELECT);
+        List<String> conditions = new ArrayList<>();
+        if (filter != null) {
+            conditions.add(filter);
+        }
+        if (after != null) {
+            conditions.add("(p.payment_date < ? OR (p.payment_date = ? AND p.id < ?))");
+        }
+        if (!conditions.isEmpty()) {
+            sql.append("WHERE ").append(String.join(" AND ", conditions)).append(" ");
+        }
+        sql.append("ORDER BY p.payment_date DESC, p.id DESC LIMIT ?");
+
         List<Payment> payments = new ArrayList<>();
-        String sql = "SELECT p.*, u.first_name, u.last_name, u.email, u.phone, " +
-                "mp.plan_name, mp.price as plan_price " +
-                "FROM payments p " +
-                "JOIN members m ON p.member_id = m.id " +
-                "JOIN users u ON m.user_id = u.id " +
-                "LEFT JOIN membership_plans mp ON m.membership_plan_id = mp.id " +
-                "WHERE u.first_name LIKE ? OR u.last_name LIKE ? " +
-                "OR p.transaction_id LIKE ? OR p.invoice_number LIKE ? " +
-                "ORDER BY p.payment_date DESC";
+        boolean hasMore = false;
 
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
 
-            String searchPattern = "%" + searchTerm + "%";
-            stmt.setString(1, searchPattern);
-            stmt.setString(2, searchPattern);
-            stmt.setString(3, searchPattern);
-            stmt.setString(4, searchPattern);
-            ResultSet rs = stmt.executeQuery();
+            int index = 1;
+            for (Object param : params) {
+                stmt.setObject(index++, param);
+            }
+            if (after != null) {
+                stmt.setTimestamp(index++, after.getPaymentDate());
+                stmt.setTimestamp(index++, after.getPaymentDate());
+                stmt.setInt(index++, after.getId());
+            }
+            stmt.setInt(index, pageSize + 1);
+            CancellableQuery.attach(handle, stmt);
 
-            while (rs.next()) {
-                Payment payment = extractPaymentFromResultSet(rs);
-                payments.add(payment);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (payments.size() == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    payments.add(extractPaymentFromResultSet(rs));
+                }
+            } finally {
+                CancellableQuery.detach(handle, stmt);
             }
+
+            LOGGER.log(Level.INFO, "Retrieved page of {0} payments (more: {1})",
+                    new Object[]{payments.size(), hasMore});
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error searching payments", e);
+            if (CancellableQuery.isCancelled(handle)) {
+                LOGGER.log(Level.FINE, "Payment page query cancelled");
+            } else {
+                LOGGER.log(Level.SEVERE, "Error retrieving payment page", e);
+            }
         }
 
-        return payments;
+        PageCursor next = null;
+        if (!payments.isEmpty()) {
+            Payment last = payments.get(payments.size() - 1);
+            next = new PageCursor(last.getPaymentDate(), last.getId());
+        }
+        return new PaymentPage(payments, next, hasMore);
     }
 
-    public boolean deletePayment(int paymentId) {
-        String sql = "UPDATE payments SET status = 'CANCELLED' WHERE id = ?";
+    /**
+     * Stream every payment (oldest first) to the handler through a forward-only server
+     * cursor, holding at most EXPORT_FETCH_SIZE rows in memory at a time
+     *
+     * @return number of rows handed to the handler
+     */
+    public long streamPayments(PaymentStreamHandler handler) throws SQLException, IOException {
+        String sql = PAYMENT_SELECT + "ORDER BY p.id";
+        long rows = 0;
 
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
 
-            stmt.setInt(1, paymentId);
-            boolean deleted = stmt.executeUpdate() > 0;
-            if (deleted) {
-                LOGGER.log(Level.INFO, "Payment cancelled: ID {0}", paymentId);
+            stmt.setFetchSize(EXPORT_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows++;
+                    if (!handler.handle(extractPaymentFromResultSet(rs))) {
+                        LOGGER.log(Level.INFO, "Payment stream stopped by handler after {0} rows", rows);
+                        break;
+                    }
+                }
             }
-            return deleted;
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error deleting payment", e);
         }
 
-        return false;
+        return rows;
+    }
+
+    /**
+     * Receives payments one at a time from streamPayments; return false to stop early
+     */
+    @FunctionalInterface
+    public interface PaymentStreamHandler {
+        boolean handle(Payment payment) throws IOException;
+    }
+
+    public boolean deletePayment(int paymentId) {
+        boolean deleted = changePaymentStatus(paymentId, "CANCELLED", null, null);
+        if (deleted) {
+            LOGGER.log(Level.INFO, "Payment cancelled: ID {0}", paymentId);
+        }
+        return deleted;
     }
 
     private Payment extractPaymentFromResultSet(ResultSet rs) throws SQLException {
@@ -454,17 +856,46 @@ public class PaymentDAO {
         member.setUser(user);
         payment.setMember(member);
 
-        String planName = rs.getString("plan_name");
-        if (planName != null) {
-            MembershipPlan plan = new MembershipPlan();
-            plan.setPlanName(planName);
-            plan.setPrice(rs.getBigDecimal("plan_price"));
-            payment.setMembershipPlan(plan);
-        }
+        payment.setMembershipPlan(planCatalog.get(rs.getInt("membership_plan_id")));
 
         return payment;
     }
 
+    /**
+     * Position in the (payment_date DESC, id DESC) ordering: the last row of a page
+     */
+    public static class PageCursor {
+        private final Timestamp paymentDate;
+        private final int id;
+
+        public PageCursor(Timestamp paymentDate, int id) {
+            this.paymentDate = paymentDate;
+            this.id = id;
+        }
+
+        public Timestamp getPaymentDate() { return paymentDate; }
+        public int getId() { return id; }
+    }
+
+    /**
+     * One page of payments plus the cursor for the page after it
+     */
+    public static class PaymentPage {
+        private final List<Payment> payments;
+        private final PageCursor nextCursor;
+        private final boolean hasMore;
+
+        public PaymentPage(List<Payment> payments, PageCursor nextCursor, boolean hasMore) {
+            this.payments = payments;
+            this.nextCursor = nextCursor;
+            this.hasMore = hasMore;
+        }
+
+        public List<Payment> getPayments() { return payments; }
+        public PageCursor getNextCursor() { return nextCursor; }
+        public boolean hasMore() { return hasMore; }
+    }
+
     public static class PaymentStats {
         public int totalPayments;
         public BigDecimal totalRevenue;
@@ -492,164 +923,78 @@ public class PaymentDAO {
      * Get count of completed payments for specific month
      */
     public int getCompletedPaymentsCount(int month, int year) throws SQLException {
-        String query = "SELECT COUNT(*) as total FROM payments " +
-                "WHERE MONTH(payment_date) = ? AND YEAR(payment_date) = ? " +
-                "AND status = 'COMPLETED'";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setInt(1, month);
-            stmt.setInt(2, year);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("total");
-                }
-                return 0;
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error getting completed payments count", e);
-            return 0;
-        }
+        return (int) sumMonthlyFacts("payment_count", "status = 'COMPLETED'", null, month, year);
     }
 
     /**
      * Get monthly revenue for specific month and year
      */
     public double getMonthlyRevenue(int month, int year) throws SQLException {
-        String query = "SELECT COALESCE(SUM(final_amount), 0) as total FROM payments " +
-                "WHERE MONTH(payment_date) = ? AND YEAR(payment_date) = ? " +
-                "AND status = 'COMPLETED'";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setInt(1, month);
-            stmt.setInt(2, year);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble("total");
-                }
-                return 0.0;
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error getting monthly revenue", e);
-            return 0.0;
-        }
+        return sumMonthlyFacts("amount_total", "status = 'COMPLETED'", null, month, year);
     }
 
     /**
      * Get count of failed payments for specific month
      */
     public int getFailedPaymentsCount(int month, int year) throws SQLException {
-        String query = "SELECT COUNT(*) as total FROM payments " +
-                "WHERE MONTH(payment_date) = ? AND YEAR(payment_date) = ? " +
-                "AND status = 'FAILED'";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setInt(1, month);
-            stmt.setInt(2, year);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("total");
-                }
-                return 0;
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error getting failed payments count", e);
-            return 0;
-        }
+        return (int) sumMonthlyFacts("payment_count", "status = 'FAILED'", null, month, year);
     }
 
     /**
      * Get count of refunded payments for specific month
      */
     public int getRefundedPaymentsCount(int month, int year) throws SQLException {
-        String query = "SELECT COUNT(*) as total FROM payments " +
-                "WHERE MONTH(payment_date) = ? AND YEAR(payment_date) = ? " +
-                "AND status = 'REFUNDED'";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setInt(1, month);
-            stmt.setInt(2, year);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("total");
-                }
-                return 0;
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error getting refunded payments count", e);
-            return 0;
-        }
+        return (int) sumMonthlyFacts("payment_count", "status = 'REFUNDED'", null, month, year);
     }
 
     /**
      * Get total refund amount for specific month
      */
     public double getTotalRefundsForMonth(int month, int year) throws SQLException {
-        String query = "SELECT COALESCE(SUM(refund_amount), 0) as total FROM payments " +
-                "WHERE MONTH(payment_date) = ? AND YEAR(payment_date) = ? " +
-                "AND status = 'REFUNDED'";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setInt(1, month);
-            stmt.setInt(2, year);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble("total");
-                }
-                return 0.0;
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error getting total refunds", e);
-            return 0.0;
-        }
+        return sumMonthlyFacts("refund_total", "status = 'REFUNDED'", null, month, year);
     }
 
     /**
      * Get payment count by method for specific month
      */
     public int getPaymentCountByMethod(String method, int month, int year) throws SQLException {
-        String query = "SELECT COUNT(*) as total FROM payments " +
-                "WHERE payment_method = ? " +
-                "AND MONTH(payment_date) = ? AND YEAR(payment_date) = ? " +
-                "AND status = 'COMPLETED'";
+        return (int) sumMonthlyFacts("payment_count", "status = 'COMPLETED' AND payment_method = ?",
+                method, month, year);
+    }
+
+    /**
+     * Sum one column of daily_payment_facts over a calendar month (fact_date range, so the
+     * primary key is used). The facts are read as they stand; DailyRollupJob keeps them at
+     * most a few minutes behind payments.
+     */
+    private double sumMonthlyFacts(String column, String filter, String param, int month, int year) {
+        String query = "SELECT COALESCE(SUM(" + column + "), 0) as total FROM daily_payment_facts " +
+                "WHERE fact_date >= ? AND fact_date < ? AND " + filter;
 
+        LocalDate first = LocalDate.of(year, month, 1);
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
 
-            stmt.setString(1, method);
-            stmt.setInt(2, month);
-            stmt.setInt(3, year);
+            stmt.setDate(1, Date.valueOf(first));
+            stmt.setDate(2, Date.valueOf(first.plusMonths(1)));
+            if (param != null) {
+                stmt.setString(3, param);
+            }
 
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("total");
-                }
-                return 0;
+                return rs.next() ? rs.getDouble("total") : 0.0;
             }
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error getting payment count by method", e);
-            return 0;
+            LOGGER.log(Level.SEVERE, "Error summing " + column + " for " + month + "/" + year, e);
+            return 0.0;
         }
     }
+
     /**
      * Get count of pending payments (all pending, not just current month)
      */
     public int getPendingPaymentsCount() throws SQLException {
-        String query = "SELECT COUNT(*) as total FROM payments WHERE status = 'PENDING'";
+        String query = "SELECT payment_count as total FROM payment_status_summary WHERE status = 'PENDING'";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query);
@@ -664,4 +1009,4 @@ public class PaymentDAO {
             return 0;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,206 @@
+package com.gymmanagementsystem.dao;
+
+import com.gymmanagementsystem.util.DatabaseConnection;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Report data for any set of months.
+ *
+ * Every monthly metric is computed with one grouped query per table (members,
+ * daily payment facts, daily class facts) over the whole requested span, so a
+ * 24-month trend costs the same number of round trips as a single month.
+ * The fact tables are read as they stand; DailyRollupJob keeps them at most a
+ * few minutes behind the source tables.
+ */
+public class ReportDataDAO {
+
+    private static final Logger LOGGER = Logger.getLogger(ReportDataDAO.class.getName());
+
+    /**
+     * Load metrics for the given months on a single connection
+     */
+    public MultiMonthReport getReportData(Collection<YearMonth> months) throws SQLException {
+        MultiMonthReport report = new MultiMonthReport();
+        if (months.isEmpty()) {
+            return report;
+        }
+
+        TreeSet<YearMonth> requested = new TreeSet<>(months);
+        for (YearMonth month : requested) {
+            report.months.put(month, new MonthlyMetrics());
+        }
+
+        Date from = Date.valueOf(requested.first().atDay(1));
+        Date to = Date.valueOf(requested.last().plusMonths(1).atDay(1));
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            loadMemberMetrics(conn, report);
+            loadPaymentMetrics(conn, report, from, to);
+            loadClassMetrics(conn, report, from, to);
+            report.pendingPayments = loadPendingCount(conn);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error loading report data for " + requested.first() +
+                    " - " + requested.last(), e);
+            throw e;
+        }
+
+        return report;
+    }
+
+    /**
+     * New members per month plus the overall totals, from one pass over members
+     */
+    private void loadMemberMetrics(Connection conn, MultiMonthReport report) throws SQLException {
+        String sql = "SELECT YEAR(membership_start_date) AS yr, MONTH(membership_start_date) AS mon, " +
+                "COUNT(*) AS total, " +
+                "SUM(CASE WHEN membership_status = 'ACTIVE' THEN 1 ELSE 0 END) AS active " +
+                "FROM members GROUP BY YEAR(membership_start_date), MONTH(membership_start_date)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                int total = rs.getInt("total");
+                report.totalMembers += total;
+                report.activeMembers += rs.getInt("active");
+
+                MonthlyMetrics metrics = metricsFor(report, rs);
+                if (metrics != null) {
+                    metrics.newMembers = total;
+                }
+            }
+        }
+    }
+
+    /**
+     * Payment counts and amounts per month, status and method over the requested span
+     */
+    private void loadPaymentMetrics(Connection conn, MultiMonthReport report, Date from, Date to)
+            throws SQLException {
+        String sql = "SELECT YEAR(fact_date) AS yr, MONTH(fact_date) AS mon, status, payment_method, " +
+                "SUM(payment_count) AS payment_count, " +
+                "SUM(amount_total) AS amount_total, " +
+                "SUM(refund_total) AS refund_total " +
+                "FROM daily_payment_facts WHERE fact_date >= ? AND fact_date < ? " +
+                "GROUP BY YEAR(fact_date), MONTH(fact_date), status, payment_method";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, from);
+            stmt.setDate(2, to);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    MonthlyMetrics metrics = metricsFor(report, rs);
+                    if (metrics == null) continue;
+
+                    String status = rs.getString("status");
+                    String method = rs.getString("payment_method");
+                    int count = rs.getInt("payment_count");
+
+                    switch (status) {
+                        case "COMPLETED":
+                            metrics.completedPayments += count;
+                            metrics.revenue = metrics.revenue.add(rs.getBigDecimal("amount_total"));
+                            metrics.methodCounts.merge(method, count, Integer::sum);
+                            break;
+                        case "FAILED":
+                            metrics.failedPayments += count;
+                            break;
+                        case "REFUNDED":
+                            metrics.refundedPayments += count;
+                            metrics.refunds = metrics.refunds.add(rs.getBigDecimal("refund_total"));
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Class bookings and attendance per month (by class date) over the requested span
+     */
+    private void loadClassMetrics(Connection conn, MultiMonthReport report, Date from, Date to)
+            throws SQLException {
+        String sql = "SELECT YEAR(fact_date) AS yr, MONTH(fact_date) AS mon, " +
+                "SUM(booking_count) AS bookings, SUM(attended_count) AS attended " +
+                "FROM daily_class_facts WHERE fact_date >= ? AND fact_date < ? " +
+                "GROUP BY YEAR(fact_date), MONTH(fact_date)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, from);
+            stmt.setDate(2, to);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    MonthlyMetrics metrics = metricsFor(report, rs);
+                    if (metrics != null) {
+                        metrics.classBookings = rs.getInt("bookings");
+                        metrics.classAttendance = rs.getInt("attended");
+                    }
+                }
+            }
+        }
+    }
+
+    private int loadPendingCount(Connection conn) throws SQLException {
+        String sql = "SELECT payment_count FROM payment_status_summary WHERE status = 'PENDING'";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt("payment_count") : 0;
+        }
+    }
+
+    /**
+     * Metrics bucket for the row's year/month, or null if that month was not requested
+     */
+    private MonthlyMetrics metricsFor(MultiMonthReport report, ResultSet rs) throws SQLException {
+        int year = rs.getInt("yr");
+        if (rs.wasNull()) return null;
+        return report.months.get(YearMonth.of(year, rs.getInt("mon")));
+    }
+
+    /**
+     * Metrics for each requested month plus current totals
+     */
+    public static class MultiMonthReport {
+        public final Map<YearMonth, MonthlyMetrics> months = new TreeMap<>();
+        public int totalMembers;
+        public int activeMembers;
+        public int pendingPayments;
+
+        /** Metrics for a month (all zero if the month was not requested) */
+        public MonthlyMetrics get(YearMonth month) {
+            MonthlyMetrics metrics = months.get(month);
+            return metrics != null ? metrics : new MonthlyMetrics();
+        }
+    }
+
+    public static class MonthlyMetrics {
+        public int newMembers;
+        public BigDecimal revenue = BigDecimal.ZERO;
+        public int completedPayments;
+        public int failedPayments;
+        public int refundedPayments;
+        public BigDecimal refunds = BigDecimal.ZERO;
+        public int classBookings;
+        public int classAttendance;
+        // Completed payments per payment method
+        public final Map<String, Integer> methodCounts = new HashMap<>();
+
+        public int getMethodCount(String method) {
+            return methodCounts.getOrDefault(method, 0);
+        }
+    }
+}
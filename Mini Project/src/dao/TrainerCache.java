@@ -0,0 +1,147 @@
+package com.gymmanagementsystem.dao;
+
+import com.gymmanagementsystem.model.Trainer;
+import com.gymmanagementsystem.model.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Read-through cache of the trainer list used by TrainerDAO.
+ *
+ * Holds the full list (with class counts) in display order plus a by-ID map.
+ * Trainer writes in this process invalidate it, class creates/deletes adjust the
+ * affected counts in place, and entries older than MAX_AGE_MILLIS are reloaded so
+ * changes made by another client show up within that window.
+ *
+ * Callers always get copies, so editing a returned Trainer never alters the cache.
+ */
+public class TrainerCache {
+
+    private static final Logger LOGGER = Logger.getLogger(TrainerCache.class.getName());
+
+    // Upper bound on how long a change made by another client can go unseen
+    private static final long MAX_AGE_MILLIS = 60_000;
+
+    private static TrainerCache instance;
+
+    private List<Trainer> trainers;
+    private final Map<Integer, Trainer> byId = new HashMap<>();
+    private long loadedAt;
+    // Bumped on every change so a load that raced with it is not stored
+    private long version;
+
+    private TrainerCache() {}
+
+    public static synchronized TrainerCache getInstance() {
+        if (instance == null) {
+            instance = new TrainerCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Cached trainer list, or null if it is missing or too old
+     */
+    synchronized List<Trainer> getAll() {
+        if (!isFresh()) return null;
+
+        List<Trainer> copies = new ArrayList<>(trainers.size());
+        for (Trainer trainer : trainers) {
+            copies.add(copy(trainer));
+        }
+        return copies;
+    }
+
+    /**
+     * Cached trainer, or null if it is not cached (or the cache is too old)
+     */
+    synchronized Trainer get(int trainerId) {
+        if (!isFresh()) return null;
+        Trainer trainer = byId.get(trainerId);
+        return trainer != null ? copy(trainer) : null;
+    }
+
+    /**
+     * Version to pass to {@link #store} after loading from the database
+     */
+    synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Cache a freshly loaded list, unless something changed since loadVersion was read
+     */
+    synchronized void store(List<Trainer> loaded, long loadVersion) {
+        if (loadVersion != version) {
+            LOGGER.fine("Discarding trainer list loaded before a concurrent change");
+            return;
+        }
+
+        trainers = new ArrayList<>(loaded.size());
+        byId.clear();
+        for (Trainer trainer : loaded) {
+            Trainer cached = copy(trainer);
+            trainers.add(cached);
+            byId.put(cached.getId(), cached);
+        }
+        loadedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Drop everything; the next read goes to the database
+     */
+    public synchronized void invalidate() {
+        version++;
+        trainers = null;
+        byId.clear();
+    }
+
+    /**
+     * Keep a trainer's class count in step with a class insert (+1) or delete (-1)
+     */
+    synchronized void adjustClassCount(int trainerId, int delta) {
+        version++;
+        Trainer trainer = byId.get(trainerId);
+        if (trainer != null) {
+            trainer.setTotalClasses(Math.max(0, trainer.getTotalClasses() + delta));
+            LOGGER.log(Level.FINE, "Trainer {0} class count now {1}",
+                    new Object[]{trainerId, trainer.getTotalClasses()});
+        }
+    }
+
+    private boolean isFresh() {
+        return trainers != null && System.currentTimeMillis() - loadedAt < MAX_AGE_MILLIS;
+    }
+
+    static Trainer copy(Trainer source) {
+        Trainer trainer = new Trainer();
+        trainer.setId(source.getId());
+        trainer.setUserId(source.getUserId());
+        trainer.setSpecialization(source.getSpecialization());
+        trainer.setCertifications(source.getCertifications());
+        trainer.setHourlyRate(source.getHourlyRate());
+        trainer.setAvailability(source.getAvailability());
+        trainer.setTotalClasses(source.getTotalClasses());
+        trainer.setAverageRating(source.getAverageRating());
+        trainer.setActive(source.isActive());
+
+        User sourceUser = source.getUser();
+        if (sourceUser != null) {
+            User user = new User();
+            user.setId(sourceUser.getId());
+            user.setUsername(sourceUser.getUsername());
+            user.setEmail(sourceUser.getEmail());
+            user.setFirstName(sourceUser.getFirstName());
+            user.setLastName(sourceUser.getLastName());
+            user.setPhone(sourceUser.getPhone());
+            user.setRole(sourceUser.getRole());
+            trainer.setUser(user);
+        }
+        return trainer;
+    }
+}
@@ -2,6 +2,7 @@ package com.gymmanagementsystem.dao;
 
 import com.gymmanagementsystem.model.Trainer;
 import com.gymmanagementsystem.model.User;
+import com.gymmanagementsystem.util.CancellableQuery;
 import com.gymmanagementsystem.util.DatabaseConnection;
 
 import java.math.BigDecimal;
@@ -20,6 +21,8 @@ public class TrainerDAO {
 
     private static final Logger LOGGER = Logger.getLogger(TrainerDAO.class.getName());
 
+    private final TrainerCache cache = TrainerCache.getInstance();
+
     /**
      * Create a new trainer with transaction support
      */
@@ -45,6 +48,7 @@ public class TrainerDAO {
                         LOGGER.log(Level.INFO, "Trainer created successfully with ID: {0}", trainer.getId());
                     }
                 }
+                cache.invalidate();
                 return true;
             }
         } catch (SQLException e) {
@@ -56,11 +60,17 @@ public class TrainerDAO {
     }
 
     /**
-     * Get all trainers with enhanced data
+     * Get all trainers with enhanced data, served from the trainer cache when it is fresh
      * FIXED: Changed LEFT JOIN from gym_classes to classes (your actual table name)
      */
     public List<Trainer> getAllTrainers() {
+        List<Trainer> cached = cache.getAll();
+        if (cached != null) {
+            return cached;
+        }
+
         List<Trainer> trainers = new ArrayList<>();
+        long cacheVersion = cache.version();
 
         // Try with classes table first (your actual table name from schema)
         String sql = "SELECT t.*, u.username, u.email, u.first_name, u.last_name, u.phone, " +
@@ -80,6 +90,8 @@ public class TrainerDAO {
             while (rs.next()) {
                 trainers.add(extractTrainerFromResultSet(rs));
             }
+            // Only the full query is cached; the fallback below has no class counts
+            cache.store(trainers, cacheVersion);
 
             LOGGER.log(Level.INFO, "Retrieved {0} trainers", trainers.size());
             System.out.println("✅ TrainerDAO: Retrieved " + trainers.size() + " trainers from database");
@@ -150,6 +162,11 @@ public class TrainerDAO {
      * Get trainer by ID with full details
      */
     public Trainer getTrainerById(int trainerId) {
+        Trainer cached = cache.get(trainerId);
+        if (cached != null) {
+            return cached;
+        }
+
         String sql = "SELECT t.*, u.username, u.email, u.first_name, u.last_name, u.phone, u.role " +
                 "FROM trainers t " +
                 "JOIN users u ON t.user_id = u.id " +
@@ -190,6 +207,7 @@ public class TrainerDAO {
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected > 0) {
                 LOGGER.log(Level.INFO, "Trainer updated successfully: ID {0}", trainer.getId());
+                cache.invalidate();
                 return true;
             }
         } catch (SQLException e) {
@@ -213,6 +231,7 @@ public class TrainerDAO {
 
             if (rowsAffected > 0) {
                 LOGGER.log(Level.INFO, "Trainer deleted: ID {0}", trainerId);
+                cache.invalidate();
                 return true;
             }
         } catch (SQLException e) {
@@ -226,6 +245,13 @@ public class TrainerDAO {
      * NEW: Search trainers by name, email, phone, or specialization
      */
     public List<Trainer> searchTrainers(String searchTerm) {
+        return searchTrainers(searchTerm, null);
+    }
+
+    /**
+     * Search trainers, letting the caller cancel the database query (handle may be null)
+     */
+    public List<Trainer> searchTrainers(String searchTerm, CancellableQuery handle) {
         List<Trainer> trainers = new ArrayList<>();
         String sql = "SELECT t.*, u.username, u.email, u.first_name, u.last_name, u.phone, u.role " +
                 "FROM trainers t " +
@@ -244,17 +270,24 @@ public class TrainerDAO {
             stmt.setString(3, searchPattern);
             stmt.setString(4, searchPattern);
             stmt.setString(5, searchPattern);
+            CancellableQuery.attach(handle, stmt);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     trainers.add(extractTrainerFromResultSetSimple(rs));
                 }
+            } finally {
+                CancellableQuery.detach(handle, stmt);
             }
 
             LOGGER.log(Level.INFO, "Search found {0} trainers for term: {1}",
                     new Object[]{trainers.size(), searchTerm});
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error searching trainers", e);
+            if (CancellableQuery.isCancelled(handle)) {
+                LOGGER.log(Level.FINE, "Trainer search cancelled for term: {0}", searchTerm);
+            } else {
+                LOGGER.log(Level.SEVERE, "Error searching trainers", e);
+            }
         }
 
         return trainers;
@@ -2,8 +2,10 @@ package com.gymmanagementsystem.dao;
 
 import com.gymmanagementsystem.model.User;
 import com.gymmanagementsystem.util.DatabaseConnection;
+import com.gymmanagementsystem.util.DomainEvent.BookingChanged;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -12,6 +14,8 @@ public class UserDAO {
 
     private static final Logger LOGGER = Logger.getLogger(UserDAO.class.getName());
 
+    private final MemberDAO memberDAO = new MemberDAO();
+
     public User authenticate(String username, String password) {
         String sql = "SELECT * FROM users WHERE username = ? AND password = ?";
 
@@ -183,6 +187,13 @@ public class UserDAO {
 
             if (rowsAffected > 0) {
                 LOGGER.info("=== UPDATE USER SUCCESS ===");
+                if ("TRAINER".equals(user.getRole())) {
+                    // Cached trainers (and the classes they teach) carry the user's name and contact details
+                    TrainerCache.getInstance().invalidate();
+                    EntityCaches.classes().invalidateAll();
+                } else if ("MEMBER".equals(user.getRole())) {
+                    EntityCaches.members().invalidateAll();
+                }
                 return true;
             } else {
                 LOGGER.warning("No rows affected - user may not exist");
@@ -199,23 +210,66 @@ public class UserDAO {
     }
 
     public boolean deleteUser(int userId) {
+        String memberSql = "SELECT id FROM members WHERE user_id = ?";
         String sql = "DELETE FROM users WHERE id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, userId);
-            int rowsAffected = stmt.executeUpdate();
-
-            if (rowsAffected > 0) {
-                LOGGER.log(Level.INFO, "User deleted: ID {0}", userId);
-                return true;
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // A member's bookings and payments go explicitly, so their triggers fire
+            int memberId = -1;
+            try (PreparedStatement stmt = conn.prepareStatement(memberSql)) {
+                stmt.setInt(1, userId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        memberId = rs.getInt("id");
+                    }
+                }
             }
+            List<BookingChanged> cancelled = memberId > 0
+                    ? memberDAO.deleteHistory(conn, memberId) : Collections.emptyList();
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, userId);
+                if (stmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
+            }
+            conn.commit();
+
+            LOGGER.log(Level.INFO, "User deleted: ID {0}", userId);
+            // Deleting a user cascades to their trainer or member row (and its classes/bookings)
+            TrainerCache.getInstance().invalidate();
+            EntityCaches.classes().invalidateAll();
+            EntityCaches.members().invalidateAll();
+            if (memberId > 0) {
+                memberDAO.onHistoryDeleted(memberId, cancelled);
+            }
+            return true;
+
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting user: " + userId, e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
+                }
+            }
+            return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.SEVERE, "Error closing connection", e);
+                }
+            }
         }
-
-        return false;
     }
 
     public boolean usernameExists(String username) {
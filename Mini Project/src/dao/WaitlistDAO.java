@@ -0,0 +1,295 @@
+package com.gymmanagementsystem.dao;
+
+import com.gymmanagementsystem.util.DatabaseConnection;
+import com.gymmanagementsystem.util.DomainEvent.BookingChanged;
+import com.gymmanagementsystem.util.DomainEvent.WaitlistChanged;
+import com.gymmanagementsystem.util.DomainEventBus;
+
+import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Waitlist for full classes.
+ *
+ * The class_waitlist table is the source of truth; each class's queue is also
+ * mirrored in memory (loaded on first use) so position lookups do not hit the
+ * database. Promotion runs inside ClassDAO.cancelBooking's transaction. Joins and
+ * leaves go to change_log, so ChangeFeedPoller drops other clients' mirrors of
+ * the class.
+ */
+public class WaitlistDAO {
+
+    private static final Logger LOGGER = Logger.getLogger(WaitlistDAO.class.getName());
+
+    // classId -> member IDs in arrival order
+    private static final Map<Integer, Deque<Integer>> MIRROR = new ConcurrentHashMap<>();
+
+    /**
+     * Add a member to the end of a class's waitlist, or book them straight in if a spot
+     * has opened up since the class was shown as full. The class row is locked first, so
+     * the capacity check and the insert cannot race a booking or a cancellation.
+     *
+     * @return 1-based position in the queue (the existing one if already waiting),
+     *         0 if the member was booked directly,
+     *         or -1 if the member is already booked, the class cannot be booked or the insert failed
+     */
+    public int joinWaitlist(int classId, int memberId) {
+        String bookedSql = "SELECT 1 FROM class_bookings WHERE class_id = ? AND member_id = ?";
+        String insertSql = "INSERT INTO class_waitlist (class_id, member_id) VALUES (?, ?)";
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // Not a field: ClassDAO holds a WaitlistDAO itself
+            ClassDAO.ReservationResult reservation = new ClassDAO().reserveSpot(conn, classId, memberId);
+            if (reservation == ClassDAO.ReservationResult.RESERVED) {
+                BookingChanged event = new BookingChanged(classId, memberId, BookingChanged.Kind.CREATED);
+                ChangeLog.append(conn, event);
+                conn.commit();
+                EntityCaches.classes().invalidate(classId);
+                LOGGER.log(Level.INFO, "Class {0} had a free spot - member {1} booked instead of waitlisted",
+                        new Object[]{classId, memberId});
+                DomainEventBus.getInstance().publish(event);
+                return 0;
+            }
+            if (reservation != ClassDAO.ReservationResult.FULL) {
+                conn.rollback();
+                LOGGER.log(Level.INFO, "Member {0} not waitlisted for class {1}: {2}",
+                        new Object[]{memberId, classId, reservation});
+                return -1;
+            }
+
+            // Still full; the class row lock is held until commit
+            try (PreparedStatement stmt = conn.prepareStatement(bookedSql)) {
+                stmt.setInt(1, classId);
+                stmt.setInt(2, memberId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        conn.rollback();
+                        LOGGER.log(Level.INFO, "Member {0} already booked class {1} - not waitlisted",
+                                new Object[]{memberId, classId});
+                        return -1;
+                    }
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
+                stmt.setInt(1, classId);
+                stmt.setInt(2, memberId);
+                stmt.executeUpdate();
+            }
+
+            // Re-read the queue so the mirror reflects the committed order
+            Deque<Integer> queue = loadQueue(conn, classId);
+            WaitlistChanged joined = new WaitlistChanged(classId, memberId, WaitlistChanged.Kind.JOINED);
+            ChangeLog.append(conn, joined);
+            conn.commit();
+            MIRROR.put(classId, queue);
+            DomainEventBus.getInstance().publish(joined);
+
+            int position = indexOf(queue, memberId) + 1;
+            LOGGER.log(Level.INFO, "Member {0} waitlisted for class {1} at position {2}",
+                    new Object[]{memberId, classId, position});
+            return position;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            rollbackQuietly(conn);
+            LOGGER.log(Level.INFO, "Member {0} is already on the waitlist for class {1}",
+                    new Object[]{memberId, classId});
+            return getWaitlistPosition(classId, memberId);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error joining waitlist", e);
+            rollbackQuietly(conn);
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.SEVERE, "Error closing connection", e);
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    private void rollbackQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
+            }
+        }
+    }
+
+    /**
+     * Remove a member from a class's waitlist
+     */
+    public boolean leaveWaitlist(int classId, int memberId) {
+        String sql = "DELETE FROM class_waitlist WHERE class_id = ? AND member_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, classId);
+            stmt.setInt(2, memberId);
+
+            boolean removed = stmt.executeUpdate() > 0;
+            if (removed) {
+                Deque<Integer> queue = MIRROR.get(classId);
+                if (queue != null) {
+                    synchronized (queue) {
+                        queue.remove(memberId);
+                    }
+                }
+                LOGGER.log(Level.INFO, "Member {0} left waitlist for class {1}", new Object[]{memberId, classId});
+                WaitlistChanged left = new WaitlistChanged(classId, memberId, WaitlistChanged.Kind.LEFT);
+                ChangeLog.appendQuietly(conn, left);
+                DomainEventBus.getInstance().publish(left);
+            }
+            return removed;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error leaving waitlist", e);
+        }
+
+        return false;
+    }
+
+    /**
+     * Get a member's 1-based position on a class's waitlist, or 0 if not waiting
+     */
+    public int getWaitlistPosition(int classId, int memberId) {
+        return indexOf(getQueue(classId), memberId) + 1;
+    }
+
+    /**
+     * Get the member IDs waiting for a class, in the order they will be promoted
+     */
+    public List<Integer> getWaitlist(int classId) {
+        Deque<Integer> queue = getQueue(classId);
+        synchronized (queue) {
+            return new ArrayList<>(queue);
+        }
+    }
+
+    /**
+     * Promote the first waitlisted member into a booking on the caller's connection.
+     * The caller must hold the class row lock and commit or roll back afterwards.
+     * Entries for members who already got a booking some other way are skipped and removed.
+     *
+     * @return promoted member ID, or -1 if nobody was waiting
+     */
+    int promoteNext(Connection conn, int classId) throws SQLException {
+        String nextSql = "SELECT w.id, w.member_id FROM class_waitlist w " +
+                "WHERE w.class_id = ? AND NOT EXISTS (" +
+                "    SELECT 1 FROM class_bookings b WHERE b.class_id = w.class_id AND b.member_id = w.member_id) " +
+                "ORDER BY w.id LIMIT 1 FOR UPDATE";
+        String insertSql = "INSERT INTO class_bookings (class_id, member_id, booking_date, status) " +
+                "VALUES (?, ?, NOW(), 'CONFIRMED')";
+        String cleanupSql = "DELETE FROM class_waitlist WHERE class_id = ? AND id <= ?";
+
+        int entryId;
+        int memberId;
+        try (PreparedStatement stmt = conn.prepareStatement(nextSql)) {
+            stmt.setInt(1, classId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return -1;
+                }
+                entryId = rs.getInt("id");
+                memberId = rs.getInt("member_id");
+            }
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
+            stmt.setInt(1, classId);
+            stmt.setInt(2, memberId);
+            stmt.executeUpdate();
+        }
+
+        // Removes the promoted entry plus any skipped (already booked) entries ahead of it
+        try (PreparedStatement stmt = conn.prepareStatement(cleanupSql)) {
+            stmt.setInt(1, classId);
+            stmt.setInt(2, entryId);
+            stmt.executeUpdate();
+        }
+
+        return memberId;
+    }
+
+    /**
+     * Update the mirror once a promotion has been committed
+     */
+    void onPromoted(int classId, int memberId) {
+        Deque<Integer> queue = MIRROR.get(classId);
+        if (queue == null) return;
+
+        synchronized (queue) {
+            if (!queue.contains(memberId)) {
+                MIRROR.remove(classId);
+                return;
+            }
+            // Drop everyone up to and including the promoted member, as the DELETE did
+            while (!queue.isEmpty()) {
+                if (queue.pollFirst() == memberId) break;
+            }
+        }
+    }
+
+    /**
+     * Forget the mirrored queue for a class (e.g. after the class is deleted)
+     */
+    void forgetClass(int classId) {
+        MIRROR.remove(classId);
+    }
+
+    private Deque<Integer> getQueue(int classId) {
+        Deque<Integer> queue = MIRROR.computeIfAbsent(classId, id -> {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                return loadQueue(conn, id);
+            } catch (SQLException e) {
+                // Returning null leaves nothing cached, so the next call retries
+                LOGGER.log(Level.SEVERE, "Error loading waitlist for class: " + id, e);
+                return null;
+            }
+        });
+        return queue != null ? queue : new ArrayDeque<>();
+    }
+
+    private Deque<Integer> loadQueue(Connection conn, int classId) throws SQLException {
+        String sql = "SELECT member_id FROM class_waitlist WHERE class_id = ? ORDER BY id";
+        Deque<Integer> queue = new ArrayDeque<>();
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, classId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    queue.addLast(rs.getInt("member_id"));
+                }
+            }
+        }
+
+        return queue;
+    }
+
+    private int indexOf(Deque<Integer> queue, int memberId) {
+        synchronized (queue) {
+            int index = 0;
+            for (int id : queue) {
+                if (id == memberId) return index;
+                index++;
+            }
+        }
+        return -1;
+    }
+}
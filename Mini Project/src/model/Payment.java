@@ -46,14 +46,14 @@ public class Payment {
         this.refundAmount = BigDecimal.ZERO;
     }
 
-    // Generate unique transaction ID
+    // Generate unique transaction ID (fixed width: TXN + 13-digit millis + 3-digit random)
     private String generateTransactionId() {
-        return "TXN" + System.currentTimeMillis() + (int)(Math.random() * 1000);
+        return "TXN" + System.currentTimeMillis() + String.format("%03d", (int)(Math.random() * 1000));
     }
 
-    // Generate unique invoice number
+    // Generate unique invoice number (same width, so two invoices in one millisecond don't collide)
     private String generateInvoiceNumber() {
-        return "INV" + System.currentTimeMillis();
+        return "INV" + System.currentTimeMillis() + String.format("%03d", (int)(Math.random() * 1000));
     }
 
     // Calculate final amount after discount
@@ -0,0 +1,85 @@
+package com.gymmanagementsystem.util;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handle for a query that may be abandoned while it is still running.
+ *
+ * A DAO registers its statement with {@link #attach}, which also sets a query
+ * timeout; calling {@link #cancel} from another thread then asks the driver to
+ * stop the statement on the server instead of letting it run to completion.
+ * The DAO calls {@link #detach} in a finally block before the statement closes.
+ * Detach and the driver cancel run under the same lock, so a cancel never reaches
+ * a statement that has already been closed or handed back to the pool.
+ * All static helpers accept a null handle, so DAO methods can take one optionally.
+ */
+public final class CancellableQuery {
+
+    private static final Logger LOGGER = Logger.getLogger(CancellableQuery.class.getName());
+
+    // Upper bound for an interactive query; a search slower than this is not worth waiting for
+    public static final int TIMEOUT_SECONDS = 10;
+
+    private Statement statement;
+    private boolean cancelled;
+
+    /**
+     * Register the statement about to run and apply the query timeout
+     *
+     * @throws SQLException if the handle was cancelled before the statement started
+     */
+    public static void attach(CancellableQuery query, Statement statement) throws SQLException {
+        if (query == null) return;
+
+        statement.setQueryTimeout(TIMEOUT_SECONDS);
+        synchronized (query) {
+            if (query.cancelled) {
+                throw new SQLException("Query cancelled before execution");
+            }
+            query.statement = statement;
+        }
+    }
+
+    /**
+     * Forget the statement once it has finished running; waits for a cancel in progress
+     */
+    public static void detach(CancellableQuery query, Statement statement) {
+        if (query == null) return;
+        synchronized (query) {
+            if (query.statement == statement) {
+                query.statement = null;
+            }
+        }
+    }
+
+    /**
+     * True if the handle was cancelled, e.g. to tell an expected failure from a real one
+     */
+    public static boolean isCancelled(CancellableQuery query) {
+        if (query == null) return false;
+        synchronized (query) {
+            return query.cancelled;
+        }
+    }
+
+    /**
+     * Stop the attached statement, if any, and refuse any statement attached later.
+     * The driver may open a connection to do this, so do not call it on the FX thread.
+     */
+    public synchronized void cancel() {
+        if (cancelled) return;
+        cancelled = true;
+
+        Statement running = statement;
+        statement = null;
+        if (running == null) return;
+        try {
+            running.cancel();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Could not cancel statement", e);
+        }
+    }
+}
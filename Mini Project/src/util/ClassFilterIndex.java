@@ -0,0 +1,112 @@
+package com.gymmanagementsystem.util;
+
+import com.gymmanagementsystem.model.GymClass;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory filter index over the classes loaded into a screen.
+ *
+ * Each class gets a position; the index keeps a bit set of positions per start
+ * date and per status. A filter is answered by intersecting the matching bit
+ * sets, so changing a filter no longer walks and converts every loaded class
+ * again. Text search is ranked by the database and narrowed by the caller.
+ *
+ * Not thread-safe; rebuild and query it on the FX Application Thread.
+ */
+public class ClassFilterIndex {
+
+    private static final BitSet EMPTY = new BitSet();
+
+    private final List<GymClass> items = new ArrayList<>();
+    private final Map<Integer, Integer> positionById = new HashMap<>();
+    private final Map<LocalDate, BitSet> byDate = new HashMap<>();
+    private final Map<String, BitSet> byStatus = new HashMap<>();
+
+    /**
+     * Replace the indexed classes, keeping their order
+     */
+    public void rebuild(List<GymClass> classes) {
+        items.clear();
+        positionById.clear();
+        byDate.clear();
+        byStatus.clear();
+
+        for (GymClass gymClass : classes) {
+            int position = items.size();
+            items.add(gymClass);
+            positionById.put(gymClass.getId(), position);
+            mark(gymClass, position);
+        }
+    }
+
+    /**
+     * Re-index one class in place, or append it if it is not indexed yet, so a
+     * single changed class does not cost a full rebuild
+     */
+    public void update(GymClass gymClass) {
+        Integer position = positionById.get(gymClass.getId());
+        if (position == null) {
+            position = items.size();
+            items.add(gymClass);
+            positionById.put(gymClass.getId(), position);
+        } else {
+            unmark(items.get(position), position);
+            items.set(position, gymClass);
+        }
+        mark(gymClass, position);
+    }
+
+    /**
+     * Classes matching every given filter, in load order
+     *
+     * @param date   class start date (null for any)
+     * @param status exact class status (null for any)
+     */
+    public List<GymClass> select(LocalDate date, String status) {
+        BitSet matches = new BitSet(items.size());
+        matches.set(0, items.size());
+
+        if (date != null) {
+            matches.and(byDate.getOrDefault(date, EMPTY));
+        }
+        if (status != null) {
+            matches.and(byStatus.getOrDefault(status, EMPTY));
+        }
+
+        List<GymClass> result = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            result.add(items.get(i));
+        }
+        return result;
+    }
+
+    private void mark(GymClass gymClass, int position) {
+        LocalDate date = startDate(gymClass);
+        if (date != null) {
+            byDate.computeIfAbsent(date, d -> new BitSet()).set(position);
+        }
+        if (gymClass.getStatus() != null) {
+            byStatus.computeIfAbsent(gymClass.getStatus(), s -> new BitSet()).set(position);
+        }
+    }
+
+    private void unmark(GymClass gymClass, int position) {
+        LocalDate date = startDate(gymClass);
+        if (date != null && byDate.containsKey(date)) {
+            byDate.get(date).clear(position);
+        }
+        if (gymClass.getStatus() != null && byStatus.containsKey(gymClass.getStatus())) {
+            byStatus.get(gymClass.getStatus()).clear(position);
+        }
+    }
+
+    private static LocalDate startDate(GymClass gymClass) {
+        return gymClass.getStartTime() == null ? null : gymClass.getStartTime().toLocalDateTime().toLocalDate();
+    }
+}
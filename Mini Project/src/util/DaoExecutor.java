@@ -0,0 +1,181 @@
+package com.gymmanagementsystem.util;
+
+import javafx.concurrent.Task;
+import javafx.scene.Node;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableView;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shared background execution layer for DAO calls.
+ *
+ * Controllers hand their JDBC work to {@link #submit} and get a JavaFX {@link Task}
+ * back; success and failure callbacks always run on the FX Application Thread.
+ * Work runs on virtual threads when the JDK provides them, otherwise on a small
+ * daemon pool sized to the connection pool.
+ *
+ * Reads started through {@link #load} are tracked so that leaving a screen can
+ * cancel them. Work started through {@link #submit} is never cancelled on
+ * navigation: writes must always finish and report back.
+ */
+public final class DaoExecutor {
+
+    private static final Logger LOGGER = Logger.getLogger(DaoExecutor.class.getName());
+
+    // Matches the Hikari maximum pool size in DatabaseConnection
+    private static final int FALLBACK_POOL_SIZE = 10;
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+    // Reads started through load(), cancelled by cancelAll()
+    private static final Set<Task<?>> IN_FLIGHT = ConcurrentHashMap.newKeySet();
+
+    private DaoExecutor() {}
+
+    private static ExecutorService createExecutor() {
+        try {
+            // Virtual threads are only available on JDK 21+, so look them up reflectively
+            ExecutorService virtual = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            LOGGER.info("DAO executor using virtual threads");
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadFactory factory = runnable -> {
+                Thread thread = new Thread(runnable, "dao-worker-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            LOGGER.info("DAO executor using a pool of " + FALLBACK_POOL_SIZE + " daemon threads");
+            return Executors.newFixedThreadPool(FALLBACK_POOL_SIZE, factory);
+        }
+    }
+
+    /**
+     * Run DAO work in the background, logging any failure
+     */
+    public static <T> Task<T> submit(Callable<T> work, Consumer<T> onSuccess) {
+        return submit(work, onSuccess, null);
+    }
+
+    /**
+     * Run DAO work in the background and deliver the result on the FX thread. Use
+     * this for writes: the task is not cancelled when the user leaves the screen.
+     */
+    public static <T> Task<T> submit(Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        Task<T> task = newTask(work, onSuccess, onFailure);
+        EXECUTOR.execute(task);
+        return task;
+    }
+
+    private static <T> Task<T> newTask(Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        Task<T> task = new Task<T>() {
+            @Override
+            protected T call() throws Exception {
+                return work.call();
+            }
+        };
+
+        task.setOnSucceeded(e -> {
+            IN_FLIGHT.remove(task);
+            if (onSuccess != null) {
+                onSuccess.accept(task.getValue());
+            }
+        });
+        task.setOnFailed(e -> {
+            IN_FLIGHT.remove(task);
+            LOGGER.log(Level.SEVERE, "Background DAO task failed", task.getException());
+            if (onFailure != null) {
+                onFailure.accept(task.getException());
+            }
+        });
+        task.setOnCancelled(e -> IN_FLIGHT.remove(task));
+        return task;
+    }
+
+    /**
+     * Run a read in the background, cancelled if the user leaves the screen first
+     */
+    public static <T> Task<T> load(Callable<T> work, Consumer<T> onSuccess) {
+        return load(work, onSuccess, null);
+    }
+
+    /**
+     * Run a read in the background while the given tables show a loading indicator.
+     * The read is cancelled if the user leaves the screen first.
+     */
+    public static <T> Task<T> load(Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure,
+                                   TableView<?>... tables) {
+        Task<T> task = newTask(work, onSuccess, onFailure);
+        for (TableView<?> table : tables) {
+            showLoading(table, task);
+        }
+        IN_FLIGHT.add(task);
+        EXECUTOR.execute(task);
+        return task;
+    }
+
+    /**
+     * Swap the table placeholder for a progress indicator until the task settles
+     */
+    private static void showLoading(TableView<?> table, Task<?> task) {
+        if (table == null) return;
+
+        Node originalPlaceholder = table.getPlaceholder();
+        ProgressIndicator indicator = new ProgressIndicator();
+        indicator.setMaxSize(40, 40);
+        table.setPlaceholder(indicator);
+        table.setDisable(true);
+
+        // Fires on success, failure and cancellation alike, including a task
+        // cancelled before it ever started running
+        task.stateProperty().addListener((obs, oldState, state) -> {
+            if (task.isDone()) {
+                table.setPlaceholder(originalPlaceholder);
+                table.setDisable(false);
+            }
+        });
+    }
+
+    /**
+     * Cancel a task if it is still running (null-safe)
+     */
+    public static void cancel(Task<?> task) {
+        if (task != null && !task.isDone()) {
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * Cancel every read still in flight, used when navigating away from a screen.
+     * Work started through submit() is left to finish.
+     */
+    public static void cancelAll() {
+        int cancelled = 0;
+        for (Task<?> task : IN_FLIGHT) {
+            if (task.cancel(true)) {
+                cancelled++;
+            }
+        }
+        IN_FLIGHT.clear();
+        if (cancelled > 0) {
+            LOGGER.log(Level.INFO, "Cancelled {0} in-flight DAO reads", cancelled);
+        }
+    }
+
+    /**
+     * Executor for callers that need plain futures instead of FX tasks
+     */
+    public static ExecutorService executor() {
+        return EXECUTOR;
+    }
+}
@@ -5,11 +5,78 @@ import com.zaxxer.hikari.HikariDataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.net.URI;
-
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared Hikari pool. The pool is built on first use, or ahead of time by
+ * {@link #warmUp()} from the startup pipeline, so class loading never blocks on
+ * the database. If the database is unreachable, a later call tries again (at most
+ * once every RETRY_INTERVAL_MILLIS), and {@link #whenAvailable} callbacks run once
+ * the pool finally comes up.
+ */
 public class DatabaseConnection {
-    private static HikariDataSource dataSource;
+    // Callers arriving sooner after a failed attempt fail at once instead of waiting on it again
+    private static final long RETRY_INTERVAL_MILLIS = 5000;
+
+    private static volatile HikariDataSource dataSource;
+    private static long lastFailedAt;
+    private static boolean failedBefore;
+    private static final List<Runnable> ON_AVAILABLE = new ArrayList<>();
+
+    /**
+     * Build the pool if it is not up yet; the first caller pays for opening it
+     *
+     * @return true if the pool is available
+     */
+    public static boolean initialize() {
+        List<Runnable> callbacks;
+        synchronized (DatabaseConnection.class) {
+            if (dataSource != null) {
+                return true;
+            }
+            if (failedBefore && System.currentTimeMillis() - lastFailedAt < RETRY_INTERVAL_MILLIS) {
+                return false;
+            }
+            if (!createDataSource()) {
+                failedBefore = true;
+                lastFailedAt = System.currentTimeMillis();
+                return false;
+            }
+            callbacks = new ArrayList<>(ON_AVAILABLE);
+            ON_AVAILABLE.clear();
+        }
+
+        runCallbacks(callbacks);
+        return true;
+    }
+
+    /**
+     * Run the action once the pool is available: right away if it already is, otherwise
+     * on the thread whose call finally opens it. Keep actions short.
+     */
+    public static void whenAvailable(Runnable action) {
+        synchronized (DatabaseConnection.class) {
+            if (dataSource == null) {
+                ON_AVAILABLE.add(action);
+                return;
+            }
+        }
+        runCallbacks(List.of(action));
+    }
+
+    private static void runCallbacks(List<Runnable> callbacks) {
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                System.err.println("Database availability callback failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
 
-    static {
+    private static boolean createDataSource() {
         try {
             HikariConfig config = new HikariConfig();
 
@@ -89,6 +156,8 @@ public class DatabaseConnection {
             config.addDataSourceProperty("cacheServerConfiguration", "true");
             config.addDataSourceProperty("elideSetAutoCommits", "true");
             config.addDataSourceProperty("maintainTimeStats", "false");
+            // Server-side cursors for statements that set a fetch size (streaming exports)
+            config.addDataSourceProperty("useCursorFetch", "true");
 
             dataSource = new HikariDataSource(config);
             System.out.println("MySQL database connection pool initialized successfully!");
@@ -96,13 +165,36 @@ public class DatabaseConnection {
             System.err.println("Failed to initialize database connection pool: " + e.getMessage());
             e.printStackTrace();
         }
+        return dataSource != null;
+    }
+
+    /**
+     * Build the pool and make one round trip, so the first real query finds an open,
+     * validated connection. Hikari fills the remaining idle connections in the background.
+     *
+     * @return true if the database answered
+     */
+    public static boolean warmUp() {
+        if (!initialize()) {
+            return false;
+        }
+        try (Connection conn = getConnection()) {
+            return conn.isValid(5);
+        } catch (SQLException e) {
+            System.err.println("Database warm-up failed: " + e.getMessage());
+            return false;
+        }
     }
 
     public static Connection getConnection() throws SQLException {
-        if (dataSource == null) {
+        HikariDataSource ds = dataSource;
+        if (ds == null && initialize()) {
+            ds = dataSource;
+        }
+        if (ds == null) {
             throw new SQLException("DataSource is not initialized");
         }
-        return dataSource.getConnection();
+        return ds.getConnection();
     }
 
     public static void closeDataSource() {
@@ -112,7 +204,12 @@ public class DatabaseConnection {
         }
     }
 
+    /**
+     * Whether the pool is up right now. A pure check: it never tries to open the pool,
+     * so callers that need it call {@link #initialize()} or {@link #warmUp()} first.
+     */
     public static boolean isPoolInitialized() {
-        return dataSource != null && !dataSource.isClosed();
+        HikariDataSource ds = dataSource;
+        return ds != null && !ds.isClosed();
     }
 }
\ No newline at end of file
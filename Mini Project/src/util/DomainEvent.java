@@ -0,0 +1,147 @@
+package com.gymmanagementsystem.util;
+
+/**
+ * Something a DAO committed that open screens and caches may want to react to.
+ *
+ * Events carry IDs only; subscribers re-read the rows they display. They are
+ * published after the transaction commits (and after the DAO's own caches are
+ * invalidated), so a re-read always sees the change.
+ */
+public abstract class DomainEvent {
+
+    private final long occurredAt = System.currentTimeMillis();
+
+    public long getOccurredAt() { return occurredAt; }
+
+    /**
+     * A class was created, edited or deleted. ALL_CLASSES means a bulk update
+     * (e.g. the periodic status sweep) that may have touched any class.
+     */
+    public static class ClassChanged extends DomainEvent {
+        public enum Kind { CREATED, UPDATED, DELETED }
+
+        public static final int ALL_CLASSES = -1;
+
+        private final int classId;
+        private final Kind kind;
+
+        public ClassChanged(int classId, Kind kind) {
+            this.classId = classId;
+            this.kind = kind;
+        }
+
+        public int getClassId() { return classId; }
+        public Kind getKind() { return kind; }
+        public boolean isBulk() { return classId == ALL_CLASSES; }
+
+        @Override
+        public String toString() {
+            return "ClassChanged[" + kind + " " + (isBulk() ? "all" : classId) + "]";
+        }
+    }
+
+    /**
+     * A member was booked into a class (directly, in a batch, at checkout or from
+     * the waitlist) or a booking was cancelled; the class's booking count changed.
+     */
+    public static class BookingChanged extends DomainEvent {
+        public enum Kind { CREATED, CANCELLED }
+
+        private final int classId;
+        private final int memberId;
+        private final Kind kind;
+
+        public BookingChanged(int classId, int memberId, Kind kind) {
+            this.classId = classId;
+            this.memberId = memberId;
+            this.kind = kind;
+        }
+
+        public int getClassId() { return classId; }
+        public int getMemberId() { return memberId; }
+        public Kind getKind() { return kind; }
+
+        @Override
+        public String toString() {
+            return "BookingChanged[" + kind + " class " + classId + ", member " + memberId + "]";
+        }
+    }
+
+    /**
+     * A member joined or left a class's waitlist (promotion is a BookingChanged)
+     */
+    public static class WaitlistChanged extends DomainEvent {
+        public enum Kind { JOINED, LEFT }
+
+        private final int classId;
+        private final int memberId;
+        private final Kind kind;
+
+        public WaitlistChanged(int classId, int memberId, Kind kind) {
+            this.classId = classId;
+            this.memberId = memberId;
+            this.kind = kind;
+        }
+
+        public int getClassId() { return classId; }
+        public int getMemberId() { return memberId; }
+        public Kind getKind() { return kind; }
+
+        @Override
+        public String toString() {
+            return "WaitlistChanged[" + kind + " class " + classId + ", member " + memberId + "]";
+        }
+    }
+
+    /**
+     * A payment was recorded or changed status (refunded, cancelled, ...)
+     */
+    public static class PaymentChanged extends DomainEvent {
+        public enum Kind { CREATED, STATUS_CHANGED, REFUNDED }
+
+        private final int paymentId;
+        private final int memberId;
+        private final Kind kind;
+
+        public PaymentChanged(int paymentId, int memberId, Kind kind) {
+            this.paymentId = paymentId;
+            this.memberId = memberId;
+            this.kind = kind;
+        }
+
+        public int getPaymentId() { return paymentId; }
+
+        /** Paying member, or 0 if the publisher did not know it */
+        public int getMemberId() { return memberId; }
+
+        public Kind getKind() { return kind; }
+
+        @Override
+        public String toString() {
+            return "PaymentChanged[" + kind + " payment " + paymentId + "]";
+        }
+    }
+
+    /**
+     * A member profile was created, edited or deleted
+     */
+    public static class MemberChanged extends DomainEvent {
+        public enum Kind { CREATED, UPDATED, DELETED }
+
+        private final int memberId;
+        private final Kind kind;
+
+        public MemberChanged(int memberId, Kind kind) {
+            this.memberId = memberId;
+            this.kind = kind;
+        }
+
+        public int getMemberId() { return memberId; }
+        public Kind getKind() { return kind; }
+
+        @Override
+        public String toString() {
+            return "MemberChanged[" + kind + " member " + memberId + "]";
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.gymmanagementsystem.util;
+
+import javafx.application.Platform;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-process publish/subscribe for {@link DomainEvent}s.
+ *
+ * DAOs publish after they commit; subscribers get every event that is an instance
+ * of the type they asked for. Two kinds of subscription:
+ * <ul>
+ *   <li>{@link #subscribe} runs the handler on the publishing thread and lasts until
+ *       closed; meant for caches and services.</li>
+ *   <li>{@link #subscribeScreen} runs the handler on the FX Application Thread and is
+ *       dropped by {@link #releaseScreenSubscriptions()} when the user navigates away,
+ *       so a controller never outlives its screen through the bus.</li>
+ * </ul>
+ */
+public class DomainEventBus {
+
+    private static final Logger LOGGER = Logger.getLogger(DomainEventBus.class.getName());
+
+    private static DomainEventBus instance;
+
+    private final List<Subscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+
+    private DomainEventBus() {}
+
+    public static synchronized DomainEventBus getInstance() {
+        if (instance == null) {
+            instance = new DomainEventBus();
+        }
+        return instance;
+    }
+
+    /**
+     * Handle events of the given type on the publishing thread
+     */
+    public <E extends DomainEvent> Subscription<E> subscribe(Class<E> type, Consumer<? super E> handler) {
+        Subscription<E> subscription = new Subscription<>(type, handler, false);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Handle events of the given type on the FX thread until the screen is left
+     */
+    public <E extends DomainEvent> Subscription<E> subscribeScreen(Class<E> type, Consumer<? super E> handler) {
+        Subscription<E> subscription = new Subscription<>(type, handler, true);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Deliver an event to every matching subscriber
+     */
+    public void publish(DomainEvent event) {
+        LOGGER.log(Level.FINE, "Publishing {0}", event);
+        for (Subscription<?> subscription : subscriptions) {
+            subscription.deliver(event);
+        }
+    }
+
+    /**
+     * Drop every screen subscription; called on navigation
+     */
+    public void releaseScreenSubscriptions() {
+        subscriptions.removeIf(subscription -> subscription.screen);
+    }
+
+    /**
+     * Handle to a subscription; close it to stop receiving events
+     */
+    public class Subscription<E extends DomainEvent> implements AutoCloseable {
+        private final Class<E> type;
+        private final Consumer<? super E> handler;
+        private final boolean screen;
+
+        private Subscription(Class<E> type, Consumer<? super E> handler, boolean screen) {
+            this.type = type;
+            this.handler = handler;
+            this.screen = screen;
+        }
+
+        private void deliver(DomainEvent event) {
+            if (!type.isInstance(event)) return;
+
+            E typed = type.cast(event);
+            if (screen && !Platform.isFxApplicationThread()) {
+                Platform.runLater(() -> {
+                    // The screen may have been left while this was queued
+                    if (subscriptions.contains(this)) {
+                        handle(typed);
+                    }
+                });
+            } else {
+                handle(typed);
+            }
+        }
+
+        private void handle(E event) {
+            try {
+                handler.accept(event);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Event handler failed for " + event, e);
+            }
+        }
+
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+        }
+    }
+}
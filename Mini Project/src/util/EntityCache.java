@@ -0,0 +1,159 @@
+package com.gymmanagementsystem.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Small bounded cache of single rows looked up by key.
+ *
+ * Entries expire ttlMillis after they were loaded and the least recently used
+ * entry is evicted once maxEntries is reached. Writers invalidate the keys they
+ * touch; a load that started before an invalidation is not stored, so a stale row
+ * read while a write was committing cannot end up in the cache. Values go in and
+ * come out through the copier, so callers may edit what they get back.
+ *
+ * Hit, miss and eviction counts are kept per cache and logged every
+ * STATS_LOG_INTERVAL lookups.
+ */
+public class EntityCache<K, V> {
+
+    private static final Logger LOGGER = Logger.getLogger(EntityCache.class.getName());
+
+    private static final int STATS_LOG_INTERVAL = 1000;
+
+    private final String name;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final UnaryOperator<V> copier;
+
+    // Access-ordered, so the first entry is always the least recently used
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Bumped on every invalidation so a load that raced with it is not stored
+    private long version;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public EntityCache(String name, int maxEntries, long ttlMillis, UnaryOperator<V> copier) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.copier = copier;
+    }
+
+    /**
+     * Cached value for the key, or null if it is not cached or has expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && System.currentTimeMillis() - entry.loadedAt >= ttlMillis) {
+            entries.remove(key);
+            expirations++;
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        if ((hits + misses) % STATS_LOG_INTERVAL == 0) {
+            LOGGER.log(Level.INFO, "{0} cache: {1}", new Object[]{name, getStats()});
+        }
+        return entry != null ? copier.apply(entry.value) : null;
+    }
+
+    /**
+     * Version to pass to {@link #put} after loading from the database
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Cache a freshly loaded value, unless something was invalidated since loadVersion was read
+     */
+    public synchronized void put(K key, V value, long loadVersion) {
+        if (value == null || loadVersion != version) return;
+
+        entries.put(key, new Entry<>(copier.apply(value), System.currentTimeMillis()));
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Drop one key; the next lookup goes to the database
+     */
+    public synchronized void invalidate(K key) {
+        version++;
+        entries.remove(key);
+    }
+
+    /**
+     * Drop everything, e.g. after a bulk UPDATE that may have touched any row
+     */
+    public synchronized void invalidateAll() {
+        version++;
+        entries.clear();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(entries.size(), hits, misses, evictions, expirations);
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long loadedAt;
+
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Point-in-time counters for one cache
+     */
+    public static class Stats {
+        private final int size;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+
+        public Stats(int size, long hits, long misses, long evictions, long expirations) {
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+        }
+
+        public int getSize() { return size; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public long getExpirations() { return expirations; }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : hits * 100.0 / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d entries, %d hits, %d misses (%.1f%% hit rate), %d evicted, %d expired",
+                    size, hits, misses, getHitRate(), evictions, expirations);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.gymmanagementsystem.util;
+
+import com.gymmanagementsystem.model.GymClass;
+import com.gymmanagementsystem.model.Member;
+import com.gymmanagementsystem.model.Payment;
+import com.gymmanagementsystem.model.Trainer;
+import com.gymmanagementsystem.model.User;
+import javafx.collections.ObservableList;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Brings an ObservableList in line with a freshly loaded list by entity ID.
+ *
+ * Rows whose key is gone are removed (contiguous runs in one change), new keys are
+ * inserted in place, and a row whose content changed is replaced at its index.
+ * Rows that did not change keep their existing instance and fire no change, so a
+ * TableView keeps its selection, scroll position and cells. When most of the list
+ * would change anyway, a single setAll is cheaper than many small changes and is
+ * used instead.
+ *
+ * Call on the FX Application Thread for lists bound to controls.
+ */
+public final class ListReconciler {
+
+    private ListReconciler() {}
+
+    /**
+     * Make target hold the rows of fresh, in fresh's order
+     *
+     * @param key     entity ID of a row
+     * @param content value whose equals() tells whether a row changed, e.g. one of the row methods below
+     * @return true if target was modified
+     */
+    public static <T> boolean reconcile(ObservableList<T> target, List<? extends T> fresh,
+                                        Function<? super T, ?> key, Function<? super T, ?> content) {
+        if (target.isEmpty() || fresh.isEmpty()) {
+            if (target.isEmpty() && fresh.isEmpty()) return false;
+            target.setAll(fresh);
+            return true;
+        }
+
+        Map<Object, T> freshByKey = new HashMap<>();
+        for (T row : fresh) {
+            freshByKey.put(key.apply(row), row);
+        }
+        Set<Object> currentKeys = new HashSet<>();
+        int staleRuns = 0;
+        boolean inRun = false;
+        for (T row : target) {
+            Object rowKey = key.apply(row);
+            currentKeys.add(rowKey);
+            boolean stale = !freshByKey.containsKey(rowKey);
+            if (stale && !inRun) staleRuns++;
+            inRun = stale;
+        }
+        int added = 0;
+        for (T row : fresh) {
+            if (!currentKeys.contains(key.apply(row))) added++;
+        }
+
+        if (staleRuns + added > fresh.size() / 2 + 1) {
+            target.setAll(fresh);
+            return true;
+        }
+
+        boolean changed = false;
+
+        // Drop rows that are gone, a run at a time
+        for (int end = target.size(); end > 0; ) {
+            if (freshByKey.containsKey(key.apply(target.get(end - 1)))) {
+                end--;
+                continue;
+            }
+            int start = end - 1;
+            while (start > 0 && !freshByKey.containsKey(key.apply(target.get(start - 1)))) {
+                start--;
+            }
+            target.remove(start, end);
+            changed = true;
+            end = start;
+        }
+
+        // Walk the fresh order: keep, replace, move or insert
+        for (int i = 0; i < fresh.size(); i++) {
+            T wanted = fresh.get(i);
+            Object wantedKey = key.apply(wanted);
+
+            if (i < target.size() && wantedKey.equals(key.apply(target.get(i)))) {
+                if (!content.apply(target.get(i)).equals(content.apply(wanted))) {
+                    target.set(i, wanted);
+                    changed = true;
+                }
+                continue;
+            }
+
+            int existing = -1;
+            for (int j = i + 1; j < target.size(); j++) {
+                if (wantedKey.equals(key.apply(target.get(j)))) {
+                    existing = j;
+                    break;
+                }
+            }
+            if (existing != -1) {
+                target.remove(existing);
+            }
+            target.add(i, wanted);
+            changed = true;
+        }
+
+        if (target.size() > fresh.size()) {
+            target.remove(fresh.size(), target.size());
+            changed = true;
+        }
+        return changed;
+    }
+
+    // Row contents for the entity tables: every field a screen shows or edits
+
+    public static Object classRow(GymClass c) {
+        return Arrays.asList(c.getClassName(), c.getDescription(), c.getTrainerId(), c.getTrainerName(),
+                c.getStartTime(), c.getEndTime(), c.getMaxCapacity(), c.getCurrentBookings(), c.getStatus());
+    }
+
+    public static Object memberRow(Member m) {
+        return Arrays.asList(m.getUserId(), m.getEmergencyContact(), m.getMedicalConditions(),
+                m.getMembershipPlanId(), m.getMembershipPlanName(), m.getMembershipPlanPrice(),
+                m.getMembershipStartDate(), m.getMembershipEndDate(), m.getMembershipStatus(),
+                userRow(m.getUser()));
+    }
+
+    public static Object trainerRow(Trainer t) {
+        return Arrays.asList(t.getUserId(), t.getSpecialization(), t.getCertifications(), t.getHourlyRate(),
+                t.getAvailability(), t.getTotalClasses(), t.getAverageRating(), t.isActive(),
+                userRow(t.getUser()));
+    }
+
+    public static Object paymentRow(Payment p) {
+        return Arrays.asList(p.getMemberId(), p.getTransactionId(), p.getAmount(), p.getDiscount(),
+                p.getFinalAmount(), p.getPaymentMethod(), p.getPaymentType(), p.getStatus(),
+                p.getPaymentDate(), p.getDescription(), p.getInvoiceNumber(), p.getCouponCode(),
+                p.getRefundAmount(), p.getRefundDate(), p.getRefundReason(),
+                p.getMember() != null ? userRow(p.getMember().getUser()) : null);
+    }
+
+    private static Object userRow(User u) {
+        return u == null ? null : Arrays.asList(u.getUsername(), u.getEmail(), u.getFirstName(),
+                u.getLastName(), u.getPhone());
+    }
+}
@@ -0,0 +1,222 @@
+package com.gymmanagementsystem.util;
+
+import com.gymmanagementsystem.dao.PaymentDAO;
+import com.gymmanagementsystem.model.Payment;
+import com.gymmanagementsystem.model.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams the full payments table to a CSV or JSONL file.
+ *
+ * Rows come from PaymentDAO.streamPayments (a forward-only server cursor) and are
+ * encoded straight into a fixed-size buffer that is flushed to a FileChannel, so
+ * memory use stays flat no matter how many payments are exported.
+ */
+public class PaymentExporter {
+
+    private static final Logger LOGGER = Logger.getLogger(PaymentExporter.class.getName());
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Report progress every this many rows
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    private static final String[] COLUMNS = {
+            "id", "transaction_id", "invoice_number", "member_id", "member_name", "member_email",
+            "amount", "discount", "final_amount", "payment_method", "payment_type", "status",
+            "payment_date", "description", "coupon_code", "refund_amount", "refund_date", "refund_reason"
+    };
+
+    public enum Format {
+        CSV(".csv"), JSONL(".jsonl");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() { return extension; }
+    }
+
+    private final PaymentDAO paymentDAO = new PaymentDAO();
+
+    /**
+     * Write every payment to the target file
+     *
+     * @param progress  called with the running row count every few thousand rows
+     * @param cancelled checked before each row; when true the export stops and the file is deleted
+     * @return rows written, or -1 if the export was cancelled
+     */
+    public long export(Path target, Format format, LongConsumer progress, BooleanSupplier cancelled)
+            throws IOException, SQLException {
+        boolean completed = false;
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            StringBuilder line = new StringBuilder(512);
+            long[] written = {0};
+
+            if (format == Format.CSV) {
+                line.append(String.join(",", COLUMNS)).append('\n');
+                write(channel, buffer, line);
+            }
+
+            paymentDAO.streamPayments(payment -> {
+                if (cancelled.getAsBoolean()) {
+                    return false;
+                }
+
+                line.setLength(0);
+                if (format == Format.CSV) {
+                    appendCsv(line, payment);
+                } else {
+                    appendJson(line, payment);
+                }
+                write(channel, buffer, line);
+
+                if (++written[0] % PROGRESS_INTERVAL == 0) {
+                    progress.accept(written[0]);
+                }
+                return true;
+            });
+
+            flush(channel, buffer);
+
+            if (cancelled.getAsBoolean()) {
+                return -1;
+            }
+
+            progress.accept(written[0]);
+            completed = true;
+            LOGGER.log(Level.INFO, "Exported {0} payments to {1}", new Object[]{written[0], target});
+            return written[0];
+        } finally {
+            if (!completed) {
+                // Do not leave a truncated export behind
+                Files.deleteIfExists(target);
+            }
+        }
+    }
+
+    private void appendCsv(StringBuilder line, Payment payment) {
+        Object[] values = values(payment);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) line.append(',');
+            if (values[i] == null) continue;
+
+            String value = values[i].toString();
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 ||
+                    value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        line.append('\n');
+    }
+
+    private void appendJson(StringBuilder line, Payment payment) {
+        Object[] values = values(payment);
+        line.append('{');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) line.append(',');
+            line.append('"').append(COLUMNS[i]).append("\":");
+
+            Object value = values[i];
+            if (value == null) {
+                line.append("null");
+            } else if (value instanceof Number) {
+                line.append(value);
+            } else {
+                appendJsonString(line, value.toString());
+            }
+        }
+        line.append("}\n");
+    }
+
+    private void appendJsonString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': line.append("\\\""); break;
+                case '\\': line.append("\\\\"); break;
+                case '\n': line.append("\\n"); break;
+                case '\r': line.append("\\r"); break;
+                case '\t': line.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * Column values in COLUMNS order
+     */
+    private Object[] values(Payment payment) {
+        User user = payment.getMember() != null ? payment.getMember().getUser() : null;
+        return new Object[]{
+                payment.getId(),
+                payment.getTransactionId(),
+                payment.getInvoiceNumber(),
+                payment.getMemberId(),
+                user != null ? user.getFullName() : null,
+                user != null ? user.getEmail() : null,
+                payment.getAmount(),
+                payment.getDiscount(),
+                payment.getFinalAmount(),
+                payment.getPaymentMethod(),
+                payment.getPaymentType(),
+                payment.getStatus(),
+                payment.getPaymentDate(),
+                payment.getDescription(),
+                payment.getCouponCode(),
+                payment.getRefundAmount(),
+                payment.getRefundDate(),
+                payment.getRefundReason()
+        };
+    }
+
+    /**
+     * Encode a line into the buffer, flushing to the channel whenever it fills up
+     */
+    private void write(FileChannel channel, ByteBuffer buffer, CharSequence text) throws IOException {
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush(channel, buffer);
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
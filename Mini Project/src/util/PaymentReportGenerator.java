@@ -1,7 +1,6 @@
 package com.gymmanagementsystem.util;
 
-import com.gymmanagementsystem.dao.MemberDAO;
-import com.gymmanagementsystem.dao.PaymentDAO;
+import com.gymmanagementsystem.dao.ReportDataDAO;
 import javafx.scene.control.Alert;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
@@ -9,11 +8,11 @@ import javafx.stage.Stage;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.sql.SQLException;
 import java.text.NumberFormat;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.Locale;
 
 /**
@@ -24,14 +23,12 @@ import java.util.Locale;
  */
 public class PaymentReportGenerator {
 
-    private final MemberDAO memberDAO;
-    private final PaymentDAO paymentDAO;
+    private final ReportDataDAO reportDataDAO;
     private final NumberFormat currencyFormatter;
     private final DateTimeFormatter dateFormatter;
 
     public PaymentReportGenerator() {
-        this.memberDAO = new MemberDAO();
-        this.paymentDAO = new PaymentDAO();
+        this.reportDataDAO = new ReportDataDAO();
         this.currencyFormatter = NumberFormat.getCurrencyInstance(new Locale("en", "IN"));
         this.dateFormatter = DateTimeFormatter.ofPattern("dd-MMM-yyyy");
     }
@@ -44,9 +41,12 @@ public class PaymentReportGenerator {
      */
     public boolean generateMonthlyReport(Stage stage) {
         try {
-            // Get current and previous month data
-            ReportData currentMonth = getMonthlyData(YearMonth.now());
-            ReportData previousMonth = getMonthlyData(YearMonth.now().minusMonths(1));
+            // Get current and previous month data in one pass
+            YearMonth thisMonth = YearMonth.now();
+            YearMonth lastMonth = thisMonth.minusMonths(1);
+            ReportDataDAO.MultiMonthReport data = reportDataDAO.getReportData(Arrays.asList(lastMonth, thisMonth));
+            ReportData currentMonth = toReportData(data, thisMonth);
+            ReportData previousMonth = toReportData(data, lastMonth);
 
             // Let user choose save location
             FileChooser fileChooser = new FileChooser();
@@ -82,30 +82,35 @@ public class PaymentReportGenerator {
     }
 
     /**
-     * Get monthly statistics data
+     * Map one month of engine output onto the report's fields
      */
-    private ReportData getMonthlyData(YearMonth month) throws SQLException {
-        ReportData data = new ReportData();
-
-        // Get member statistics
-        data.newMembers = memberDAO.getNewMembersForMonth(month.getMonthValue(), month.getYear());
-        data.totalActiveMembers = memberDAO.getActiveMembersCount();
-        data.totalMembers = memberDAO.getTotalMembersCount();
-
-        // Get payment statistics
-        data.totalRevenue = paymentDAO.getMonthlyRevenue(month.getMonthValue(), month.getYear());
-        data.completedPayments = paymentDAO.getCompletedPaymentsCount(month.getMonthValue(), month.getYear());
-        data.pendingPayments = paymentDAO.getPendingPaymentsCount();
-        data.failedPayments = paymentDAO.getFailedPaymentsCount(month.getMonthValue(), month.getYear());
-        data.refundedPayments = paymentDAO.getRefundedPaymentsCount(month.getMonthValue(), month.getYear());
-        data.totalRefunds = paymentDAO.getTotalRefundsForMonth(month.getMonthValue(), month.getYear());
+    private ReportData toReportData(ReportDataDAO.MultiMonthReport data, YearMonth month) {
+        ReportDataDAO.MonthlyMetrics metrics = data.get(month);
+        ReportData report = new ReportData();
+
+        // Member statistics
+        report.newMembers = metrics.newMembers;
+        report.totalActiveMembers = data.activeMembers;
+        report.totalMembers = data.totalMembers;
+
+        // Payment statistics
+        report.totalRevenue = metrics.revenue.doubleValue();
+        report.completedPayments = metrics.completedPayments;
+        report.pendingPayments = data.pendingPayments;
+        report.failedPayments = metrics.failedPayments;
+        report.refundedPayments = metrics.refundedPayments;
+        report.totalRefunds = metrics.refunds.doubleValue();
 
         // Payment method breakdown
-        data.cashPayments = paymentDAO.getPaymentCountByMethod("CASH", month.getMonthValue(), month.getYear());
-        data.cardPayments = paymentDAO.getPaymentCountByMethod("CARD", month.getMonthValue(), month.getYear());
-        data.onlinePayments = paymentDAO.getPaymentCountByMethod("ONLINE", month.getMonthValue(), month.getYear());
+        report.cashPayments = metrics.getMethodCount("CASH");
+        report.cardPayments = metrics.getMethodCount("CARD");
+        report.onlinePayments = metrics.getMethodCount("ONLINE");
 
-        return data;
+        // Class activity
+        report.classBookings = metrics.classBookings;
+        report.classAttendance = metrics.classAttendance;
+
+        return report;
     }
 
     /**
@@ -195,6 +200,20 @@ public class PaymentReportGenerator {
             report.append(String.format("  Online : %.1f%%\n\n", (current.onlinePayments * 100.0 / methodTotal)));
         }
 
+        // CLASS ACTIVITY
+        report.append("═══════════════════════════════════════════════════════════════\n");
+        report.append("                       CLASS ACTIVITY\n");
+        report.append("═══════════════════════════════════════════════════════════════\n\n");
+
+        report.append(String.format("%-40s : %d\n", "Class Bookings This Month", current.classBookings));
+        report.append(String.format("%-40s : %d\n", "Class Bookings Last Month", previous.classBookings));
+        report.append(String.format("%-40s : %d\n", "Attended This Month", current.classAttendance));
+        if (current.classBookings > 0) {
+            report.append(String.format("%-40s : %.1f%%\n", "Attendance Rate",
+                    (current.classAttendance * 100.0 / current.classBookings)));
+        }
+        report.append("\n");
+
         // GROWTH ANALYSIS
         report.append("═══════════════════════════════════════════════════════════════\n");
         report.append("                      GROWTH ANALYSIS\n");
@@ -293,5 +312,7 @@ public class PaymentReportGenerator {
         int cashPayments;
         int cardPayments;
         int onlinePayments;
+        int classBookings;
+        int classAttendance;
     }
 }
\ No newline at end of file
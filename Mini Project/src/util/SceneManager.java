@@ -9,10 +9,36 @@ import javafx.stage.Stage;
 import javafx.geometry.Rectangle2D;
 import javafx.stage.Screen;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Navigation between screens.
+ *
+ * Screens opened with switchScene are cached by FXML path, so going back to one
+ * reuses its scene graph and controller instead of parsing the FXML and running
+ * every initial query again. Controllers that implement {@link ScreenLifecycle} are
+ * told when their screen is hidden and shown again. At most MAX_CACHED_SCREENS are
+ * kept; the least recently shown one is dropped first. Logging out (the switch back
+ * to the login screen) clears the cache, so the next user never sees a previous
+ * user's screens. The startup pipeline can {@link #preload} screens before anyone
+ * has logged in, so even their first load skips reading the FXML and loading classes.
+ */
 public class SceneManager {
 
     private static final Logger LOGGER = Logger.getLogger(SceneManager.class.getName());
@@ -21,12 +47,32 @@ public class SceneManager {
     private static final double DEFAULT_MIN_WIDTH = 1200.0;
     private static final double DEFAULT_MIN_HEIGHT = 800.0;
 
+    private static final int MAX_CACHED_SCREENS = 5;
+
+    // Access order: the eldest entry is the least recently shown screen
+    private static final Map<String, CachedScreen> SCREENS =
+            new LinkedHashMap<String, CachedScreen>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedScreen> eldest) {
+                    if (size() <= MAX_CACHED_SCREENS) return false;
+                    LOGGER.log(Level.FINE, "Evicting cached screen {0}", eldest.getKey());
+                    return true;
+                }
+            };
+
+    private static CachedScreen current;
+
+    // FXML documents read ahead of their first load, by path
+    private static final Map<String, byte[]> PRELOADED = new ConcurrentHashMap<>();
+
     /**
      * Switch to a new scene while preserving current stage dimensions
      */
     public static void switchScene(Node source, String fxmlPath, String title) throws IOException {
         Stage stage = (Stage) source.getScene().getWindow();
 
+        leaveCurrentScreen();
+
         // Get screen bounds for maximum size
         Rectangle2D screenBounds = Screen.getPrimary().getVisualBounds();
 
@@ -35,20 +81,22 @@ public class SceneManager {
 
         LOGGER.log(Level.INFO, "Current maximized state: " + wasMaximized);
 
-        // Load new FXML
-        FXMLLoader loader = new FXMLLoader(SceneManager.class.getResource(fxmlPath));
-        Parent root = loader.load();
+        // Reuse the screen if it is cached, otherwise load the FXML
+        CachedScreen screen = SCREENS.get(fxmlPath);
+        boolean reused = screen != null;
+        if (!reused) {
+            FXMLLoader loader = new FXMLLoader(SceneManager.class.getResource(fxmlPath));
+            byte[] fxml = PRELOADED.get(fxmlPath);
+            Parent root = fxml != null ? loader.load(new ByteArrayInputStream(fxml)) : loader.load();
 
-        // Create new scene with screen dimensions
-        Scene newScene = new Scene(root, screenBounds.getWidth(), screenBounds.getHeight());
+            // Create new scene with screen dimensions
+            Scene scene = new Scene(root, screenBounds.getWidth(), screenBounds.getHeight());
+            addStylesheet(scene);
 
-        try {
-            newScene.getStylesheets().add(
-                    SceneManager.class.getResource("/css/style.css").toExternalForm()
-            );
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, "Could not load stylesheet", e);
+            screen = new CachedScreen(scene, loader.getController());
+            SCREENS.put(fxmlPath, screen);
         }
+        Scene newScene = screen.scene;
 
         // Set minimum size constraints
         stage.setMinWidth(DEFAULT_MIN_WIDTH);
@@ -72,7 +120,13 @@ public class SceneManager {
             stage.setMaximized(true);
         }
 
-        LOGGER.log(Level.INFO, "Scene switched - New maximized state: " + stage.isMaximized());
+        current = screen;
+        if (reused && screen.controller instanceof ScreenLifecycle) {
+            ((ScreenLifecycle) screen.controller).onShow();
+        }
+
+        LOGGER.log(Level.INFO, "Scene switched ({0}) - New maximized state: {1}",
+                new Object[]{reused ? "cached" : "loaded", stage.isMaximized()});
     }
 
     /**
@@ -81,20 +135,16 @@ public class SceneManager {
     public static void switchSceneWithDefaultSize(Node source, String fxmlPath, String title) throws IOException {
         Stage stage = (Stage) source.getScene().getWindow();
 
+        leaveCurrentScreen();
+        clearCache();
+
         // Load new FXML
         FXMLLoader loader = new FXMLLoader(SceneManager.class.getResource(fxmlPath));
         Parent root = loader.load();
 
         // Create new scene with default login size
         Scene scene = new Scene(root, 450, 650);
-
-        try {
-            scene.getStylesheets().add(
-                    SceneManager.class.getResource("/css/style.css").toExternalForm()
-            );
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, "Could not load stylesheet", e);
-        }
+        addStylesheet(scene);
 
         // Un-maximize and reset to normal window
         stage.setMaximized(false);
@@ -107,4 +157,126 @@ public class SceneManager {
 
         LOGGER.log(Level.INFO, "Switched to login screen");
     }
+
+    /**
+     * Forget every cached screen, e.g. on logout
+     */
+    public static void clearCache() {
+        SCREENS.clear();
+        current = null;
+    }
+
+    /**
+     * Read the given screens' FXML and load (without initializing) the classes they
+     * name: the controller and every control and layout element. Safe off the FX
+     * thread, since nothing is instantiated and no controller runs; the controllers
+     * expect a logged-in session.
+     *
+     * @return number of classes loaded
+     */
+    public static int preload(List<String> fxmlPaths) throws IOException, XMLStreamException {
+        int classes = 0;
+        for (String fxmlPath : fxmlPaths) {
+            URL url = SceneManager.class.getResource(fxmlPath);
+            if (url == null) {
+                LOGGER.warning("Cannot preload missing FXML: " + fxmlPath);
+                continue;
+            }
+
+            byte[] fxml;
+            try (InputStream in = url.openStream()) {
+                fxml = in.readAllBytes();
+            }
+            classes += loadReferencedClasses(fxml);
+            PRELOADED.put(fxmlPath, fxml);
+        }
+        return classes;
+    }
+
+    private static int loadReferencedClasses(byte[] fxml) throws XMLStreamException {
+        List<String> imports = new ArrayList<>();
+        Set<String> classNames = new LinkedHashSet<>();
+        Set<String> elements = new LinkedHashSet<>();
+
+        XMLStreamReader reader = XMLInputFactory.newFactory().createXMLStreamReader(new ByteArrayInputStream(fxml));
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.PROCESSING_INSTRUCTION && "import".equals(reader.getPITarget())) {
+                    imports.add(reader.getPIData().trim());
+                } else if (event == XMLStreamConstants.START_ELEMENT) {
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        if ("controller".equals(reader.getAttributeLocalName(i))
+                                && "fx".equals(reader.getAttributePrefix(i))) {
+                            classNames.add(reader.getAttributeValue(i));
+                        }
+                    }
+                    // Instance elements are capitalized; lower-case ones are properties
+                    String name = reader.getLocalName();
+                    if (reader.getPrefix() == null || reader.getPrefix().isEmpty()) {
+                        if (Character.isUpperCase(name.charAt(0))) {
+                            elements.add(name);
+                        }
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        for (String element : elements) {
+            for (String imported : imports) {
+                if (imported.endsWith(".*")) {
+                    classNames.add(imported.substring(0, imported.length() - 1) + element);
+                } else if (imported.endsWith("." + element)) {
+                    classNames.add(imported);
+                }
+            }
+        }
+
+        int loaded = 0;
+        for (String className : classNames) {
+            try {
+                Class.forName(className, false, SceneManager.class.getClassLoader());
+                loaded++;
+            } catch (ClassNotFoundException e) {
+                // A wildcard import that does not hold this element
+            }
+        }
+        return loaded;
+    }
+
+    private static void leaveCurrentScreen() {
+        // Loads and event subscriptions of the screen we are leaving are no longer wanted
+        DaoExecutor.cancelAll();
+        DomainEventBus.getInstance().releaseScreenSubscriptions();
+
+        if (current != null && current.controller instanceof ScreenLifecycle) {
+            ((ScreenLifecycle) current.controller).onHide();
+        }
+        current = null;
+    }
+
+    private static void addStylesheet(Scene scene) {
+        try {
+            scene.getStylesheets().add(
+                    SceneManager.class.getResource("/css/style.css").toExternalForm()
+            );
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Could not load stylesheet", e);
+        }
+    }
+
+    /**
+     * A loaded screen: its scene (with the stylesheet applied) and controller
+     */
+    private static class CachedScreen {
+        private final Scene scene;
+        private final Object controller;
+
+        private CachedScreen(Scene scene, Object controller) {
+            this.scene = scene;
+            this.controller = controller;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.gymmanagementsystem.util;
+
+/**
+ * Optional hooks for controllers of screens that SceneManager keeps cached.
+ *
+ * A cached screen keeps its controller, tables and selection while the user is
+ * elsewhere. initialize() still runs once, on the first load; these hooks cover
+ * every later visit.
+ */
+public interface ScreenLifecycle {
+
+    /**
+     * The screen is shown again from the cache. Subscribe to events again (they are
+     * released on every navigation) and refresh what may have changed meanwhile.
+     */
+    default void onShow() {}
+
+    /**
+     * The screen is being left but stays cached. Stop anything still pending, such
+     * as a debounced search; SceneManager has already cancelled its loads.
+     */
+    default void onHide() {}
+}
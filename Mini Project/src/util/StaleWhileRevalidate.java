@@ -0,0 +1,194 @@
+package com.gymmanagementsystem.util;
+
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import javafx.scene.control.TableView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the last good result of a query and serves it while a fresh one loads.
+ *
+ * A read hands the caller the last snapshot straight away (if there is one) and
+ * then revalidates in the background; every caller waiting on that refresh gets
+ * the new snapshot when it arrives. If the refresh fails, callers keep the last
+ * snapshot, marked as failed, instead of an empty table. Only when nothing has
+ * ever loaded does a failure reach the caller's error handler.
+ *
+ * Reads and callbacks happen on the FX Application Thread.
+ */
+public class StaleWhileRevalidate<T> {
+
+    private static final Logger LOGGER = Logger.getLogger(StaleWhileRevalidate.class.getName());
+
+    // Cached data younger than this is not worth pointing out to the user
+    private static final long STALE_AFTER_MILLIS = 30_000;
+
+    private final String name;
+    private final Callable<T> loader;
+
+    private Snapshot<T> last;
+    private Task<T> refresh;
+    private final List<Waiter<T>> waiting = new ArrayList<>();
+
+    public StaleWhileRevalidate(String name, Callable<T> loader) {
+        this.name = name;
+        this.loader = loader;
+    }
+
+    /**
+     * Deliver the cached snapshot now (if any) and a fresh one once it loads.
+     * While nothing is cached, the given tables show the loading indicator.
+     *
+     * @return the refresh task, so the screen can cancel it
+     */
+    public Task<T> read(Consumer<Snapshot<T>> onData, Consumer<Throwable> onFailure, TableView<?>... tables) {
+        if (last != null) {
+            onData.accept(last.cached());
+        }
+
+        Waiter<T> waiter = new Waiter<>(onData, onFailure);
+        if (refresh != null && !refresh.isDone()) {
+            // Share the refresh that is already running
+            waiting.add(waiter);
+            return refresh;
+        }
+
+        // A cancelled refresh leaves its waiters behind; they belong to a screen that is gone
+        waiting.clear();
+        waiting.add(waiter);
+        refresh = last == null
+                ? DaoExecutor.load(loader, this::refreshed, this::refreshFailed, tables)
+                : DaoExecutor.load(loader, this::refreshed, this::refreshFailed);
+        return refresh;
+    }
+
+    /**
+     * Load a first snapshot before any screen asks, e.g. during startup. The query runs
+     * on the calling thread (not as a DaoExecutor task, so navigation does not cancel
+     * it); call it off the FX thread. The result is installed on the FX thread unless a
+     * screen's own read got there first.
+     */
+    public void prime() throws Exception {
+        T value = loader.call();
+        Platform.runLater(() -> {
+            if (last == null) {
+                refreshed(value);
+            }
+        });
+    }
+
+    /**
+     * Last snapshot, or null if nothing has loaded yet
+     */
+    public Snapshot<T> peek() {
+        return last;
+    }
+
+    private void refreshed(T value) {
+        last = new Snapshot<>(value, System.currentTimeMillis(), true, false);
+        List<Waiter<T>> ready = new ArrayList<>(waiting);
+        waiting.clear();
+        for (Waiter<T> waiter : ready) {
+            waiter.onData.accept(last);
+        }
+    }
+
+    private void refreshFailed(Throwable error) {
+        List<Waiter<T>> ready = new ArrayList<>(waiting);
+        waiting.clear();
+
+        if (last != null) {
+            LOGGER.log(Level.WARNING, "Refreshing {0} failed, serving data from {1}",
+                    new Object[]{name, last.describeAge()});
+        }
+        for (Waiter<T> waiter : ready) {
+            if (last != null) {
+                waiter.onData.accept(last.failed());
+            } else if (waiter.onFailure != null) {
+                waiter.onFailure.accept(error);
+            }
+        }
+    }
+
+    private static class Waiter<T> {
+        final Consumer<Snapshot<T>> onData;
+        final Consumer<Throwable> onFailure;
+
+        Waiter(Consumer<Snapshot<T>> onData, Consumer<Throwable> onFailure) {
+            this.onData = onData;
+            this.onFailure = onFailure;
+        }
+    }
+
+    /**
+     * A query result plus when it was fetched and whether it is the latest we could get
+     */
+    public static final class Snapshot<T> {
+        private final T value;
+        private final long fetchedAt;
+        private final boolean fresh;
+        private final boolean refreshFailed;
+
+        private Snapshot(T value, long fetchedAt, boolean fresh, boolean refreshFailed) {
+            this.value = value;
+            this.fetchedAt = fetchedAt;
+            this.fresh = fresh;
+            this.refreshFailed = refreshFailed;
+        }
+
+        private Snapshot<T> cached() {
+            return new Snapshot<>(value, fetchedAt, false, false);
+        }
+
+        private Snapshot<T> failed() {
+            return new Snapshot<>(value, fetchedAt, false, true);
+        }
+
+        public T getValue() { return value; }
+        public long getFetchedAt() { return fetchedAt; }
+
+        /** True if the value was just loaded from the database */
+        public boolean isFresh() { return fresh; }
+
+        /** True if the database could not be reached and this is the last good value */
+        public boolean isRefreshFailed() { return refreshFailed; }
+
+        /**
+         * True if the screen should say the data is old: the refresh failed, or the
+         * cached value shown while refreshing is over STALE_AFTER_MILLIS old
+         */
+        public boolean isStale() {
+            return refreshFailed || (!fresh && getAgeMillis() > STALE_AFTER_MILLIS);
+        }
+
+        public long getAgeMillis() {
+            return System.currentTimeMillis() - fetchedAt;
+        }
+
+        /**
+         * Short age text for a status label, e.g. "2 min ago"
+         */
+        public String describeAge() {
+            long seconds = getAgeMillis() / 1000;
+            if (seconds < 5) return "just now";
+            if (seconds < 60) return seconds + " s ago";
+            if (seconds < 3600) return (seconds / 60) + " min ago";
+            return (seconds / 3600) + " h ago";
+        }
+
+        /**
+         * Status line describing where the data on screen came from
+         */
+        public String describe() {
+            if (fresh) return "Updated " + describeAge();
+            if (refreshFailed) return "Database unavailable, showing data from " + describeAge();
+            return "Showing data from " + describeAge() + ", refreshing...";
+        }
+    }
+}
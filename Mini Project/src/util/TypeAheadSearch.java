@@ -0,0 +1,123 @@
+package com.gymmanagementsystem.util;
+
+import javafx.animation.PauseTransition;
+import javafx.concurrent.Task;
+import javafx.scene.control.TextInputControl;
+import javafx.util.Duration;
+
+import java.util.function.Consumer;
+
+/**
+ * Search-as-you-type for a text field backed by a DAO query.
+ *
+ * Typing restarts a short debounce; when it expires the query runs on the
+ * DaoExecutor. Every keystroke supersedes the query in flight: its task is
+ * cancelled and its JDBC statement is stopped through a {@link CancellableQuery},
+ * and a generation counter makes sure only the latest query's result ever
+ * reaches the callback, whatever order the results arrive in.
+ *
+ * All methods must be called on the FX Application Thread.
+ */
+public class TypeAheadSearch<T> {
+
+    private static final Duration DEFAULT_DELAY = Duration.millis(300);
+
+    /**
+     * Query for one search term; pass the handle on to the DAO so the statement can be cancelled
+     */
+    @FunctionalInterface
+    public interface Query<T> {
+        T search(String term, CancellableQuery handle) throws Exception;
+    }
+
+    private final TextInputControl field;
+    private final Query<T> query;
+    private final Consumer<T> onResult;
+    private final Runnable onCleared;
+    private final PauseTransition debounce = new PauseTransition(DEFAULT_DELAY);
+
+    private long generation;
+    private Task<T> task;
+    private CancellableQuery handle;
+
+    /**
+     * @param onResult  receives the result of the latest search only
+     * @param onCleared runs instead of a query when the field is emptied
+     */
+    public TypeAheadSearch(TextInputControl field, Query<T> query, Consumer<T> onResult, Runnable onCleared) {
+        this.field = field;
+        this.query = query;
+        this.onResult = onResult;
+        this.onCleared = onCleared;
+
+        debounce.setOnFinished(e -> run());
+        field.textProperty().addListener((obs, oldValue, newValue) -> {
+            // Whatever is running now answers a term the user has already changed
+            cancelRunning();
+            debounce.playFromStart();
+        });
+    }
+
+    /**
+     * Search for the current text right away, skipping the debounce
+     */
+    public void searchNow() {
+        debounce.stop();
+        run();
+    }
+
+    /**
+     * True if the field holds a search term
+     */
+    public boolean isActive() {
+        return !currentTerm().isEmpty();
+    }
+
+    /**
+     * Drop any pending or running search without delivering a result
+     */
+    public void cancel() {
+        debounce.stop();
+        cancelRunning();
+    }
+
+    private void run() {
+        cancelRunning();
+
+        String term = currentTerm();
+        if (term.isEmpty()) {
+            onCleared.run();
+            return;
+        }
+
+        long current = generation;
+        CancellableQuery queryHandle = new CancellableQuery();
+        handle = queryHandle;
+        task = DaoExecutor.load(
+                () -> query.search(term, queryHandle),
+                result -> {
+                    if (current != generation) return;
+                    handle = null;
+                    onResult.accept(result);
+                }
+        );
+    }
+
+    private void cancelRunning() {
+        generation++;
+        DaoExecutor.cancel(task);
+        task = null;
+
+        CancellableQuery running = handle;
+        handle = null;
+        if (running != null) {
+            // Statement.cancel can block on the network, keep it off the FX thread
+            DaoExecutor.executor().execute(running::cancel);
+        }
+    }
+
+    private String currentTerm() {
+        String text = field.getText();
+        return text == null ? "" : text.trim();
+    }
+}